@@ -0,0 +1,185 @@
+package com.example.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.jsr107.Eh107Configuration;
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.spi.CachingProvider;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hit ratio of the {@code usersByLogin} cache, with Ehcache and with Caffeine, on a replayed trace of logins.
+ * <p>
+ * The trace is read from the {@code trace} file, one login per line, for instance extracted from the access logs.
+ * Without one, a trace is generated: logins drawn from a Zipf distribution over {@link #USERS} users, as a few
+ * users are read much more than the others, and every {@link #SCAN_INTERVAL} reads a scan of {@link #SCAN_LENGTH}
+ * consecutive logins, as done by an admin paging through {@code /api/users} or by a batch job.
+ * <p>
+ * Each invocation replays the whole trace on empty caches, and the {@code hits} and {@code misses} counters are
+ * reported with the time taken. A miss puts the login in the cache, as {@code @Cacheable} does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class UserCacheReplayBenchmark {
+
+    static final int USERS = 100_000;
+
+    static final int TRACE_LENGTH = 1_000_000;
+
+    static final int SCAN_INTERVAL = 50_000;
+
+    static final int SCAN_LENGTH = 5_000;
+
+    @Param({"EHCACHE", "CAFFEINE"})
+    public ApplicationProperties.Cache.Provider provider;
+
+    /**
+     * Size of the cache, as {@code jhipster.cache.ehcache.max-entries} in production.
+     */
+    @Param("1000")
+    public int cacheSize;
+
+    /**
+     * Path of the trace to replay, or empty to generate one.
+     */
+    @Param("")
+    public String trace;
+
+    private String[] logins;
+
+    private CacheManager cacheManager;
+
+    private Cache<String, String> cache;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Counters {
+
+        public long hits;
+
+        public long misses;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            hits = 0;
+            misses = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void readTrace() throws IOException {
+        logins = trace.isEmpty() ? generateTrace() : Files.readAllLines(Paths.get(trace), StandardCharsets.UTF_8)
+            .stream()
+            .map(String::trim)
+            .filter(login -> !login.isEmpty())
+            .toArray(String[]::new);
+    }
+
+    @Setup(Level.Invocation)
+    public void createCache() {
+        if (provider == ApplicationProperties.Cache.Provider.CAFFEINE) {
+            CaffeineConfiguration<String, String> configuration = new CaffeineConfiguration<>();
+            configuration.setTypes(String.class, String.class);
+            configuration.setStoreByValue(false);
+            configuration.setMaximumSize(OptionalLong.of(cacheSize));
+            cacheManager = cacheManager(CaffeineCachingProvider.class);
+            cache = cacheManager.createCache("usersByLogin", configuration);
+        } else {
+            cacheManager = cacheManager(EhcacheCachingProvider.class);
+            cache = cacheManager.createCache("usersByLogin", Eh107Configuration.fromEhcacheCacheConfiguration(
+                CacheConfigurationBuilder.newCacheConfigurationBuilder(String.class, String.class,
+                    ResourcePoolsBuilder.heap(cacheSize))));
+        }
+    }
+
+    @TearDown(Level.Invocation)
+    public void closeCache() {
+        cacheManager.destroyCache("usersByLogin");
+        cacheManager.close();
+    }
+
+    @Benchmark
+    public void replay(Counters counters) {
+        for (String login : logins) {
+            if (cache.get(login) != null) {
+                counters.hits++;
+            } else {
+                counters.misses++;
+                cache.put(login, login);
+            }
+        }
+    }
+
+    private static CacheManager cacheManager(Class<? extends CachingProvider> providerClass) {
+        CachingProvider cachingProvider = Caching.getCachingProvider(providerClass.getName());
+        return cachingProvider.getCacheManager(cachingProvider.getDefaultURI(),
+            UserCacheReplayBenchmark.class.getClassLoader());
+    }
+
+    static String[] generateTrace() {
+        Random random = new Random(42);
+        // cumulative distribution of a Zipf law of exponent 1, the first rank being the most read user
+        double[] cumulative = new double[USERS];
+        double sum = 0;
+        for (int rank = 0; rank < USERS; rank++) {
+            sum += 1.0 / (rank + 1);
+            cumulative[rank] = sum;
+        }
+        // the most read users are spread over the logins, which are scanned in their order
+        List<Integer> users = new ArrayList<>(USERS);
+        for (int user = 0; user < USERS; user++) {
+            users.add(user);
+        }
+        Collections.shuffle(users, random);
+        List<String> trace = new ArrayList<>(TRACE_LENGTH + TRACE_LENGTH / SCAN_INTERVAL * SCAN_LENGTH);
+        for (int i = 1; i <= TRACE_LENGTH; i++) {
+            int rank = Arrays.binarySearch(cumulative, random.nextDouble() * sum);
+            trace.add(login(users.get(rank < 0 ? -rank - 1 : rank)));
+            if (i % SCAN_INTERVAL == 0) {
+                int first = random.nextInt(USERS - SCAN_LENGTH);
+                for (int user = first; user < first + SCAN_LENGTH; user++) {
+                    trace.add(login(user));
+                }
+            }
+        }
+        return trace.toArray(new String[0]);
+    }
+
+    private static String login(int user) {
+        return String.format("user%06d", user);
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.domain;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.bson.Document;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of materializing one timeline page of tweets, from MongoDB documents and from JSON.
+ * <p>
+ * Neither path parses the content any more: the stored refs and tags are used as is. Run it against an older
+ * revision to see the tokenization that used to happen on every JSON read.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TweetReadBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+
+    private MappingMongoConverter converter;
+
+    private List<Document> documents;
+
+    private ObjectMapper objectMapper;
+
+    private JavaType pageType;
+
+    private byte[] json;
+
+    @Setup
+    public void setup() throws IOException {
+        MongoCustomConversions conversions = new MongoCustomConversions(Collections.emptyList());
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+        mappingContext.afterPropertiesSet();
+        converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+        converter.setCustomConversions(conversions);
+        converter.afterPropertiesSet();
+
+        objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        pageType = objectMapper.getTypeFactory().constructCollectionType(List.class, Tweet.class);
+
+        List<Tweet> tweets = new ArrayList<>(PAGE_SIZE);
+        documents = new ArrayList<>(PAGE_SIZE);
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            Tweet tweet = new Tweet()
+                .tweeter("user" + i)
+                .content("Tweet number " + i + " for @alice and @bob, about #performance and #mongodb");
+            tweet.setId(Integer.toHexString(0x5bc00000 + i) + "0000000000000000");
+            tweet.setCreateTime(Instant.now().minusSeconds(i));
+            tweets.add(tweet);
+            Document document = new Document();
+            converter.write(tweet, document);
+            documents.add(document);
+        }
+        json = objectMapper.writeValueAsBytes(tweets);
+    }
+
+    @Benchmark
+    public void mongoConverter(Blackhole blackhole) {
+        for (Document document : documents) {
+            Tweet tweet = converter.read(Tweet.class, document);
+            blackhole.consume(tweet.getRefs());
+        }
+    }
+
+    @Benchmark
+    public void jackson(Blackhole blackhole) throws IOException {
+        List<Tweet> tweets = objectMapper.readValue(json, pageType);
+        for (Tweet tweet : tweets) {
+            blackhole.consume(tweet.getRefs());
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.domain.util;
+
+import com.example.domain.Tweet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the mention and hashtag extraction done on every tweet write, against the former recursive
+ * implementation, and through {@link Tweet#setContent(String)} as a new tweet does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TweetTokenizerBenchmark {
+
+    @Param({"short", "long", "dense"})
+    private String shape;
+
+    private String content;
+
+    @Setup
+    public void setup() {
+        switch (shape) {
+            case "short":
+                content = "Lunch with @alice, finally! #friday ";
+                break;
+            case "long":
+                StringBuilder text = new StringBuilder();
+                while (text.length() < 2000) {
+                    text.append("A long thread about performance, with the occasional mention of @bob and a #hashtag. ");
+                }
+                content = text.toString();
+                break;
+            default:
+                StringBuilder tokens = new StringBuilder();
+                for (int i = 0; tokens.length() < 280; i++) {
+                    tokens.append(i % 2 == 0 ? "@user" : "#tag").append(i).append(' ');
+                }
+                content = tokens.toString();
+        }
+    }
+
+    @Benchmark
+    public void tokenizer(Blackhole blackhole) {
+        List<String> refs = new ArrayList<>();
+        List<String> tags = new ArrayList<>();
+        TweetTokenizer.tokenize(content, refs, tags);
+        blackhole.consume(refs);
+        blackhole.consume(tags);
+    }
+
+    @Benchmark
+    public void tweetSetContent(Blackhole blackhole) {
+        Tweet tweet = new Tweet();
+        tweet.setContent(content);
+        blackhole.consume(tweet.getRefs());
+        blackhole.consume(tweet.getTags());
+    }
+
+    @Benchmark
+    public void recursive(Blackhole blackhole) {
+        blackhole.consume(extractTokensByPrefix(content, "@"));
+        blackhole.consume(extractTokensByPrefix(content, "#"));
+    }
+
+    /**
+     * The implementation formerly in {@code Tweet}. The contents above end with a space, which it needs.
+     */
+    private static List<String> extractTokensByPrefix(String content, String prefix) {
+        List<String> tokens = new ArrayList<>();
+        if (content == null) {
+            return tokens;
+        }
+        int startIndex = content.indexOf(prefix);
+        if (startIndex < 0) {
+            return tokens;
+        }
+        int endIndex = content.indexOf(" ", startIndex + 1);
+        tokens.add(content.substring(startIndex + 1, endIndex));
+        tokens.addAll(extractTokensByPrefix(content.substring(endIndex), prefix));
+        return tokens;
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.repository.codec;
+
+import com.example.domain.Authority;
+import com.example.domain.Tweet;
+import com.example.domain.User;
+import org.bson.BsonBinaryReader;
+import org.bson.BsonBinaryWriter;
+import org.bson.Document;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.DocumentCodec;
+import org.bson.codecs.EncoderContext;
+import org.bson.io.BasicOutputBuffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decoding of a timeline page of tweets, and of a user, from raw BSON: through a {@link Document} and the
+ * Spring Data {@link MappingMongoConverter}, as the repositories do by default, or with the hand-written codecs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MongoCodecBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+
+    private final DocumentCodec documentCodec = new DocumentCodec();
+
+    private final TweetCodec tweetCodec = new TweetCodec();
+
+    private final UserCodec userCodec = new UserCodec();
+
+    private final DecoderContext decoderContext = DecoderContext.builder().build();
+
+    private MappingMongoConverter converter;
+
+    private List<byte[]> tweets;
+
+    private byte[] user;
+
+    @Setup
+    public void setup() {
+        MongoCustomConversions conversions = new MongoCustomConversions(Collections.emptyList());
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+        mappingContext.afterPropertiesSet();
+        converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+        converter.setCustomConversions(conversions);
+        converter.afterPropertiesSet();
+
+        tweets = new ArrayList<>(PAGE_SIZE);
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            Tweet tweet = new Tweet()
+                .tweeter("user" + i)
+                .content("Tweet number " + i + " for @alice and @bob, about #performance and #mongodb");
+            tweet.setId(Integer.toHexString(0x5bc00000 + i) + "0000000000000000");
+            tweet.setCreateTime(Instant.now().minusSeconds(i));
+            tweets.add(toBson(tweet));
+        }
+
+        User sample = new User();
+        sample.setId("5bc000000000000000000001");
+        sample.setLogin("alice");
+        sample.setPassword("$2a$10$mE.qmcV0mFU5NcKh73TZx.z4ueI/.bDWbj0T1BYyqP481kGGarKLG");
+        sample.setFirstName("Alice");
+        sample.setLastName("Liddell");
+        sample.setEmail("alice@localhost");
+        sample.setActivated(true);
+        sample.setLangKey("en");
+        sample.setCreatedBy("system");
+        Authority authority = new Authority();
+        authority.setName("ROLE_USER");
+        sample.getAuthorities().add(authority);
+        user = toBson(sample);
+    }
+
+    @Benchmark
+    public void tweetsWithConverter(Blackhole blackhole) {
+        for (byte[] tweet : tweets) {
+            Document document = documentCodec.decode(reader(tweet), decoderContext);
+            blackhole.consume(converter.read(Tweet.class, document));
+        }
+    }
+
+    @Benchmark
+    public void tweetsWithCodec(Blackhole blackhole) {
+        for (byte[] tweet : tweets) {
+            blackhole.consume(tweetCodec.decode(reader(tweet), decoderContext));
+        }
+    }
+
+    @Benchmark
+    public User userWithConverter() {
+        return converter.read(User.class, documentCodec.decode(reader(user), decoderContext));
+    }
+
+    @Benchmark
+    public User userWithCodec() {
+        return userCodec.decode(reader(user), decoderContext);
+    }
+
+    private <T> byte[] toBson(T entity) {
+        Document document = new Document();
+        converter.write(entity, document);
+        BasicOutputBuffer buffer = new BasicOutputBuffer();
+        documentCodec.encode(new BsonBinaryWriter(buffer), document, EncoderContext.builder().build());
+        return buffer.toByteArray();
+    }
+
+    private static BsonBinaryReader reader(byte[] bson) {
+        return new BsonBinaryReader(ByteBuffer.wrap(bson));
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.web.rest;
+
+import com.example.config.JacksonConfiguration;
+import com.example.domain.Tweet;
+import com.example.domain.User;
+import com.example.service.dto.MentionDTO;
+import com.example.service.dto.TweetDTO;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of writing one page of tweets as a JSON response, as {@code /api/tweets} and {@code /api/timeline} do,
+ * with and without the afterburner module of {@link JacksonConfiguration}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TweetJsonBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+
+    @Param({"true", "false"})
+    private boolean afterburner;
+
+    private ObjectWriter tweetsWriter;
+
+    private ObjectWriter tweetDTOsWriter;
+
+    private List<Tweet> tweets;
+
+    private List<TweetDTO> tweetDTOs;
+
+    @Setup
+    public void setup() {
+        JacksonConfiguration configuration = new JacksonConfiguration();
+        Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        if (afterburner) {
+            builder.modulesToInstall(configuration.javaTimeModule(), configuration.jdk8TimeModule(),
+                configuration.afterburnerModule());
+        } else {
+            builder.modulesToInstall(configuration.javaTimeModule(), configuration.jdk8TimeModule());
+        }
+        ObjectMapper objectMapper = builder.build();
+        tweetsWriter = objectMapper.writerFor(objectMapper.getTypeFactory()
+            .constructCollectionType(List.class, Tweet.class));
+        tweetDTOsWriter = objectMapper.writerFor(objectMapper.getTypeFactory()
+            .constructCollectionType(List.class, TweetDTO.class));
+
+        User alice = new User();
+        alice.setLogin("alice");
+        alice.setFirstName("Alice");
+        alice.setLastName("Liddell");
+        alice.setImageUrl("https://example.com/alice.png");
+        MentionDTO mention = new MentionDTO(alice);
+        tweets = new ArrayList<>(PAGE_SIZE);
+        tweetDTOs = new ArrayList<>(PAGE_SIZE);
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            Tweet tweet = new Tweet()
+                .tweeter("user" + i)
+                .content("Tweet number " + i + " for @alice and @bob, about #performance and #mongodb");
+            tweet.setId(Integer.toHexString(0x5bc00000 + i) + "0000000000000000");
+            tweet.setCreateTime(Instant.now().minusSeconds(i));
+            // tokenized once here, as the tweets of a page read from MongoDB are
+            tweet.ensureTokenized();
+            tweets.add(tweet);
+            tweetDTOs.add(new TweetDTO(tweet, Collections.singletonList(mention)));
+        }
+    }
+
+    @Benchmark
+    public byte[] tweets() throws JsonProcessingException {
+        return tweetsWriter.writeValueAsBytes(tweets);
+    }
+
+    @Benchmark
+    public byte[] tweetsWithMentions() throws JsonProcessingException {
+        return tweetDTOsWriter.writeValueAsBytes(tweetDTOs);
+    }
+}
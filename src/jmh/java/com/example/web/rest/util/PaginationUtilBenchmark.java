@@ -0,0 +1,57 @@
+package com.example.web.rest.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the pagination headers of a paged response, and of the cursor headers that replace them with keyset
+ * pagination.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PaginationUtilBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+
+    private Page<String> page;
+
+    @Setup
+    public void setup() {
+        List<String> content = new ArrayList<>(PAGE_SIZE);
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            content.add("tweet" + i);
+        }
+        // a page in the middle, which has all the links
+        page = new PageImpl<>(content, PageRequest.of(3, PAGE_SIZE), 10_000);
+    }
+
+    @Benchmark
+    public HttpHeaders paginationHeaders() {
+        return PaginationUtil.generatePaginationHttpHeaders(page, "/api/tweets");
+    }
+
+    @Benchmark
+    public HttpHeaders cursorHeaders() {
+        return PaginationUtil.generateCursorHttpHeaders("NWJjMDAwMDAwMDAwMDAwMDAwMDAwMDAw", PAGE_SIZE, "/api/tweets");
+    }
+}
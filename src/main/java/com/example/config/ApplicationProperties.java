@@ -2,6 +2,9 @@ package com.example.config;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * Properties specific to Twitster.
  * <p>
@@ -11,4 +14,576 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
 @ConfigurationProperties(prefix = "application", ignoreUnknownFields = false)
 public class ApplicationProperties {
 
+    private final Timeline timeline = new Timeline();
+
+    private final Mongo mongo = new Mongo();
+
+    private final Trends trends = new Trends();
+
+    private final TweetWrites tweetWrites = new TweetWrites();
+
+    private final Cache cache = new Cache();
+
+    public Timeline getTimeline() {
+        return timeline;
+    }
+
+    public Mongo getMongo() {
+        return mongo;
+    }
+
+    public Trends getTrends() {
+        return trends;
+    }
+
+    public TweetWrites getTweetWrites() {
+        return tweetWrites;
+    }
+
+    public Cache getCache() {
+        return cache;
+    }
+
+    public static class Cache {
+
+        /**
+         * The JCache provider of the caches.
+         */
+        public enum Provider {
+            /** Tiered caches, which can keep entries off-heap and on disk. */
+            EHCACHE,
+            /** Heap only caches, which admit entries by their access frequency and refresh them ahead of time. */
+            CAFFEINE
+        }
+
+        private Provider provider = Provider.EHCACHE;
+
+        private String diskDirectory;
+
+        private final Invalidation invalidation = new Invalidation();
+
+        public Provider getProvider() {
+            return provider;
+        }
+
+        public void setProvider(Provider provider) {
+            this.provider = provider;
+        }
+
+        private final Map<String, Policy> policies = new HashMap<>();
+
+        public String getDiskDirectory() {
+            return diskDirectory;
+        }
+
+        public void setDiskDirectory(String diskDirectory) {
+            this.diskDirectory = diskDirectory;
+        }
+
+        public Map<String, Policy> getPolicies() {
+            return policies;
+        }
+
+        public Invalidation getInvalidation() {
+            return invalidation;
+        }
+
+        /**
+         * @param cacheName the name of a cache
+         * @return its policy, or null if it has none
+         */
+        public Policy getPolicy(String cacheName) {
+            Policy policy = policies.get(cacheName);
+            if (policy == null) {
+                // the keys may have been given in kebab case or in lower case
+                policy = policies.entrySet().stream()
+                    .filter(entry -> entry.getKey().replace("-", "").equalsIgnoreCase(cacheName))
+                    .map(Map.Entry::getValue)
+                    .findFirst().orElse(null);
+            }
+            return policy;
+        }
+
+        /**
+         * Broadcast of the evictions of the user caches to the other nodes.
+         */
+        public static class Invalidation {
+
+            private boolean enabled = true;
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+        }
+
+        /**
+         * Tiers, sizes, expiry and types of a cache.
+         * <p>
+         * The heap tier is sized either in entries or in bytes. Without any size, the cache is heap only and sized
+         * by {@code jhipster.cache.ehcache.max-entries}. The off-heap and disk tiers serialize the entries, so
+         * their key and value types must be serializable. Entries expire after either a time to live or a time to
+         * idle, by default after {@code jhipster.cache.ehcache.time-to-live-seconds}.
+         * <p>
+         * With the Caffeine provider, the caches only have a heap tier sized in entries, and the caches of users
+         * are reloaded in the background once an entry is older than {@code refresh-after-write-seconds}.
+         */
+        public static class Policy {
+
+            private Class<?> keyType = Object.class;
+
+            private Class<?> valueType = Object.class;
+
+            private Long heapEntries;
+
+            private Long heapMb;
+
+            private Long offHeapMb;
+
+            private Long diskMb;
+
+            private boolean diskPersistent = false;
+
+            private Long timeToLiveSeconds;
+
+            private Long timeToIdleSeconds;
+
+            private Long refreshAfterWriteSeconds;
+
+            public Class<?> getKeyType() {
+                return keyType;
+            }
+
+            public void setKeyType(Class<?> keyType) {
+                this.keyType = keyType;
+            }
+
+            public Class<?> getValueType() {
+                return valueType;
+            }
+
+            public void setValueType(Class<?> valueType) {
+                this.valueType = valueType;
+            }
+
+            public Long getHeapEntries() {
+                return heapEntries;
+            }
+
+            public void setHeapEntries(Long heapEntries) {
+                this.heapEntries = heapEntries;
+            }
+
+            public Long getHeapMb() {
+                return heapMb;
+            }
+
+            public void setHeapMb(Long heapMb) {
+                this.heapMb = heapMb;
+            }
+
+            public Long getOffHeapMb() {
+                return offHeapMb;
+            }
+
+            public void setOffHeapMb(Long offHeapMb) {
+                this.offHeapMb = offHeapMb;
+            }
+
+            public Long getDiskMb() {
+                return diskMb;
+            }
+
+            public void setDiskMb(Long diskMb) {
+                this.diskMb = diskMb;
+            }
+
+            public boolean isDiskPersistent() {
+                return diskPersistent;
+            }
+
+            public void setDiskPersistent(boolean diskPersistent) {
+                this.diskPersistent = diskPersistent;
+            }
+
+            public Long getTimeToLiveSeconds() {
+                return timeToLiveSeconds;
+            }
+
+            public void setTimeToLiveSeconds(Long timeToLiveSeconds) {
+                this.timeToLiveSeconds = timeToLiveSeconds;
+            }
+
+            public Long getTimeToIdleSeconds() {
+                return timeToIdleSeconds;
+            }
+
+            public void setTimeToIdleSeconds(Long timeToIdleSeconds) {
+                this.timeToIdleSeconds = timeToIdleSeconds;
+            }
+
+            public Long getRefreshAfterWriteSeconds() {
+                return refreshAfterWriteSeconds;
+            }
+
+            public void setRefreshAfterWriteSeconds(Long refreshAfterWriteSeconds) {
+                this.refreshAfterWriteSeconds = refreshAfterWriteSeconds;
+            }
+        }
+    }
+
+    public static class Mongo {
+
+        private boolean codecs = false;
+
+        public boolean isCodecs() {
+            return codecs;
+        }
+
+        public void setCodecs(boolean codecs) {
+            this.codecs = codecs;
+        }
+    }
+
+    public static class TweetWrites {
+
+        /**
+         * How new tweets posted through {@code POST /api/tweets} are written.
+         */
+        public enum Mode {
+            /**
+             * Each tweet is saved by its request thread.
+             */
+            DIRECT,
+            /**
+             * Tweets are buffered and inserted in batches by a single writer thread.
+             */
+            GROUP
+        }
+
+        /**
+         * When a tweet written in {@code GROUP} mode is acknowledged to the client.
+         */
+        public enum Ack {
+            /**
+             * As soon as it is buffered, a failed insert is then only logged.
+             */
+            ACCEPTED,
+            /**
+             * Once its batch has been acknowledged by MongoDB.
+             */
+            WRITTEN
+        }
+
+        private Mode mode = Mode.DIRECT;
+
+        private Ack ack = Ack.WRITTEN;
+
+        private int bufferSize = 8192;
+
+        private int batchSize = 500;
+
+        private long flushIntervalMillis = 5;
+
+        private long retryAfterSeconds = 1;
+
+        private long writeTimeoutMillis = 5000;
+
+        public Mode getMode() {
+            return mode;
+        }
+
+        public void setMode(Mode mode) {
+            this.mode = mode;
+        }
+
+        public Ack getAck() {
+            return ack;
+        }
+
+        public void setAck(Ack ack) {
+            this.ack = ack;
+        }
+
+        public int getBufferSize() {
+            return bufferSize;
+        }
+
+        public void setBufferSize(int bufferSize) {
+            this.bufferSize = bufferSize;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public long getFlushIntervalMillis() {
+            return flushIntervalMillis;
+        }
+
+        public void setFlushIntervalMillis(long flushIntervalMillis) {
+            this.flushIntervalMillis = flushIntervalMillis;
+        }
+
+        public long getRetryAfterSeconds() {
+            return retryAfterSeconds;
+        }
+
+        public void setRetryAfterSeconds(long retryAfterSeconds) {
+            this.retryAfterSeconds = retryAfterSeconds;
+        }
+
+        public long getWriteTimeoutMillis() {
+            return writeTimeoutMillis;
+        }
+
+        public void setWriteTimeoutMillis(long writeTimeoutMillis) {
+            this.writeTimeoutMillis = writeTimeoutMillis;
+        }
+    }
+
+    public static class Trends {
+
+        private int top = 10;
+
+        private int sketchWidth = 2048;
+
+        private int sketchDepth = 4;
+
+        private int candidatesPerSlice = 100;
+
+        private int maxPending = 100000;
+
+        public int getTop() {
+            return top;
+        }
+
+        public void setTop(int top) {
+            this.top = top;
+        }
+
+        public int getSketchWidth() {
+            return sketchWidth;
+        }
+
+        public void setSketchWidth(int sketchWidth) {
+            this.sketchWidth = sketchWidth;
+        }
+
+        public int getSketchDepth() {
+            return sketchDepth;
+        }
+
+        public void setSketchDepth(int sketchDepth) {
+            this.sketchDepth = sketchDepth;
+        }
+
+        public int getCandidatesPerSlice() {
+            return candidatesPerSlice;
+        }
+
+        public void setCandidatesPerSlice(int candidatesPerSlice) {
+            this.candidatesPerSlice = candidatesPerSlice;
+        }
+
+        public int getMaxPending() {
+            return maxPending;
+        }
+
+        public void setMaxPending(int maxPending) {
+            this.maxPending = maxPending;
+        }
+    }
+
+    public static class Timeline {
+
+        /**
+         * How home timelines are assembled.
+         */
+        public enum Mode {
+            /**
+             * Fan-out on write: tweets are pushed into a materialized timeline per follower.
+             */
+            PUSH,
+            /**
+             * Fan-out on read: timelines are merged from in-memory per-author recent tweets.
+             */
+            PULL,
+            /**
+             * Direct MongoDB query over the tweets of all followed accounts.
+             */
+            QUERY,
+            /**
+             * Fan-out on write for most authors, fan-out on read for the authors with the most followers.
+             */
+            HYBRID
+        }
+
+        private Mode mode = Mode.PUSH;
+
+        private int fanOutBatchSize = 1000;
+
+        private int backfillSize = 100;
+
+        private int recentTweetsPerAuthor = 200;
+
+        private int recentTweetsMaxAuthors = 100000;
+
+        private int hotAuthorFollowerThreshold = 10000;
+
+        private int cacheSize = 100;
+
+        private long cacheOffHeapMb = 256;
+
+        private long cacheTimeToLiveSeconds = 300;
+
+        private int streamQueueSize = 64;
+
+        private long streamTimeoutSeconds = 1800;
+
+        private long streamHeartbeatSeconds = 20;
+
+        private int streamSenderThreads = 8;
+
+        private int streamSenderBacklog = 10000;
+
+        private int syncRetentionDays = 7;
+
+        private long syncMaxWaitSeconds = 30;
+
+        public Mode getMode() {
+            return mode;
+        }
+
+        public void setMode(Mode mode) {
+            this.mode = mode;
+        }
+
+        public int getFanOutBatchSize() {
+            return fanOutBatchSize;
+        }
+
+        public void setFanOutBatchSize(int fanOutBatchSize) {
+            this.fanOutBatchSize = fanOutBatchSize;
+        }
+
+        public int getBackfillSize() {
+            return backfillSize;
+        }
+
+        public void setBackfillSize(int backfillSize) {
+            this.backfillSize = backfillSize;
+        }
+
+        public int getRecentTweetsPerAuthor() {
+            return recentTweetsPerAuthor;
+        }
+
+        public void setRecentTweetsPerAuthor(int recentTweetsPerAuthor) {
+            this.recentTweetsPerAuthor = recentTweetsPerAuthor;
+        }
+
+        public int getRecentTweetsMaxAuthors() {
+            return recentTweetsMaxAuthors;
+        }
+
+        public void setRecentTweetsMaxAuthors(int recentTweetsMaxAuthors) {
+            this.recentTweetsMaxAuthors = recentTweetsMaxAuthors;
+        }
+
+        public int getHotAuthorFollowerThreshold() {
+            return hotAuthorFollowerThreshold;
+        }
+
+        public void setHotAuthorFollowerThreshold(int hotAuthorFollowerThreshold) {
+            this.hotAuthorFollowerThreshold = hotAuthorFollowerThreshold;
+        }
+
+        public int getCacheSize() {
+            return cacheSize;
+        }
+
+        public void setCacheSize(int cacheSize) {
+            this.cacheSize = cacheSize;
+        }
+
+        public long getCacheOffHeapMb() {
+            return cacheOffHeapMb;
+        }
+
+        public void setCacheOffHeapMb(long cacheOffHeapMb) {
+            this.cacheOffHeapMb = cacheOffHeapMb;
+        }
+
+        public long getCacheTimeToLiveSeconds() {
+            return cacheTimeToLiveSeconds;
+        }
+
+        public void setCacheTimeToLiveSeconds(long cacheTimeToLiveSeconds) {
+            this.cacheTimeToLiveSeconds = cacheTimeToLiveSeconds;
+        }
+
+        public int getStreamQueueSize() {
+            return streamQueueSize;
+        }
+
+        public void setStreamQueueSize(int streamQueueSize) {
+            this.streamQueueSize = streamQueueSize;
+        }
+
+        public long getStreamTimeoutSeconds() {
+            return streamTimeoutSeconds;
+        }
+
+        public void setStreamTimeoutSeconds(long streamTimeoutSeconds) {
+            this.streamTimeoutSeconds = streamTimeoutSeconds;
+        }
+
+        public long getStreamHeartbeatSeconds() {
+            return streamHeartbeatSeconds;
+        }
+
+        public void setStreamHeartbeatSeconds(long streamHeartbeatSeconds) {
+            this.streamHeartbeatSeconds = streamHeartbeatSeconds;
+        }
+
+        public int getStreamSenderThreads() {
+            return streamSenderThreads;
+        }
+
+        public void setStreamSenderThreads(int streamSenderThreads) {
+            this.streamSenderThreads = streamSenderThreads;
+        }
+
+        public int getStreamSenderBacklog() {
+            return streamSenderBacklog;
+        }
+
+        public void setStreamSenderBacklog(int streamSenderBacklog) {
+            this.streamSenderBacklog = streamSenderBacklog;
+        }
+
+        public int getSyncRetentionDays() {
+            return syncRetentionDays;
+        }
+
+        public void setSyncRetentionDays(int syncRetentionDays) {
+            this.syncRetentionDays = syncRetentionDays;
+        }
+
+        public long getSyncMaxWaitSeconds() {
+            return syncMaxWaitSeconds;
+        }
+
+        public void setSyncMaxWaitSeconds(long syncMaxWaitSeconds) {
+            this.syncMaxWaitSeconds = syncMaxWaitSeconds;
+        }
+    }
 }
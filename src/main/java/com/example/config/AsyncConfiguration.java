@@ -26,8 +26,11 @@ public class AsyncConfiguration implements AsyncConfigurer, SchedulingConfigurer
 
     private final JHipsterProperties jHipsterProperties;
 
-    public AsyncConfiguration(JHipsterProperties jHipsterProperties) {
+    private final ApplicationProperties.Timeline timelineProperties;
+
+    public AsyncConfiguration(JHipsterProperties jHipsterProperties, ApplicationProperties applicationProperties) {
         this.jHipsterProperties = jHipsterProperties;
+        this.timelineProperties = applicationProperties.getTimeline();
     }
 
     @Override
@@ -42,6 +45,21 @@ public class AsyncConfiguration implements AsyncConfigurer, SchedulingConfigurer
         return new ExceptionHandlingAsyncTaskExecutor(executor);
     }
 
+    /**
+     * Executor of the sends to the live timeline streams. It is kept apart from the async executor, so that the
+     * streams of tens of thousands of clients cannot fill its queue and get the async event listeners rejected.
+     * Its queue is bounded too: a send that cannot be queued is rejected, and the stream closed by the caller.
+     */
+    @Bean(name = "streamTaskExecutor")
+    public ThreadPoolTaskExecutor streamTaskExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(timelineProperties.getStreamSenderThreads());
+        executor.setMaxPoolSize(timelineProperties.getStreamSenderThreads());
+        executor.setQueueCapacity(timelineProperties.getStreamSenderBacklog());
+        executor.setThreadNamePrefix("twitster-stream-");
+        return executor;
+    }
+
     @Override
     public AsyncUncaughtExceptionHandler getAsyncUncaughtExceptionHandler() {
         return new SimpleAsyncUncaughtExceptionHandler();
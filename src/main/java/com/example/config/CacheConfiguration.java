@@ -1,39 +1,251 @@
 package com.example.config;
 
+import java.io.File;
 import java.time.Duration;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.TimeUnit;
+
+import javax.cache.Caching;
+import javax.cache.configuration.FactoryBuilder;
+import javax.cache.spi.CachingProvider;
+
+import com.example.repository.FollowRepository;
+import com.example.repository.UserRepository;
+import com.example.service.TimelineCache;
+import com.github.benmanes.caffeine.cache.Weigher;
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
 
 import org.ehcache.config.builders.*;
+import org.ehcache.config.units.EntryUnit;
+import org.ehcache.config.units.MemoryUnit;
+import org.ehcache.core.config.DefaultConfiguration;
+import org.ehcache.event.EventType;
+import org.ehcache.expiry.ExpiryPolicy;
+import org.ehcache.impl.config.persistence.DefaultPersistenceConfiguration;
 import org.ehcache.jsr107.Eh107Configuration;
+import org.ehcache.jsr107.EhcacheCachingProvider;
 
 import io.github.jhipster.config.JHipsterProperties;
 
-import org.springframework.boot.autoconfigure.cache.JCacheManagerCustomizer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.*;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.util.StringUtils;
 
 @Configuration
 @EnableCaching
 public class CacheConfiguration {
 
-    private final javax.cache.configuration.Configuration<Object, Object> jcacheConfiguration;
+    private final Logger log = LoggerFactory.getLogger(CacheConfiguration.class);
+
+    private final JHipsterProperties.Cache.Ehcache ehcache;
+
+    private final ApplicationProperties.Cache cacheProperties;
 
-    public CacheConfiguration(JHipsterProperties jHipsterProperties) {
-        JHipsterProperties.Cache.Ehcache ehcache =
-            jHipsterProperties.getCache().getEhcache();
+    private final ApplicationProperties.Timeline timelineProperties;
 
-        jcacheConfiguration = Eh107Configuration.fromEhcacheCacheConfiguration(
-            CacheConfigurationBuilder.newCacheConfigurationBuilder(Object.class, Object.class,
+    private final ObjectProvider<MongoTemplate> mongoTemplate;
+
+    public CacheConfiguration(JHipsterProperties jHipsterProperties, ApplicationProperties applicationProperties,
+                              ObjectProvider<MongoTemplate> mongoTemplate) {
+        this.ehcache = jHipsterProperties.getCache().getEhcache();
+        this.cacheProperties = applicationProperties.getCache();
+        this.timelineProperties = applicationProperties.getTimeline();
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Bean
+    public CacheEventCounter timelineCacheEvictionCounter() {
+        return new CacheEventCounter();
+    }
+
+    /**
+     * The JCache cache manager of the {@code application.cache.provider}, created here rather than by Spring Boot
+     * so that the disk tiers get the {@code application.cache.disk-directory}. Statistics are enabled on every
+     * cache, for the {@link com.codahale.metrics.jcache.JCacheGaugeSet} and the {@link EhcacheTierGaugeSet}. Not
+     * created when another type of cache is configured, such as the simple caches of the tests.
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "spring.cache.type", havingValue = "jcache", matchIfMissing = true)
+    public javax.cache.CacheManager jCacheCacheManager(CacheEventCounter timelineCacheEvictionCounter) {
+        javax.cache.CacheManager cm = cacheProperties.getProvider() == ApplicationProperties.Cache.Provider.CAFFEINE
+            ? caffeineCacheManager()
+            : ehcacheCacheManager(timelineCacheEvictionCounter);
+        cm.getCacheNames().forEach(name -> cm.enableStatistics(name, true));
+        return cm;
+    }
+
+    private javax.cache.CacheManager ehcacheCacheManager(CacheEventCounter timelineCacheEvictionCounter) {
+        EhcacheCachingProvider provider =
+            (EhcacheCachingProvider) Caching.getCachingProvider(EhcacheCachingProvider.class.getName());
+        ClassLoader classLoader = getClass().getClassLoader();
+        org.ehcache.config.Configuration configuration = StringUtils.hasText(cacheProperties.getDiskDirectory())
+            ? new DefaultConfiguration(classLoader,
+                new DefaultPersistenceConfiguration(new File(cacheProperties.getDiskDirectory())))
+            : new DefaultConfiguration(classLoader);
+        javax.cache.CacheManager cm = provider.getCacheManager(provider.getDefaultURI(), configuration);
+        createCache(cm, UserRepository.USERS_BY_LOGIN_CACHE);
+        createCache(cm, UserRepository.USERS_BY_EMAIL_CACHE);
+        createCache(cm, FollowRepository.FOLLOWS_BY_FOLLOWER_CACHE);
+        cm.createCache(TimelineCache.TIMELINE_CACHE, timelineCacheConfiguration(timelineCacheEvictionCounter));
+        // jhipster-needle-ehcache-add-entry
+        return cm;
+    }
+
+    /**
+     * Caffeine caches are bounded with W-TinyLFU: a new entry only replaces one that was used less often, so the
+     * logins read once by a scan, such as an admin paging through all the users, do not evict the hot ones as
+     * they would from a least recently used cache. The caches of users are also refreshed in the background when
+     * their policy has a {@code refresh-after-write-seconds}, so that frequently read users do not expire.
+     */
+    private javax.cache.CacheManager caffeineCacheManager() {
+        CachingProvider provider = Caching.getCachingProvider(CaffeineCachingProvider.class.getName());
+        javax.cache.CacheManager cm = provider.getCacheManager(provider.getDefaultURI(), getClass().getClassLoader());
+        cm.createCache(UserRepository.USERS_BY_LOGIN_CACHE,
+            caffeineConfiguration(UserRepository.USERS_BY_LOGIN_CACHE, "login"));
+        cm.createCache(UserRepository.USERS_BY_EMAIL_CACHE,
+            caffeineConfiguration(UserRepository.USERS_BY_EMAIL_CACHE, "emailKey"));
+        cm.createCache(FollowRepository.FOLLOWS_BY_FOLLOWER_CACHE,
+            caffeineConfiguration(FollowRepository.FOLLOWS_BY_FOLLOWER_CACHE, null));
+        cm.createCache(TimelineCache.TIMELINE_CACHE, caffeineTimelineCacheConfiguration());
+        return cm;
+    }
+
+    private void createCache(javax.cache.CacheManager cm, String name) {
+        cm.createCache(name, Eh107Configuration.fromEhcacheCacheConfiguration(cacheConfiguration(name)));
+    }
+
+    /**
+     * The configuration of a cache from its {@code application.cache.policies} entry, or a heap only cache sized
+     * and expired with the {@code jhipster.cache.ehcache} properties if it has none.
+     */
+    @SuppressWarnings("unchecked")
+    private org.ehcache.config.CacheConfiguration<Object, Object> cacheConfiguration(String name) {
+        ApplicationProperties.Cache.Policy policy = cacheProperties.getPolicy(name);
+        if (policy == null) {
+            return CacheConfigurationBuilder.newCacheConfigurationBuilder(Object.class, Object.class,
                 ResourcePoolsBuilder.heap(ehcache.getMaxEntries()))
                 .withExpiry(ExpiryPolicyBuilder.timeToLiveExpiration(Duration.ofSeconds(ehcache.getTimeToLiveSeconds())))
+                .build();
+        }
+        ResourcePoolsBuilder pools = ResourcePoolsBuilder.newResourcePoolsBuilder();
+        if (policy.getHeapMb() != null) {
+            pools = pools.heap(policy.getHeapMb(), MemoryUnit.MB);
+        } else if (policy.getHeapEntries() != null) {
+            pools = pools.heap(policy.getHeapEntries(), EntryUnit.ENTRIES);
+        } else if (policy.getOffHeapMb() == null && policy.getDiskMb() == null) {
+            pools = pools.heap(ehcache.getMaxEntries(), EntryUnit.ENTRIES);
+        }
+        if (policy.getOffHeapMb() != null) {
+            pools = pools.offheap(policy.getOffHeapMb(), MemoryUnit.MB);
+        }
+        if (policy.getDiskMb() != null) {
+            if (!StringUtils.hasText(cacheProperties.getDiskDirectory())) {
+                throw new IllegalStateException("Cache " + name + " has a disk tier, " +
+                    "but application.cache.disk-directory is not set");
+            }
+            pools = pools.disk(policy.getDiskMb(), MemoryUnit.MB, policy.isDiskPersistent());
+        }
+        return CacheConfigurationBuilder.newCacheConfigurationBuilder(
+            (Class<Object>) policy.getKeyType(), (Class<Object>) policy.getValueType(), pools)
+            .withExpiry(expiry(name, policy))
+            .build();
+    }
+
+    private ExpiryPolicy<Object, Object> expiry(String name, ApplicationProperties.Cache.Policy policy) {
+        if (policy.getTimeToIdleSeconds() == null) {
+            return ExpiryPolicyBuilder.timeToLiveExpiration(Duration.ofSeconds(timeToLiveSeconds(policy)));
+        }
+        checkSingleExpiry(name, policy);
+        return ExpiryPolicyBuilder.timeToIdleExpiration(Duration.ofSeconds(policy.getTimeToIdleSeconds()));
+    }
+
+    private long timeToLiveSeconds(ApplicationProperties.Cache.Policy policy) {
+        return policy.getTimeToLiveSeconds() != null ? policy.getTimeToLiveSeconds() : ehcache.getTimeToLiveSeconds();
+    }
+
+    private static void checkSingleExpiry(String name, ApplicationProperties.Cache.Policy policy) {
+        if (policy.getTimeToLiveSeconds() != null && policy.getTimeToIdleSeconds() != null) {
+            throw new IllegalStateException("Cache " + name + " can expire after a time to live or a time to idle, " +
+                "but not both");
+        }
+    }
+
+    /**
+     * The Caffeine configuration of a cache, sized in entries by the {@code heap-entries} of its policy, or by
+     * {@code jhipster.cache.ehcache.max-entries}. Entries are kept by reference, as in the heap tier of Ehcache.
+     *
+     * @param userProperty the property of the user that is the key of the cache, for the caches of users
+     */
+    private CaffeineConfiguration<Object, Object> caffeineConfiguration(String name, String userProperty) {
+        ApplicationProperties.Cache.Policy policy = cacheProperties.getPolicy(name);
+        if (policy == null) {
+            policy = new ApplicationProperties.Cache.Policy();
+        }
+        if (policy.getHeapMb() != null || policy.getOffHeapMb() != null || policy.getDiskMb() != null) {
+            log.warn("Cache {} is sized in entries with the Caffeine provider, its sizes in MB are ignored", name);
+        }
+        checkSingleExpiry(name, policy);
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setStoreByValue(false);
+        configuration.setMaximumSize(OptionalLong.of(
+            policy.getHeapEntries() != null ? policy.getHeapEntries() : ehcache.getMaxEntries()));
+        if (policy.getTimeToIdleSeconds() != null) {
+            configuration.setExpireAfterAccess(
+                OptionalLong.of(TimeUnit.SECONDS.toNanos(policy.getTimeToIdleSeconds())));
+        } else {
+            configuration.setExpireAfterWrite(OptionalLong.of(TimeUnit.SECONDS.toNanos(timeToLiveSeconds(policy))));
+        }
+        if (userProperty != null && policy.getRefreshAfterWriteSeconds() != null) {
+            // refreshes need a read-through loader, so the missing users are also loaded on reads, but an unknown
+            // user is not, and the MentionResolver only peeks at the cache
+            configuration.setCacheLoaderFactory(
+                new FactoryBuilder.SingletonFactory<>(new UserCacheLoader(mongoTemplate, userProperty)));
+            configuration.setReadThrough(true);
+            configuration.setRefreshAfterWrite(
+                OptionalLong.of(TimeUnit.SECONDS.toNanos(policy.getRefreshAfterWriteSeconds())));
+        }
+        return configuration;
+    }
+
+    /**
+     * The timeline cache holds packed byte arrays in an off-heap tier only, so that it does not add to the heap
+     * scanned by the garbage collector however many users it holds. Entries are serialized on every access,
+     * which is why they are kept as byte arrays rather than objects.
+     */
+    private javax.cache.configuration.Configuration<String, byte[]> timelineCacheConfiguration(
+        CacheEventCounter evictionCounter) {
+        return Eh107Configuration.fromEhcacheCacheConfiguration(
+            CacheConfigurationBuilder.newCacheConfigurationBuilder(String.class, byte[].class,
+                ResourcePoolsBuilder.newResourcePoolsBuilder()
+                    .offheap(timelineProperties.getCacheOffHeapMb(), MemoryUnit.MB))
+                .withExpiry(ExpiryPolicyBuilder.timeToLiveExpiration(
+                    Duration.ofSeconds(timelineProperties.getCacheTimeToLiveSeconds())))
+                .add(CacheEventListenerConfigurationBuilder
+                    .newEventListenerConfiguration(evictionCounter, EventType.EVICTED)
+                    .unordered().asynchronous())
                 .build());
     }
 
-    @Bean
-    public JCacheManagerCustomizer cacheManagerCustomizer() {
-        return cm -> {
-            cm.createCache(com.example.repository.UserRepository.USERS_BY_LOGIN_CACHE, jcacheConfiguration);
-            cm.createCache(com.example.repository.UserRepository.USERS_BY_EMAIL_CACHE, jcacheConfiguration);
-            // jhipster-needle-ehcache-add-entry
-        };
+    /**
+     * With Caffeine, the timeline cache is on the heap, and bounded by the {@code cache-off-heap-mb} of the
+     * timelines weighed by their size in bytes.
+     */
+    private CaffeineConfiguration<String, byte[]> caffeineTimelineCacheConfiguration() {
+        Weigher<String, byte[]> weigher = (owner, timeline) -> timeline.length;
+        CaffeineConfiguration<String, byte[]> configuration = new CaffeineConfiguration<>();
+        configuration.setTypes(String.class, byte[].class);
+        configuration.setStoreByValue(false);
+        configuration.setMaximumWeight(OptionalLong.of(timelineProperties.getCacheOffHeapMb() * 1024 * 1024));
+        configuration.setWeigherFactory(Optional.of(new FactoryBuilder.SingletonFactory<>(weigher)));
+        configuration.setExpireAfterWrite(OptionalLong.of(
+            TimeUnit.SECONDS.toNanos(timelineProperties.getCacheTimeToLiveSeconds())));
+        return configuration;
     }
 }
@@ -0,0 +1,26 @@
+package com.example.config;
+
+import org.ehcache.event.CacheEvent;
+import org.ehcache.event.CacheEventListener;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Ehcache listener counting the events it is registered for, so that they can be exposed as metrics.
+ * <p>
+ * The cache manager is created before the metric registry, so the listener only counts,
+ * and the count is registered as a gauge by the component using the cache.
+ */
+public class CacheEventCounter implements CacheEventListener<Object, Object> {
+
+    private final LongAdder count = new LongAdder();
+
+    @Override
+    public void onEvent(CacheEvent<?, ?> event) {
+        count.increment();
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.config;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.MetricSet;
+import com.codahale.metrics.RatioGauge;
+import org.ehcache.Cache;
+import org.ehcache.config.ResourceType;
+import org.ehcache.core.internal.statistics.DefaultTierStatistics;
+import org.ehcache.core.statistics.TierStatistics;
+
+import javax.cache.CacheManager;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Gauges of each tier of the Ehcache caches: entries, memory used and hit ratio.
+ * <p>
+ * The {@link com.codahale.metrics.jcache.JCacheGaugeSet} only sees a cache as a whole, which does not tell
+ * whether the heap tier is large enough, or how much memory the off-heap tier uses. The gauges are named
+ * {@code <cache>.<tier>.<gauge>}, the tiers being {@code OnHeap}, {@code OffHeap} and {@code Disk}.
+ */
+public class EhcacheTierGaugeSet implements MetricSet {
+
+    private static final Map<ResourceType.Core, String> TIERS = new EnumMap<>(ResourceType.Core.class);
+
+    static {
+        TIERS.put(ResourceType.Core.HEAP, "OnHeap");
+        TIERS.put(ResourceType.Core.OFFHEAP, "OffHeap");
+        TIERS.put(ResourceType.Core.DISK, "Disk");
+    }
+
+    private final CacheManager cacheManager;
+
+    public EhcacheTierGaugeSet(CacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    @Override
+    public Map<String, Metric> getMetrics() {
+        Map<String, Metric> gauges = new HashMap<>();
+        for (String cacheName : cacheManager.getCacheNames()) {
+            Cache<?, ?> cache = cacheManager.getCache(cacheName).unwrap(Cache.class);
+            for (ResourceType<?> type : cache.getRuntimeConfiguration().getResourcePools().getResourceTypeSet()) {
+                String tier = TIERS.get(type);
+                if (tier != null) {
+                    TierStatistics statistics = new DefaultTierStatistics(cache, tier);
+                    String prefix = MetricRegistry.name(cacheName, tier);
+                    gauges.put(MetricRegistry.name(prefix, "entries"), (Gauge<Long>) statistics::getMappings);
+                    gauges.put(MetricRegistry.name(prefix, "allocated-bytes"), (Gauge<Long>) statistics::getAllocatedByteSize);
+                    gauges.put(MetricRegistry.name(prefix, "occupied-bytes"), (Gauge<Long>) statistics::getOccupiedByteSize);
+                    gauges.put(MetricRegistry.name(prefix, "evictions"), (Gauge<Long>) statistics::getEvictions);
+                    gauges.put(MetricRegistry.name(prefix, "hit-ratio"), new RatioGauge() {
+                        @Override
+                        protected Ratio getRatio() {
+                            long hits = statistics.getHits();
+                            return Ratio.of(hits, hits + statistics.getMisses());
+                        }
+                    });
+                }
+            }
+        }
+        return Collections.unmodifiableMap(gauges);
+    }
+}
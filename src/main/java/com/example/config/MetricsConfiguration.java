@@ -11,11 +11,13 @@ import com.codahale.metrics.jcache.JCacheGaugeSet;
 import com.codahale.metrics.jvm.*;
 import com.ryantenney.metrics.spring.config.annotation.EnableMetrics;
 import com.ryantenney.metrics.spring.config.annotation.MetricsConfigurerAdapter;
+import org.ehcache.jsr107.EhcacheCachingProvider;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.Marker;
 import org.slf4j.MarkerFactory;
 import org.springframework.cache.CacheManager;
+import org.springframework.cache.jcache.JCacheCacheManager;
 import org.springframework.context.annotation.*;
 
 import javax.annotation.PostConstruct;
@@ -34,6 +36,7 @@ public class MetricsConfiguration extends MetricsConfigurerAdapter {
     private static final String PROP_METRIC_REG_JVM_ATTRIBUTE_SET = "jvm.attributes";
 
     private static final String PROP_METRIC_REG_JCACHE_STATISTICS = "jcache.statistics";
+    private static final String PROP_METRIC_REG_JCACHE_TIERS = "jcache.tiers";
 
     private final Logger log = LoggerFactory.getLogger(MetricsConfiguration.class);
 
@@ -43,10 +46,13 @@ public class MetricsConfiguration extends MetricsConfigurerAdapter {
 
     private final JHipsterProperties jHipsterProperties;
 
+    private final CacheManager cacheManager;
+
     // The cacheManager is injected here to force its initialization, so the JCacheGaugeSet
     // will be correctly created below.
     public MetricsConfiguration(JHipsterProperties jHipsterProperties, CacheManager cacheManager) {
         this.jHipsterProperties = jHipsterProperties;
+        this.cacheManager = cacheManager;
     }
 
     @Override
@@ -71,6 +77,13 @@ public class MetricsConfiguration extends MetricsConfigurerAdapter {
         metricRegistry.register(PROP_METRIC_REG_JVM_BUFFERS, new BufferPoolMetricSet(ManagementFactory.getPlatformMBeanServer()));
         metricRegistry.register(PROP_METRIC_REG_JVM_ATTRIBUTE_SET, new JvmAttributeGaugeSet());
         metricRegistry.register(PROP_METRIC_REG_JCACHE_STATISTICS, new JCacheGaugeSet());
+        if (cacheManager instanceof JCacheCacheManager) {
+            javax.cache.CacheManager jCacheManager = ((JCacheCacheManager) cacheManager).getCacheManager();
+            // the Caffeine caches have a single tier, whose statistics are those of the JCacheGaugeSet
+            if (jCacheManager.getCachingProvider() instanceof EhcacheCachingProvider) {
+                metricRegistry.register(PROP_METRIC_REG_JCACHE_TIERS, new EhcacheTierGaugeSet(jCacheManager));
+            }
+        }
         if (jHipsterProperties.getMetrics().getJmx().isEnabled()) {
             log.debug("Initializing Metrics JMX reporting");
             JmxReporter jmxReporter = JmxReporter.forRegistry(metricRegistry).build();
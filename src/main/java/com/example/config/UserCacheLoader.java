@@ -0,0 +1,55 @@
+package com.example.config;
+
+import com.example.domain.User;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.support.NullValue;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import javax.cache.integration.CacheLoader;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Loads the users of the Caffeine caches of users, by login or by email key, so that their entries can be refreshed
+ * in the background.
+ * <p>
+ * The user is read with the {@link MongoTemplate} rather than the {@link com.example.repository.UserRepository},
+ * whose methods go through the cache being loaded. An unknown user is not loaded, so that no entry hides the user if
+ * they register later, and a refreshed user that was deleted is removed. The {@link NullValue} that Spring caches
+ * for an empty result is replaced by the user on its next refresh, once they exist.
+ */
+final class UserCacheLoader implements CacheLoader<Object, Object> {
+
+    private final ObjectProvider<MongoTemplate> mongoTemplate;
+
+    private final String property;
+
+    /**
+     * @param mongoTemplate the template, looked up on the first load as the caches are created before it
+     * @param property the property of the {@link User} that is the key of the cache
+     */
+    UserCacheLoader(ObjectProvider<MongoTemplate> mongoTemplate, String property) {
+        this.mongoTemplate = mongoTemplate;
+        this.property = property;
+    }
+
+    @Override
+    public Object load(Object key) {
+        return mongoTemplate.getObject().findOne(new Query(where(property).is(key)), User.class);
+    }
+
+    @Override
+    public Map<Object, Object> loadAll(Iterable<?> keys) {
+        Map<Object, Object> users = new LinkedHashMap<>();
+        for (Object key : keys) {
+            Object user = load(key);
+            if (user != null) {
+                users.put(key, user);
+            }
+        }
+        return users;
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.config.dbmigrations;
+
+import com.example.service.CacheInvalidationService;
+
+import com.github.mongobee.changeset.ChangeLog;
+import com.github.mongobee.changeset.ChangeSet;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.CollectionOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+/**
+ * Creates the capped collection through which the nodes broadcast their cache evictions
+ */
+@ChangeLog(order = "006")
+public class CacheInvalidationMigration {
+
+    private static final long SIZE_BYTES = 16 * 1024 * 1024;
+
+    @ChangeSet(order = "01", author = "initiator", id = "01-createCacheInvalidation")
+    public void createCacheInvalidation(MongoTemplate mongoTemplate) {
+        if (!mongoTemplate.collectionExists(CacheInvalidationService.COLLECTION)) {
+            mongoTemplate.createCollection(CacheInvalidationService.COLLECTION,
+                CollectionOptions.empty().capped().size(SIZE_BYTES));
+        }
+        // a tailable cursor is closed at once on an empty collection, and a capped collection is never emptied
+        mongoTemplate.getCollection(CacheInvalidationService.COLLECTION).insertOne(new Document("node", "migration"));
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.config.dbmigrations;
+
+import com.example.domain.TagBucket;
+import com.example.domain.Tweet;
+import com.example.repository.TagBucketRepositoryImpl;
+
+import com.github.mongobee.changeset.ChangeLog;
+import com.github.mongobee.changeset.ChangeSet;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.util.CloseableIterator;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Indexes the hashtags of the tweets written before tag buckets existed
+ */
+@ChangeLog(order = "004")
+public class TagBucketMigration {
+
+    private static final int BATCH_SIZE = 1000;
+
+    @ChangeSet(order = "01", author = "initiator", id = "01-backfillTagBuckets")
+    public void backfillTagBuckets(MongoTemplate mongoTemplate) {
+        TagBucketRepositoryImpl tagBuckets = new TagBucketRepositoryImpl(mongoTemplate);
+        List<Tweet> batch = new ArrayList<>(BATCH_SIZE);
+        try (CloseableIterator<Tweet> tweets = mongoTemplate.stream(Query.query(Criteria.where("tags.0").exists(true)), Tweet.class)) {
+            while (tweets.hasNext()) {
+                batch.add(tweets.next());
+                if (batch.size() == BATCH_SIZE) {
+                    tagBuckets.append(batch);
+                    batch.clear();
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            tagBuckets.append(batch);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    @ChangeSet(order = "02", author = "initiator", id = "02-addTagBucketTimeRange")
+    public void addTagBucketTimeRange(MongoTemplate mongoTemplate) {
+        String collection = mongoTemplate.getCollectionName(TagBucket.class);
+        Query query = Query.query(Criteria.where("minCreateTime").exists(false));
+        query.fields().include("entries.createTime");
+        BulkOperations updates = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, collection);
+        int pending = 0;
+        try (CloseableIterator<Document> buckets = mongoTemplate.stream(query, Document.class, collection)) {
+            while (buckets.hasNext()) {
+                Document bucket = buckets.next();
+                Date min = null;
+                Date max = null;
+                for (Document entry : (List<Document>) bucket.get("entries", List.class)) {
+                    Date createTime = entry.getDate("createTime");
+                    min = min == null || createTime.before(min) ? createTime : min;
+                    max = max == null || createTime.after(max) ? createTime : max;
+                }
+                if (min == null) {
+                    continue;
+                }
+                updates.updateOne(Query.query(Criteria.where("_id").is(bucket.get("_id"))),
+                    Update.update("minCreateTime", min).set("maxCreateTime", max));
+                if (++pending == BATCH_SIZE) {
+                    updates.execute();
+                    updates = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, collection);
+                    pending = 0;
+                }
+            }
+        }
+        if (pending > 0) {
+            updates.execute();
+        }
+        // replaced by the tag_hour_max_create_time index, which also serves the queries on the tag and the hour
+        IndexOperations indexOperations = mongoTemplate.indexOps(collection);
+        if (indexOperations.getIndexInfo().stream().anyMatch(index -> "tag_hour".equals(index.getName()))) {
+            indexOperations.dropIndex("tag_hour");
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.config.dbmigrations;
+
+import com.example.domain.TimelineEntry;
+import com.example.domain.Tweet;
+
+import com.github.mongobee.changeset.ChangeLog;
+import com.github.mongobee.changeset.ChangeSet;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.util.CloseableIterator;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Materializes the home timelines of the tweets written before timelines existed
+ */
+@ChangeLog(order = "002")
+public class TimelineMigration {
+
+    private static final int BATCH_SIZE = 1000;
+
+    @ChangeSet(order = "01", author = "initiator", id = "01-backfillAuthorTimelines")
+    public void backfillAuthorTimelines(MongoTemplate mongoTemplate) {
+        List<TimelineEntry> batch = new ArrayList<>(BATCH_SIZE);
+        try (CloseableIterator<Tweet> tweets = mongoTemplate.stream(new Query(), Tweet.class)) {
+            while (tweets.hasNext()) {
+                Tweet tweet = tweets.next();
+                batch.add(new TimelineEntry(tweet.getTweeter(), tweet));
+                if (batch.size() == BATCH_SIZE) {
+                    mongoTemplate.insert(batch, TimelineEntry.class);
+                    batch.clear();
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            mongoTemplate.insert(batch, TimelineEntry.class);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.config.dbmigrations;
+
+import com.example.domain.Tweet;
+import com.example.repository.TweetRepositoryCustom;
+
+import com.github.mongobee.changeset.ChangeLog;
+import com.github.mongobee.changeset.ChangeSet;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+
+/**
+ * Creates the indexes of the tweet collection, in the background so that existing deployments stay available
+ */
+@ChangeLog(order = "003")
+public class TweetIndexMigration {
+
+    @ChangeSet(order = "01", author = "initiator", id = "01-addTweetIndexes")
+    public void addTweetIndexes(MongoTemplate mongoTemplate) {
+        IndexOperations indexOperations = mongoTemplate.indexOps(Tweet.class);
+        // tweets of some authors, newest first: user pages, query timelines and recent tweet cache loads
+        indexOperations.ensureIndex(new Index()
+            .on("tweeter", Sort.Direction.ASC)
+            .on("createTime", Sort.Direction.DESC)
+            .on("_id", Sort.Direction.DESC)
+            .named("tweeter_createTime")
+            .background());
+        // all tweets, newest first: keyset pagination of /api/tweets
+        indexOperations.ensureIndex(new Index()
+            .on("createTime", Sort.Direction.DESC)
+            .on("_id", Sort.Direction.DESC)
+            .named("createTime")
+            .background());
+        // multikey indexes, newest first within each mention or hashtag
+        indexOperations.ensureIndex(new Index()
+            .on("refs", Sort.Direction.ASC)
+            .on("createTime", Sort.Direction.DESC)
+            .named("refs_createTime")
+            .background());
+        indexOperations.ensureIndex(new Index()
+            .on("tags", Sort.Direction.ASC)
+            .on("createTime", Sort.Direction.DESC)
+            .named("tags_createTime")
+            .background());
+    }
+
+    @ChangeSet(order = "02", author = "initiator", id = "02-addMentionIndex")
+    public void addMentionIndex(MongoTemplate mongoTemplate) {
+        IndexOperations indexOperations = mongoTemplate.indexOps(Tweet.class);
+        // mentions of a user, newest first: the _id suffix serves the keyset tie-break of /api/mentions,
+        // and the collation makes the match case insensitive
+        indexOperations.ensureIndex(new Index()
+            .on("refs", Sort.Direction.ASC)
+            .on("createTime", Sort.Direction.DESC)
+            .on("_id", Sort.Direction.DESC)
+            .named("refs_createTime_id")
+            .collation(TweetRepositoryCustom.REFS_COLLATION)
+            .background());
+        // superseded by the index above
+        indexOperations.dropIndex("refs_createTime");
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.config.dbmigrations;
+
+import com.example.domain.User;
+
+import com.github.mongobee.changeset.ChangeLog;
+import com.github.mongobee.changeset.ChangeSet;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.PartialIndexFilter;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.util.CloseableIterator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Creates the indexes of the user collection that are not declared on the entity
+ */
+@ChangeLog(order = "005")
+public class UserIndexMigration {
+
+    private final Logger log = LoggerFactory.getLogger(UserIndexMigration.class);
+
+    private static final int BATCH_SIZE = 1000;
+
+    @ChangeSet(order = "01", author = "initiator", id = "01-addEmailKey")
+    public void addEmailKey(MongoTemplate mongoTemplate) {
+        String collection = mongoTemplate.getCollectionName(User.class);
+        Query query = Query.query(Criteria.where("email").exists(true).and("email_key").exists(false));
+        query.fields().include("email");
+        BulkOperations updates = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, collection);
+        int pending = 0;
+        try (CloseableIterator<Document> users = mongoTemplate.stream(query, Document.class, collection)) {
+            while (users.hasNext()) {
+                Document user = users.next();
+                updates.updateOne(Query.query(Criteria.where("_id").is(user.get("_id"))),
+                    Update.update("email_key", User.toEmailKey(user.getString("email"))));
+                if (++pending == BATCH_SIZE) {
+                    updates.execute();
+                    updates = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, collection);
+                    pending = 0;
+                }
+            }
+        }
+        if (pending > 0) {
+            updates.execute();
+        }
+        resolveDuplicateEmailKeys(mongoTemplate, collection);
+        IndexOperations indexOperations = mongoTemplate.indexOps(collection);
+        // exact match of emails whatever their case
+        indexOperations.ensureIndex(new Index()
+            .on("email_key", Sort.Direction.ASC)
+            .named("email_key")
+            .unique()
+            .sparse()
+            .background());
+        // superseded by the index above, and only created on databases older than this changeset
+        if (indexOperations.getIndexInfo().stream().anyMatch(index -> "email".equals(index.getName()))) {
+            indexOperations.dropIndex("email");
+        }
+    }
+
+    /**
+     * Users with the same email in different cases, registered before the email checks ignored the case or by
+     * concurrent registrations, would fail the unique index and abort the startup. The activated user modified last
+     * keeps the email key, and the others lose it: their email stays, but they can no longer log in or reset their
+     * password with it until it is changed. They are logged so that they can be contacted.
+     */
+    private void resolveDuplicateEmailKeys(MongoTemplate mongoTemplate, String collection) {
+        List<Document> pipeline = Arrays.asList(
+            new Document("$match", new Document("email_key", new Document("$exists", true))),
+            new Document("$group", new Document("_id", "$email_key")
+                .append("count", new Document("$sum", 1))
+                .append("users", new Document("$push", new Document("_id", "$_id")
+                    .append("login", "$login")
+                    .append("activated", "$activated")
+                    .append("last_modified_date", "$last_modified_date")))),
+            new Document("$match", new Document("count", new Document("$gt", 1))));
+        for (Document duplicate : mongoTemplate.getCollection(collection).aggregate(pipeline).allowDiskUse(true)) {
+            @SuppressWarnings("unchecked")
+            List<Document> users = new ArrayList<>((List<Document>) duplicate.get("users"));
+            users.sort(Comparator
+                .<Document, Boolean>comparing(user -> Boolean.TRUE.equals(user.getBoolean("activated")))
+                .thenComparing(user -> user.getDate("last_modified_date"),
+                    Comparator.nullsFirst(Comparator.<Date>naturalOrder()))
+                .reversed());
+            List<Document> others = users.subList(1, users.size());
+            log.warn("Users {} share the email {} with user {}, and lose its key",
+                others.stream().map(user -> user.getString("login")).collect(Collectors.toList()),
+                duplicate.getString("_id"), users.get(0).getString("login"));
+            List<Object> ids = others.stream().map(user -> user.get("_id")).collect(Collectors.toList());
+            mongoTemplate.updateMulti(Query.query(Criteria.where("_id").in(ids)), new Update().unset("email_key"),
+                collection);
+        }
+    }
+
+    @ChangeSet(order = "02", author = "initiator", id = "02-addKeyIndexes")
+    public void addKeyIndexes(MongoTemplate mongoTemplate) {
+        IndexOperations indexOperations = mongoTemplate.indexOps(User.class);
+        // activation and password reset links; the keys are removed once used, so only pending ones are indexed
+        indexOperations.ensureIndex(new Index()
+            .on("activation_key", Sort.Direction.ASC)
+            .named("activation_key")
+            .sparse()
+            .background());
+        indexOperations.ensureIndex(new Index()
+            .on("reset_key", Sort.Direction.ASC)
+            .named("reset_key")
+            .sparse()
+            .background());
+        // nightly purge of the users not activated, which are a small part of the collection
+        indexOperations.ensureIndex(new Index()
+            .on("created_date", Sort.Direction.ASC)
+            .named("created_date_not_activated")
+            .partial(PartialIndexFilter.of(Criteria.where("activated").is(false)))
+            .background());
+    }
+}
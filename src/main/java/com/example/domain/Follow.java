@@ -0,0 +1,111 @@
+package com.example.domain;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import javax.validation.constraints.NotNull;
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * A follow relationship: the follower receives the followee's tweets in their home timeline.
+ */
+@Document(collection = "follow")
+@CompoundIndexes({
+    @CompoundIndex(name = "follower_followee", def = "{'follower': 1, 'followee': 1}", unique = true),
+    @CompoundIndex(name = "followee_follower", def = "{'followee': 1, 'follower': 1}")
+})
+public class Follow implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    private String id;
+
+    @NotNull
+    @Field("follower")
+    private String follower;
+
+    @NotNull
+    @Field("followee")
+    private String followee;
+
+    @NotNull
+    @Field("createTime")
+    private Instant createTime = Instant.now();
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getFollower() {
+        return follower;
+    }
+
+    public Follow follower(String follower) {
+        this.setFollower(follower);
+        return this;
+    }
+
+    public void setFollower(String follower) {
+        this.follower = follower;
+    }
+
+    public String getFollowee() {
+        return followee;
+    }
+
+    public Follow followee(String followee) {
+        this.setFollowee(followee);
+        return this;
+    }
+
+    public void setFollowee(String followee) {
+        this.followee = followee;
+    }
+
+    public Instant getCreateTime() {
+        return createTime;
+    }
+
+    public void setCreateTime(Instant createTime) {
+        this.createTime = createTime;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        Follow follow = (Follow) o;
+        if (follow.getId() == null || getId() == null) {
+            return false;
+        }
+        return Objects.equals(getId(), follow.getId());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(getId());
+    }
+
+    @Override
+    public String toString() {
+        return "Follow{" +
+            "id=" + getId() +
+            ", follower='" + getFollower() + "'" +
+            ", followee='" + getFollowee() + "'" +
+            "}";
+    }
+}
@@ -0,0 +1,211 @@
+package com.example.domain;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import java.io.Serializable;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * The tweets of one hashtag created within one hour.
+ * <p>
+ * A bucket holds at most {@link #MAX_ENTRIES} entries, so a busy hour of a popular tag spans several buckets.
+ * {@code count} is the number of entries ever appended, entries removed since are not subtracted. Likewise,
+ * {@code minCreateTime} and {@code maxCreateTime} bound the creation times of the entries ever appended, so that
+ * pages only read the buckets that can hold their tweets.
+ */
+@Document(collection = "tag_bucket")
+@CompoundIndexes({
+    @CompoundIndex(name = "tag_hour_max_create_time", def = "{'tag': 1, 'hour': -1, 'maxCreateTime': -1}")
+})
+public class TagBucket implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final int MAX_ENTRIES = 1000;
+
+    @Id
+    private String id;
+
+    @Field("tag")
+    private String tag;
+
+    @Field("hour")
+    private Instant hour;
+
+    @Field("count")
+    private int count;
+
+    @Field("minCreateTime")
+    private Instant minCreateTime;
+
+    @Field("maxCreateTime")
+    private Instant maxCreateTime;
+
+    @Field("entries")
+    private List<Entry> entries = new ArrayList<>();
+
+    /**
+     * @return the key of a hashtag: tags are matched whatever their case
+     */
+    public static String normalize(String tag) {
+        return tag.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * @return the hour of the bucket holding a tweet created at the given time
+     */
+    public static Instant hourOf(Instant createTime) {
+        return createTime.truncatedTo(ChronoUnit.HOURS);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getTag() {
+        return tag;
+    }
+
+    public void setTag(String tag) {
+        this.tag = tag;
+    }
+
+    public Instant getHour() {
+        return hour;
+    }
+
+    public void setHour(Instant hour) {
+        this.hour = hour;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public void setCount(int count) {
+        this.count = count;
+    }
+
+    public Instant getMinCreateTime() {
+        return minCreateTime;
+    }
+
+    public void setMinCreateTime(Instant minCreateTime) {
+        this.minCreateTime = minCreateTime;
+    }
+
+    public Instant getMaxCreateTime() {
+        return maxCreateTime;
+    }
+
+    public void setMaxCreateTime(Instant maxCreateTime) {
+        this.maxCreateTime = maxCreateTime;
+    }
+
+    public List<Entry> getEntries() {
+        return entries;
+    }
+
+    public void setEntries(List<Entry> entries) {
+        this.entries = entries;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        TagBucket tagBucket = (TagBucket) o;
+        if (tagBucket.getId() == null || getId() == null) {
+            return false;
+        }
+        return Objects.equals(getId(), tagBucket.getId());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(getId());
+    }
+
+    @Override
+    public String toString() {
+        return "TagBucket{" +
+            "id=" + getId() +
+            ", tag='" + getTag() + "'" +
+            ", hour='" + getHour() + "'" +
+            ", count=" + getCount() +
+            "}";
+    }
+
+    /**
+     * A tweet of the bucket.
+     */
+    public static class Entry implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * Newest first, ties broken on the tweet id, as tweets are paginated.
+         */
+        public static final Comparator<Entry> NEWEST_FIRST = Comparator
+            .comparing(Entry::getCreateTime)
+            .thenComparing(Entry::getTweetId)
+            .reversed();
+
+        @Field("tweetId")
+        private String tweetId;
+
+        @Field("createTime")
+        private Instant createTime;
+
+        public Entry() {
+            // Empty constructor needed for Spring Data
+        }
+
+        public Entry(Tweet tweet) {
+            this.tweetId = tweet.getId();
+            this.createTime = tweet.getCreateTime();
+        }
+
+        public String getTweetId() {
+            return tweetId;
+        }
+
+        public void setTweetId(String tweetId) {
+            this.tweetId = tweetId;
+        }
+
+        public Instant getCreateTime() {
+            return createTime;
+        }
+
+        public void setCreateTime(Instant createTime) {
+            this.createTime = createTime;
+        }
+
+        @Override
+        public String toString() {
+            return "Entry{" +
+                "tweetId='" + getTweetId() + "'" +
+                ", createTime='" + getCreateTime() + "'" +
+                "}";
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.domain;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * An entry of the change journal of the timelines.
+ * <p>
+ * The id is a sequence number, increasing with every change, so a client that has read the journal up to a
+ * given sequence number only needs the entries after it. Tweet changes apply to the timelines of the tweeter
+ * and of their followers; {@link Type#RESET} entries apply to the timeline of their owner only.
+ */
+@Document(collection = "timeline_change")
+@CompoundIndexes({
+    @CompoundIndex(name = "tweeter_id", def = "{'tweeter': 1, '_id': 1}"),
+    @CompoundIndex(name = "owner_id", def = "{'owner': 1, '_id': 1}", sparse = true)
+})
+public class TimelineChange implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED,
+        /**
+         * The set of accounts followed by the owner changed, so the whole timeline must be read again.
+         */
+        RESET
+    }
+
+    @Id
+    private Long id;
+
+    @Field("type")
+    private Type type;
+
+    @Field("tweetId")
+    private String tweetId;
+
+    @Field("tweeter")
+    private String tweeter;
+
+    @Field("owner")
+    private String owner;
+
+    @Indexed(name = "time")
+    @Field("time")
+    private Instant time;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public void setType(Type type) {
+        this.type = type;
+    }
+
+    public String getTweetId() {
+        return tweetId;
+    }
+
+    public void setTweetId(String tweetId) {
+        this.tweetId = tweetId;
+    }
+
+    public String getTweeter() {
+        return tweeter;
+    }
+
+    public void setTweeter(String tweeter) {
+        this.tweeter = tweeter;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public void setOwner(String owner) {
+        this.owner = owner;
+    }
+
+    public Instant getTime() {
+        return time;
+    }
+
+    public void setTime(Instant time) {
+        this.time = time;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        TimelineChange timelineChange = (TimelineChange) o;
+        if (timelineChange.getId() == null || getId() == null) {
+            return false;
+        }
+        return Objects.equals(getId(), timelineChange.getId());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(getId());
+    }
+
+    @Override
+    public String toString() {
+        return "TimelineChange{" +
+            "id=" + getId() +
+            ", type='" + getType() + "'" +
+            ", tweetId='" + getTweetId() + "'" +
+            ", tweeter='" + getTweeter() + "'" +
+            ", owner='" + getOwner() + "'" +
+            ", time='" + getTime() + "'" +
+            "}";
+    }
+}
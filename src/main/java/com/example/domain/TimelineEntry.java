@@ -0,0 +1,124 @@
+package com.example.domain;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * A materialized home timeline entry: one tweet delivered to one owner's timeline.
+ * <p>
+ * The id is derived from the owner and the tweet id, so delivering the same tweet twice is a no-op.
+ */
+@Document(collection = "timeline_entry")
+@CompoundIndexes({
+    @CompoundIndex(name = "owner_createTime", def = "{'owner': 1, 'createTime': -1, 'tweetId': -1}"),
+    @CompoundIndex(name = "owner_tweeter", def = "{'owner': 1, 'tweeter': 1}"),
+    @CompoundIndex(name = "tweetId", def = "{'tweetId': 1}")
+})
+public class TimelineEntry implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    private String id;
+
+    @Field("owner")
+    private String owner;
+
+    @Field("tweetId")
+    private String tweetId;
+
+    @Field("tweeter")
+    private String tweeter;
+
+    @Field("createTime")
+    private Instant createTime;
+
+    public TimelineEntry() {
+        // Empty constructor needed for Spring Data
+    }
+
+    public TimelineEntry(String owner, Tweet tweet) {
+        this.id = owner + ":" + tweet.getId();
+        this.owner = owner;
+        this.tweetId = tweet.getId();
+        this.tweeter = tweet.getTweeter();
+        this.createTime = tweet.getCreateTime();
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public void setOwner(String owner) {
+        this.owner = owner;
+    }
+
+    public String getTweetId() {
+        return tweetId;
+    }
+
+    public void setTweetId(String tweetId) {
+        this.tweetId = tweetId;
+    }
+
+    public String getTweeter() {
+        return tweeter;
+    }
+
+    public void setTweeter(String tweeter) {
+        this.tweeter = tweeter;
+    }
+
+    public Instant getCreateTime() {
+        return createTime;
+    }
+
+    public void setCreateTime(Instant createTime) {
+        this.createTime = createTime;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        TimelineEntry timelineEntry = (TimelineEntry) o;
+        if (timelineEntry.getId() == null || getId() == null) {
+            return false;
+        }
+        return Objects.equals(getId(), timelineEntry.getId());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(getId());
+    }
+
+    @Override
+    public String toString() {
+        return "TimelineEntry{" +
+            "id=" + getId() +
+            ", owner='" + getOwner() + "'" +
+            ", tweetId='" + getTweetId() + "'" +
+            ", tweeter='" + getTweeter() + "'" +
+            "}";
+    }
+}
@@ -1,6 +1,10 @@
 package com.example.domain;
 
+import com.example.domain.util.TweetTokenizer;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Transient;
 import org.springframework.data.mongodb.core.mapping.Field;
 import org.springframework.data.mongodb.core.mapping.Document;
 import javax.validation.constraints.*;
@@ -13,6 +17,11 @@ import java.util.Objects;
 
 /**
  * A Tweet.
+ * <p>
+ * The mentions ({@code refs}) and hashtags ({@code tags}) are derived from the content when it is written,
+ * and stored with the tweet. Setting the content only marks them stale: they are extracted on first access,
+ * or right before the tweet is converted for MongoDB. Spring Data reads and writes the fields directly, so
+ * loading a tweet trusts the stored tokens and never parses the content again; clients cannot set them.
  */
 @Document(collection = "tweet")
 public class Tweet implements Serializable {
@@ -35,11 +44,17 @@ public class Tweet implements Serializable {
     private Instant createTime = Instant.now();
 
     @Field("refs")
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
     private List<String> refs = new ArrayList<>();
 
     @Field("tags")
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
     private List<String> tags = new ArrayList<>();
 
+    @Transient
+    @JsonIgnore
+    private boolean tokensStale;
+
     // jhipster-needle-entity-add-field - JHipster will add fields here, do not remove
     public String getId() {
         return id;
@@ -73,8 +88,7 @@ public class Tweet implements Serializable {
 
     public void setContent(String content) {
         this.content = content;
-        extractRefsFromContent();
-        extractTagsFromContent();
+        this.tokensStale = true;
     }
     // jhipster-needle-entity-add-getters-setters - JHipster will add getters and setters here, do not remove
 
@@ -87,13 +101,41 @@ public class Tweet implements Serializable {
     }
 
     public List<String> getRefs() {
+        ensureTokenized();
         return refs;
     }
 
     public List<String> getTags() {
+        ensureTokenized();
         return tags;
     }
 
+    /**
+     * Restore the refs and tags stored with the content, instead of extracting them again.
+     *
+     * @param refs the stored refs
+     * @param tags the stored tags
+     */
+    public void setTokens(List<String> refs, List<String> tags) {
+        this.refs = new ArrayList<>(refs);
+        this.tags = new ArrayList<>(tags);
+        this.tokensStale = false;
+    }
+
+    /**
+     * Extract the refs and tags from the content, if it has been set since they were last extracted.
+     */
+    public void ensureTokenized() {
+        if (tokensStale) {
+            List<String> refs = new ArrayList<>();
+            List<String> tags = new ArrayList<>();
+            TweetTokenizer.tokenize(content, refs, tags);
+            this.refs = refs;
+            this.tags = tags;
+            tokensStale = false;
+        }
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -122,28 +164,4 @@ public class Tweet implements Serializable {
             ", content='" + getContent() + "'" +
             "}";
     }
-
-    private void extractRefsFromContent() {
-        refs = extractTokensByPrefix(content, "@");
-    }
-
-    private void extractTagsFromContent() {
-        tags = extractTokensByPrefix(content, "#");
-    }
-
-    private List<String> extractTokensByPrefix(String content, String prefix) {
-        // extremely naive implementation here...
-        List<String> tokens = new ArrayList<>();
-        if (content == null) {
-            return tokens;
-        }
-        int startIndex = content.indexOf(prefix);
-        if (startIndex < 0) {
-            return tokens;
-        }
-        int endIndex = content.indexOf(" ", startIndex + 1);
-        tokens.add(content.substring(startIndex + 1, endIndex));
-        tokens.addAll(extractTokensByPrefix(content.substring(endIndex), prefix));
-        return tokens;
-    }
 }
@@ -51,9 +51,16 @@ public class User extends AbstractAuditingEntity implements Serializable {
 
     @Email
     @Size(min = 5, max = 254)
-    @Indexed
     private String email;
 
+    /**
+     * The email in lower case, set with it: emails are matched whatever their case, with this key and its
+     * unique index rather than with a case-insensitive regex, which cannot use an index.
+     */
+    @JsonIgnore
+    @Field("email_key")
+    private String emailKey;
+
     private boolean activated = false;
 
     @Size(min = 2, max = 6)
@@ -127,6 +134,19 @@ public class User extends AbstractAuditingEntity implements Serializable {
 
     public void setEmail(String email) {
         this.email = email;
+        this.emailKey = toEmailKey(email);
+    }
+
+    public String getEmailKey() {
+        return emailKey;
+    }
+
+    /**
+     * @param email an email, may be null
+     * @return the key matching the email whatever its case
+     */
+    public static String toEmailKey(String email) {
+        return StringUtils.lowerCase(email, Locale.ENGLISH);
     }
 
     public String getImageUrl() {
@@ -0,0 +1,107 @@
+package com.example.domain.util;
+
+import java.util.List;
+
+/**
+ * Extracts the mentions ({@code @login}) and hashtags ({@code #tag}) of a tweet.
+ * <p>
+ * The content is scanned once, forward, by code point. A token only starts at a word boundary, so that
+ * {@code user@example.com} or {@code C#} are not tokens, and ends at the first character that cannot be part of it:
+ * <ul>
+ * <li>a hashtag is made of Unicode letters, digits, combining marks and underscores;</li>
+ * <li>a mention may also contain the dots and dashes allowed in logins, except at its end, so that a mention
+ * ending a sentence does not keep the full stop.</li>
+ * </ul>
+ * Tokens are only copied out of the content once they are complete, and each is kept once, in order of first
+ * appearance.
+ */
+public final class TweetTokenizer {
+
+    public static final char MENTION = '@';
+
+    public static final char HASHTAG = '#';
+
+    private TweetTokenizer() {
+    }
+
+    /**
+     * Add the mentions and hashtags of a content to the given lists.
+     *
+     * @param content the content of the tweet, may be null
+     * @param refs the list the mentioned logins are added to, without the leading {@code @}
+     * @param tags the list the hashtags are added to, without the leading {@code #}
+     */
+    public static void tokenize(String content, List<String> refs, List<String> tags) {
+        if (content == null) {
+            return;
+        }
+        int length = content.length();
+        boolean inWord = false;
+        int index = 0;
+        while (index < length) {
+            int codePoint = content.codePointAt(index);
+            if (!inWord && (codePoint == MENTION || codePoint == HASHTAG)) {
+                int start = index + 1;
+                int end = codePoint == MENTION ? scanMention(content, start) : scanHashtag(content, start);
+                if (end > start) {
+                    addUnique(codePoint == MENTION ? refs : tags, content.substring(start, end));
+                    inWord = true;
+                }
+                index = end;
+                continue;
+            }
+            inWord = isWordPart(codePoint);
+            index += Character.charCount(codePoint);
+        }
+    }
+
+    private static int scanHashtag(String content, int start) {
+        int index = start;
+        while (index < content.length()) {
+            int codePoint = content.codePointAt(index);
+            if (!isWordPart(codePoint)) {
+                break;
+            }
+            index += Character.charCount(codePoint);
+        }
+        return index;
+    }
+
+    private static int scanMention(String content, int start) {
+        int index = start;
+        int end = start;
+        while (index < content.length()) {
+            int codePoint = content.codePointAt(index);
+            if (isWordPart(codePoint)) {
+                index += Character.charCount(codePoint);
+                end = index;
+            } else if (codePoint == '.' || codePoint == '-') {
+                // only part of the mention if followed by more of it
+                index++;
+            } else {
+                break;
+            }
+        }
+        return end;
+    }
+
+    private static boolean isWordPart(int codePoint) {
+        if (codePoint == '_' || Character.isLetterOrDigit(codePoint)) {
+            return true;
+        }
+        int type = Character.getType(codePoint);
+        return type == Character.NON_SPACING_MARK || type == Character.COMBINING_SPACING_MARK;
+    }
+
+    /**
+     * Tweets only have a handful of tokens, so a linear scan is cheaper than hashing.
+     */
+    private static void addUnique(List<String> tokens, String token) {
+        for (int i = 0; i < tokens.size(); i++) {
+            if (tokens.get(i).equals(token)) {
+                return;
+            }
+        }
+        tokens.add(token);
+    }
+}
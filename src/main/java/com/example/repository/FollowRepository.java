@@ -0,0 +1,37 @@
+package com.example.repository;
+
+import com.example.domain.Follow;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Spring Data MongoDB repository for the Follow entity.
+ */
+@SuppressWarnings("unused")
+@Repository
+public interface FollowRepository extends MongoRepository<Follow, String> {
+
+    String FOLLOWS_BY_FOLLOWER_CACHE = "followsByFollower";
+
+    Optional<Follow> findOneByFollowerAndFollowee(String follower, String followee);
+
+    Page<Follow> findAllByFollower(String follower, Pageable pageable);
+
+    Page<Follow> findAllByFollowee(String followee, Pageable pageable);
+
+    @Cacheable(cacheNames = FOLLOWS_BY_FOLLOWER_CACHE)
+    List<Follow> findAllByFollower(String follower);
+
+    Stream<Follow> streamAllByFollowee(String followee);
+
+    long countByFollowee(String followee);
+
+    long deleteByFollowerAndFollowee(String follower, String followee);
+}
@@ -0,0 +1,13 @@
+package com.example.repository;
+
+import com.example.domain.TagBucket;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Spring Data MongoDB repository for the TagBucket entity.
+ */
+@SuppressWarnings("unused")
+@Repository
+public interface TagBucketRepository extends MongoRepository<TagBucket, String>, TagBucketRepositoryCustom {
+}
@@ -0,0 +1,46 @@
+package com.example.repository;
+
+import com.example.domain.TagBucket;
+import com.example.domain.Tweet;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Updates and reads of the {@link TagBucketRepository} that cannot be derived from method names.
+ */
+public interface TagBucketRepositoryCustom {
+
+    /**
+     * Append tweets to the bucket of the hour they were created in, for each of their hashtags.
+     * <p>
+     * A bucket is created when there is none for the hour, or when the current ones are full. A tweet appended
+     * twice is only stored once, unless its bucket was full in between, which reads tolerate.
+     *
+     * @param tweets the tweets to index
+     */
+    void append(Collection<Tweet> tweets);
+
+    /**
+     * Remove a tweet from the buckets of its hashtags, and delete the buckets left empty.
+     *
+     * @param tweet the tweet to remove, with the hashtags and creation time it was indexed with
+     */
+    void remove(Tweet tweet);
+
+    /**
+     * Read the newest entries of a hashtag, starting strictly after a given tweet.
+     * <p>
+     * Buckets are read newest hour first on the {@code tag_hour_max_create_time} index, and reading stops at the
+     * first bucket whose entries are all older than a full page, so a page costs a few bucket reads however popular
+     * the tag.
+     *
+     * @param tag the hashtag, in any case
+     * @param createTime the creation time of the last tweet read, or null to start with the newest tweet
+     * @param id the id of the last tweet read, or null to start with the newest tweet
+     * @param limit the number of entries wanted
+     * @return at least {@code limit} entries unless the tag has fewer, newest first and without duplicates
+     */
+    List<TagBucket.Entry> findEntriesBefore(String tag, Instant createTime, String id, int limit);
+}
@@ -0,0 +1,133 @@
+package com.example.repository;
+
+import com.example.domain.TagBucket;
+import com.example.domain.Tweet;
+import org.bson.Document;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.util.CloseableIterator;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Implementation of the {@link TagBucketRepositoryCustom} queries, picked up by Spring Data through its name.
+ */
+public class TagBucketRepositoryImpl implements TagBucketRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    public TagBucketRepositoryImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public void append(Collection<Tweet> tweets) {
+        // ordered, so that a bucket created by one upsert is filled by the next ones
+        BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, TagBucket.class);
+        boolean empty = true;
+        for (Tweet tweet : tweets) {
+            Instant hour = TagBucket.hourOf(tweet.getCreateTime());
+            for (String tag : normalize(tweet.getTags())) {
+                // a full bucket does not match, so the upsert starts a new one
+                bulkOperations.upsert(
+                    Query.query(Criteria.where("tag").is(tag).and("hour").is(hour).and("count").lt(TagBucket.MAX_ENTRIES)),
+                    new Update().addToSet("entries", new TagBucket.Entry(tweet)).inc("count", 1)
+                        .min("minCreateTime", tweet.getCreateTime()).max("maxCreateTime", tweet.getCreateTime()));
+                empty = false;
+            }
+        }
+        if (!empty) {
+            bulkOperations.execute();
+        }
+    }
+
+    @Override
+    public void remove(Tweet tweet) {
+        Set<String> tags = normalize(tweet.getTags());
+        if (tags.isEmpty()) {
+            return;
+        }
+        Instant hour = TagBucket.hourOf(tweet.getCreateTime());
+        BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, TagBucket.class);
+        for (String tag : tags) {
+            bulkOperations.updateMulti(
+                Query.query(Criteria.where("tag").is(tag).and("hour").is(hour).and("entries.tweetId").is(tweet.getId())),
+                new Update().pull("entries", new Document("tweetId", tweet.getId())));
+            bulkOperations.remove(
+                Query.query(Criteria.where("tag").is(tag).and("hour").is(hour).and("entries").size(0)));
+        }
+        bulkOperations.execute();
+    }
+
+    /**
+     * The buckets are read newest first, on the hour then on the newest entry they ever had, and only the buckets
+     * holding an entry up to the cursor are read. Reading stops as soon as the next bucket only holds entries
+     * older than the page, which is usually after the first bucket, however many buckets the hour has.
+     */
+    @Override
+    public List<TagBucket.Entry> findEntriesBefore(String tag, Instant createTime, String id, int limit) {
+        Query query = Query.query(Criteria.where("tag").is(TagBucket.normalize(tag)));
+        TagBucket.Entry before = null;
+        if (createTime != null && id != null) {
+            query.addCriteria(Criteria.where("hour").lte(TagBucket.hourOf(createTime))
+                .and("minCreateTime").lte(createTime));
+            before = new TagBucket.Entry();
+            before.setCreateTime(createTime);
+            before.setTweetId(id);
+        }
+        query.with(Sort.by(Sort.Direction.DESC, "hour", "maxCreateTime"));
+        List<TagBucket.Entry> entries = new ArrayList<>();
+        try (CloseableIterator<TagBucket> buckets = mongoTemplate.stream(query, TagBucket.class)) {
+            while (buckets.hasNext()) {
+                TagBucket bucket = buckets.next();
+                if (entries.size() >= limit) {
+                    entries = newest(entries, limit);
+                    // the entries of this bucket and of the next ones are older than the whole page
+                    if (entries.size() == limit && bucket.getMaxCreateTime() != null
+                        && entries.get(limit - 1).getCreateTime().isAfter(bucket.getMaxCreateTime())) {
+                        break;
+                    }
+                }
+                for (TagBucket.Entry entry : bucket.getEntries()) {
+                    if (before == null || TagBucket.Entry.NEWEST_FIRST.compare(entry, before) > 0) {
+                        entries.add(entry);
+                    }
+                }
+            }
+        }
+        return newest(entries, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @return the newest entries, without duplicates, as a tweet appended again after its bucket filled up is in
+     * two buckets of the same hour
+     */
+    private static List<TagBucket.Entry> newest(List<TagBucket.Entry> entries, int limit) {
+        entries.sort(TagBucket.Entry.NEWEST_FIRST);
+        List<TagBucket.Entry> unique = new ArrayList<>(Math.min(entries.size(), limit));
+        for (TagBucket.Entry entry : entries) {
+            if (unique.size() == limit) {
+                break;
+            }
+            if (unique.isEmpty() || TagBucket.Entry.NEWEST_FIRST.compare(unique.get(unique.size() - 1), entry) != 0) {
+                unique.add(entry);
+            }
+        }
+        return unique;
+    }
+
+    private static Set<String> normalize(Collection<String> tags) {
+        Set<String> normalized = new LinkedHashSet<>(tags.size());
+        tags.forEach(tag -> normalized.add(TagBucket.normalize(tag)));
+        return normalized;
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.repository;
+
+import com.example.domain.TimelineEntry;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Spring Data MongoDB repository for the TimelineEntry entity.
+ */
+@SuppressWarnings("unused")
+@Repository
+public interface TimelineEntryRepository extends MongoRepository<TimelineEntry, String> {
+
+    Page<TimelineEntry> findByOwnerOrderByCreateTimeDescTweetIdDesc(String owner, Pageable pageable);
+
+    List<TimelineEntry> findAllByOwnerOrderByCreateTimeDescTweetIdDesc(String owner, Pageable pageable);
+
+    Stream<TimelineEntry> streamAllByTweetId(String tweetId);
+
+    long deleteByTweetId(String tweetId);
+
+    long deleteByOwnerAndTweeter(String owner, String tweeter);
+}
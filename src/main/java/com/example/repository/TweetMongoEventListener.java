@@ -0,0 +1,20 @@
+package com.example.repository;
+
+import com.example.domain.Tweet;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.BeforeConvertEvent;
+import org.springframework.stereotype.Component;
+
+/**
+ * Extracts the refs and tags of a tweet whose content has changed, right before it is written to MongoDB.
+ *
+ * @see Tweet#ensureTokenized()
+ */
+@Component
+public class TweetMongoEventListener extends AbstractMongoEventListener<Tweet> {
+
+    @Override
+    public void onBeforeConvert(BeforeConvertEvent<Tweet> event) {
+        event.getSource().ensureTokenized();
+    }
+}
@@ -6,11 +6,18 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+
 /**
  * Spring Data MongoDB repository for the Tweet entity.
  */
 @SuppressWarnings("unused")
 @Repository
-public interface TweetRepository extends MongoRepository<Tweet, String> {
+public interface TweetRepository extends MongoRepository<Tweet, String>, TweetRepositoryCustom {
     Page<Tweet> findByTweeterOrderByCreateTimeDesc(String tweeter, Pageable pageable);
+
+    List<Tweet> findAllByTweeterOrderByCreateTimeDesc(String tweeter, Pageable pageable);
+
+    Page<Tweet> findByTweeterInOrderByCreateTimeDesc(Collection<String> tweeters, Pageable pageable);
 }
@@ -0,0 +1,70 @@
+package com.example.repository;
+
+import com.example.domain.Tweet;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.mongodb.core.query.Collation;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Queries of the {@link TweetRepository} that cannot be derived from method names.
+ */
+public interface TweetRepositoryCustom {
+
+    /**
+     * Mentions are matched whatever their case, as logins are stored in lower case but not always typed so.
+     * The {@code refs_createTime_id} index is built with this collation, and only queries using it can use the index.
+     */
+    Collation REFS_COLLATION = Collation.of("en").strength(Collation.ComparisonLevel.secondary());
+
+    /**
+     * Read a slice of tweets, newest first, starting strictly after a given tweet.
+     * <p>
+     * This is keyset pagination: the position is given by the sort key of the last tweet read, rather than an
+     * offset, and no count is run. Reading a slice costs the same at any depth, given an index on
+     * {@code {createTime: -1, _id: -1}}, prefixed with {@code tweeter} when filtering on it.
+     *
+     * @param tweeters the authors to read, or null for all
+     * @param createTime the creation time of the last tweet read, or null to start with the newest tweet
+     * @param id the id of the last tweet read, or null to start with the newest tweet
+     * @param limit the maximum number of tweets to read
+     * @return the slice of tweets
+     */
+    Slice<Tweet> findAllBefore(Collection<String> tweeters, Instant createTime, String id, int limit);
+
+    /**
+     * Read a slice of the tweets mentioning a user, newest first, starting strictly after a given tweet.
+     * <p>
+     * This is keyset pagination on the multikey index {@code {refs: 1, createTime: -1, _id: -1}}: the index
+     * gives both the filter and the order, so a slice is a single bounded index scan, with no in-memory sort.
+     *
+     * @param login the login of the mentioned user
+     * @param createTime the creation time of the last tweet read, or null to start with the newest tweet
+     * @param id the id of the last tweet read, or null to start with the newest tweet
+     * @param limit the maximum number of tweets to read
+     * @return the slice of tweets
+     */
+    Slice<Tweet> findAllMentioningBefore(String login, Instant createTime, String id, int limit);
+
+    /**
+     * Read tweets by id, in no particular order.
+     *
+     * @param ids the ids of the tweets
+     * @return the tweets that exist
+     */
+    List<Tweet> findAllByIdIn(Collection<String> ids);
+
+    /**
+     * Insert new tweets with a single unordered bulk write.
+     * <p>
+     * The tweets without an id are given one before the write, and their refs and tags must already be extracted:
+     * bulk writes do not publish the mapping events that tokenize them. One failed insert does not stop the others.
+     *
+     * @param tweets the new tweets
+     * @return the error messages of the failed inserts, by index in the list
+     */
+    Map<Integer, String> insertAll(List<Tweet> tweets);
+}
@@ -0,0 +1,93 @@
+package com.example.repository;
+
+import com.example.domain.Tweet;
+import com.example.repository.codec.MongoCodecs;
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Implementation of the {@link TweetRepositoryCustom} queries, picked up by Spring Data through its name.
+ * <p>
+ * These queries read timeline pages, so they decode with the {@link com.example.repository.codec.TweetCodec}
+ * when codecs are enabled.
+ */
+public class TweetRepositoryImpl implements TweetRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    private final MongoCodecs mongoCodecs;
+
+    public TweetRepositoryImpl(MongoTemplate mongoTemplate, MongoCodecs mongoCodecs) {
+        this.mongoTemplate = mongoTemplate;
+        this.mongoCodecs = mongoCodecs;
+    }
+
+    @Override
+    public Slice<Tweet> findAllBefore(Collection<String> tweeters, Instant createTime, String id, int limit) {
+        Query query = new Query();
+        if (tweeters != null) {
+            query.addCriteria(Criteria.where("tweeter").in(tweeters));
+        }
+        return findSliceBefore(query, createTime, id, limit);
+    }
+
+    @Override
+    public Slice<Tweet> findAllMentioningBefore(String login, Instant createTime, String id, int limit) {
+        Query query = Query.query(Criteria.where("refs").is(login)).collation(REFS_COLLATION);
+        return findSliceBefore(query, createTime, id, limit);
+    }
+
+    private Slice<Tweet> findSliceBefore(Query query, Instant createTime, String id, int limit) {
+        if (createTime != null && id != null) {
+            // the bound on createTime alone gives the index range, the $or only filters the ties
+            query.addCriteria(Criteria.where("createTime").lte(createTime));
+            query.addCriteria(new Criteria().orOperator(
+                Criteria.where("createTime").lt(createTime),
+                Criteria.where("id").lt(id)));
+        }
+        // read one more tweet than asked, to know whether there is a next slice without counting
+        query.with(Sort.by(Sort.Direction.DESC, "createTime", "id")).limit(limit + 1);
+        List<Tweet> tweets = find(query);
+        boolean hasNext = tweets.size() > limit;
+        return new SliceImpl<>(hasNext ? tweets.subList(0, limit) : tweets, PageRequest.of(0, limit), hasNext);
+    }
+
+    @Override
+    public List<Tweet> findAllByIdIn(Collection<String> ids) {
+        return find(Query.query(Criteria.where("id").in(ids)));
+    }
+
+    @Override
+    public Map<Integer, String> insertAll(List<Tweet> tweets) {
+        Map<Integer, String> failures = new HashMap<>();
+        if (tweets.isEmpty()) {
+            return failures;
+        }
+        // the driver would generate the ids in the written documents only, so they are set on the tweets first
+        tweets.stream().filter(tweet -> tweet.getId() == null).forEach(tweet -> tweet.setId(ObjectId.get().toHexString()));
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Tweet.class).insert(tweets).execute();
+        } catch (BulkOperationException e) {
+            e.getErrors().forEach(error -> failures.put(error.getIndex(), error.getMessage()));
+        }
+        return failures;
+    }
+
+    private List<Tweet> find(Query query) {
+        return mongoCodecs.isEnabled() ? mongoCodecs.find(query, Tweet.class) : mongoTemplate.find(query, Tweet.class);
+    }
+}
@@ -7,15 +7,13 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
-import java.util.List;
 import java.util.Optional;
-import java.time.Instant;
 
 /**
  * Spring Data MongoDB repository for the User entity.
  */
 @Repository
-public interface UserRepository extends MongoRepository<User, String> {
+public interface UserRepository extends MongoRepository<User, String>, UserRepositoryCustom {
 
     String USERS_BY_LOGIN_CACHE = "usersByLogin";
 
@@ -23,13 +21,18 @@ public interface UserRepository extends MongoRepository<User, String> {
 
     Optional<User> findOneByActivationKey(String activationKey);
 
-    List<User> findAllByActivatedIsFalseAndCreatedDateBefore(Instant dateTime);
-
     Optional<User> findOneByResetKey(String resetKey);
 
+    /**
+     * Find a user by email, whatever its case, with an exact match on the indexed email key.
+     *
+     * @param emailKey the key of the email, from {@link User#toEmailKey(String)}
+     * @return the user, if any
+     */
     @Cacheable(cacheNames = USERS_BY_EMAIL_CACHE)
-    Optional<User> findOneByEmailIgnoreCase(String email);
+    Optional<User> findOneByEmailKey(String emailKey);
 
+    @Override
     @Cacheable(cacheNames = USERS_BY_LOGIN_CACHE)
     Optional<User> findOneByLogin(String login);
 
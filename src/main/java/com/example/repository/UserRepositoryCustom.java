@@ -0,0 +1,59 @@
+package com.example.repository;
+
+import com.example.domain.User;
+import org.springframework.data.util.CloseableIterator;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Queries of the {@link UserRepository} that are implemented by hand.
+ */
+public interface UserRepositoryCustom {
+
+    /**
+     * Read a user by login, decoding with the {@link com.example.repository.codec.UserCodec} when codecs are enabled.
+     *
+     * @param login the login
+     * @return the user, if any
+     */
+    Optional<User> findOneByLogin(String login);
+
+    /**
+     * Find which of the given logins belong to an activated user, with a single query returning the logins only.
+     *
+     * @param logins the logins to look up
+     * @return the logins of the activated users
+     */
+    Set<String> findActivatedLogins(Collection<String> logins);
+
+    /**
+     * Read the public profiles of the activated users with the given logins, with a single query. Only the login,
+     * the names and the image URL of the users are read.
+     *
+     * @param logins the logins to look up
+     * @return the partially read users
+     */
+    List<User> findActivatedProfiles(Collection<String> logins);
+
+    /**
+     * Stream the users that were not activated and were created before a date. Only the id, the login and the
+     * email key of the users are read, which is what is needed to delete them and evict them from the caches.
+     *
+     * @param createdBefore the creation date
+     * @return the partially read users, to be closed
+     */
+    CloseableIterator<User> streamNotActivatedUsers(Instant createdBefore);
+
+    /**
+     * Delete some users with a single query, unless they have been activated since they were read.
+     *
+     * @param ids the ids of the users
+     * @param createdBefore the creation date the users were read with
+     * @return the number of users deleted
+     */
+    long deleteNotActivatedUsers(Collection<String> ids, Instant createdBefore);
+}
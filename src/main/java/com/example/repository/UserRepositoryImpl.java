@@ -0,0 +1,78 @@
+package com.example.repository;
+
+import com.example.domain.User;
+import com.example.repository.codec.MongoCodecs;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.util.CloseableIterator;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Implementation of the {@link UserRepositoryCustom} queries, picked up by Spring Data through its name.
+ * <p>
+ * Login lookups happen on every tweet validation and follow, so they decode with the
+ * {@link com.example.repository.codec.UserCodec} when codecs are enabled.
+ */
+public class UserRepositoryImpl implements UserRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    private final MongoCodecs mongoCodecs;
+
+    public UserRepositoryImpl(MongoTemplate mongoTemplate, MongoCodecs mongoCodecs) {
+        this.mongoTemplate = mongoTemplate;
+        this.mongoCodecs = mongoCodecs;
+    }
+
+    @Override
+    public Optional<User> findOneByLogin(String login) {
+        Query query = Query.query(Criteria.where("login").is(login)).limit(1);
+        if (mongoCodecs.isEnabled()) {
+            return mongoCodecs.find(query, User.class).stream().findFirst();
+        }
+        return Optional.ofNullable(mongoTemplate.findOne(query, User.class));
+    }
+
+    @Override
+    public Set<String> findActivatedLogins(Collection<String> logins) {
+        Query query = Query.query(Criteria.where("login").in(logins).and("activated").is(true));
+        query.fields().include("login").exclude("_id");
+        Set<String> existing = new HashSet<>();
+        mongoTemplate.find(query, Document.class, mongoTemplate.getCollectionName(User.class))
+            .forEach(user -> existing.add(user.getString("login")));
+        return existing;
+    }
+
+    @Override
+    public List<User> findActivatedProfiles(Collection<String> logins) {
+        Query query = Query.query(Criteria.where("login").in(logins).and("activated").is(true));
+        query.fields().include("login").include("firstName").include("lastName").include("imageUrl");
+        return mongoTemplate.find(query, User.class);
+    }
+
+    @Override
+    public CloseableIterator<User> streamNotActivatedUsers(Instant createdBefore) {
+        Query query = Query.query(notActivatedSince(createdBefore));
+        query.fields().include("login").include("emailKey");
+        return mongoTemplate.stream(query, User.class);
+    }
+
+    @Override
+    public long deleteNotActivatedUsers(Collection<String> ids, Instant createdBefore) {
+        Query query = Query.query(Criteria.where("id").in(ids).andOperator(notActivatedSince(createdBefore)));
+        return mongoTemplate.remove(query, User.class).getDeletedCount();
+    }
+
+    private static Criteria notActivatedSince(Instant createdBefore) {
+        // served by the created_date index, which only holds the users not activated
+        return Criteria.where("activated").is(false).and("createdDate").lt(createdBefore);
+    }
+}
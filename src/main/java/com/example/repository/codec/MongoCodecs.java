@@ -0,0 +1,72 @@
+package com.example.repository.codec;
+
+import com.example.config.ApplicationProperties;
+import com.mongodb.MongoClient;
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCollection;
+import org.bson.Document;
+import org.bson.codecs.configuration.CodecRegistries;
+import org.bson.codecs.configuration.CodecRegistry;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.QueryMapper;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs queries through the hand-written codecs, when {@code application.mongo.codecs} is enabled.
+ * <p>
+ * Queries are still written with the Spring Data {@link Query} API, and mapped to MongoDB field names the same
+ * way; only the decoding of the results bypasses the reflective {@code MappingMongoConverter}.
+ */
+@Component
+public class MongoCodecs {
+
+    private final MongoTemplate mongoTemplate;
+
+    private final QueryMapper queryMapper;
+
+    private final CodecRegistry codecRegistry;
+
+    private final boolean enabled;
+
+    public MongoCodecs(MongoTemplate mongoTemplate, ApplicationProperties applicationProperties) {
+        this.mongoTemplate = mongoTemplate;
+        this.queryMapper = new QueryMapper(mongoTemplate.getConverter());
+        this.codecRegistry = CodecRegistries.fromRegistries(
+            CodecRegistries.fromCodecs(new TweetCodec(), new UserCodec()),
+            MongoClient.getDefaultCodecRegistry());
+        this.enabled = applicationProperties.getMongo().isCodecs();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @param query the query, with its sort, limit and collation
+     * @param entityClass the class of the documents, which must have a codec
+     * @return the matching documents
+     */
+    public <T> List<T> find(Query query, Class<T> entityClass) {
+        MongoPersistentEntity<?> entity = mongoTemplate.getConverter().getMappingContext().getRequiredPersistentEntity(entityClass);
+        MongoCollection<T> collection = mongoTemplate.getCollection(entity.getCollection())
+            .withCodecRegistry(codecRegistry)
+            .withDocumentClass(entityClass);
+        FindIterable<T> results = collection.find(queryMapper.getMappedObject(query.getQueryObject(), entity));
+        Document sort = queryMapper.getMappedSort(query.getSortObject(), entity);
+        if (!sort.isEmpty()) {
+            results = results.sort(sort);
+        }
+        if (query.getLimit() > 0) {
+            results = results.limit(query.getLimit());
+        }
+        if (query.getCollation().isPresent()) {
+            results = results.collation(query.getCollation().get().toMongoCollation());
+        }
+        return results.into(new ArrayList<>());
+    }
+}
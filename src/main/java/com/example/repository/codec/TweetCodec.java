@@ -0,0 +1,106 @@
+package com.example.repository.codec;
+
+import com.example.domain.Tweet;
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonValue;
+import org.bson.BsonWriter;
+import org.bson.codecs.CollectibleCodec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.types.ObjectId;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Codec for the tweet collection, decoding straight from BSON without reflection.
+ * <p>
+ * Documents are read and written in the same format as the Spring Data mapping, so both can be used on the
+ * same collection. The stored refs and tags are restored as is.
+ */
+public class TweetCodec implements CollectibleCodec<Tweet> {
+
+    private static final String TYPE = Tweet.class.getName();
+
+    @Override
+    public void encode(BsonWriter writer, Tweet tweet, EncoderContext encoderContext) {
+        writer.writeStartDocument();
+        if (tweet.getId() != null) {
+            CodecSupport.writeId(writer, tweet.getId());
+        }
+        CodecSupport.writeString(writer, "tweeter", tweet.getTweeter());
+        CodecSupport.writeString(writer, "content", tweet.getContent());
+        CodecSupport.writeInstant(writer, "createTime", tweet.getCreateTime());
+        CodecSupport.writeStrings(writer, "refs", tweet.getRefs());
+        CodecSupport.writeStrings(writer, "tags", tweet.getTags());
+        writer.writeString(CodecSupport.CLASS, TYPE);
+        writer.writeEndDocument();
+    }
+
+    @Override
+    public Tweet decode(BsonReader reader, DecoderContext decoderContext) {
+        Tweet tweet = new Tweet();
+        String content = null;
+        Instant createTime = null;
+        List<String> refs = Collections.emptyList();
+        List<String> tags = Collections.emptyList();
+        reader.readStartDocument();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            switch (reader.readName()) {
+                case CodecSupport.ID:
+                    tweet.setId(CodecSupport.readId(reader));
+                    break;
+                case "tweeter":
+                    tweet.setTweeter(CodecSupport.readString(reader));
+                    break;
+                case "content":
+                    content = CodecSupport.readString(reader);
+                    break;
+                case "createTime":
+                    createTime = CodecSupport.readInstant(reader);
+                    break;
+                case "refs":
+                    refs = CodecSupport.readStrings(reader);
+                    break;
+                case "tags":
+                    tags = CodecSupport.readStrings(reader);
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.readEndDocument();
+        tweet.setContent(content);
+        tweet.setCreateTime(createTime);
+        tweet.setTokens(refs, tags);
+        return tweet;
+    }
+
+    @Override
+    public Class<Tweet> getEncoderClass() {
+        return Tweet.class;
+    }
+
+    @Override
+    public Tweet generateIdIfAbsentFromDocument(Tweet tweet) {
+        if (!documentHasId(tweet)) {
+            tweet.setId(new ObjectId().toHexString());
+        }
+        return tweet;
+    }
+
+    @Override
+    public boolean documentHasId(Tweet tweet) {
+        return tweet.getId() != null;
+    }
+
+    @Override
+    public BsonValue getDocumentId(Tweet tweet) {
+        if (!documentHasId(tweet)) {
+            throw new IllegalStateException("The tweet does not contain an _id");
+        }
+        return CodecSupport.toBsonId(tweet.getId());
+    }
+}
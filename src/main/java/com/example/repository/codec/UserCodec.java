@@ -0,0 +1,172 @@
+package com.example.repository.codec;
+
+import com.example.domain.Authority;
+import com.example.domain.User;
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonValue;
+import org.bson.BsonWriter;
+import org.bson.codecs.CollectibleCodec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.types.ObjectId;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Codec for the user collection, decoding straight from BSON without reflection.
+ * <p>
+ * Documents are read and written in the same format as the Spring Data mapping, so both can be used on the
+ * same collection. Authorities are embedded documents holding only their name, as {@code _id}. The email key is
+ * written with the email, and derived from it when reading.
+ */
+public class UserCodec implements CollectibleCodec<User> {
+
+    private static final String TYPE = User.class.getName();
+
+    @Override
+    public void encode(BsonWriter writer, User user, EncoderContext encoderContext) {
+        writer.writeStartDocument();
+        if (user.getId() != null) {
+            CodecSupport.writeId(writer, user.getId());
+        }
+        CodecSupport.writeString(writer, "login", user.getLogin());
+        CodecSupport.writeString(writer, "password", user.getPassword());
+        CodecSupport.writeString(writer, "first_name", user.getFirstName());
+        CodecSupport.writeString(writer, "last_name", user.getLastName());
+        CodecSupport.writeString(writer, "email", user.getEmail());
+        CodecSupport.writeString(writer, "email_key", user.getEmailKey());
+        writer.writeBoolean("activated", user.getActivated());
+        CodecSupport.writeString(writer, "lang_key", user.getLangKey());
+        CodecSupport.writeString(writer, "image_url", user.getImageUrl());
+        CodecSupport.writeString(writer, "activation_key", user.getActivationKey());
+        CodecSupport.writeString(writer, "reset_key", user.getResetKey());
+        CodecSupport.writeInstant(writer, "reset_date", user.getResetDate());
+        writer.writeStartArray("authorities");
+        for (Authority authority : user.getAuthorities()) {
+            writer.writeStartDocument();
+            writer.writeString(CodecSupport.ID, authority.getName());
+            writer.writeEndDocument();
+        }
+        writer.writeEndArray();
+        CodecSupport.writeString(writer, "created_by", user.getCreatedBy());
+        CodecSupport.writeInstant(writer, "created_date", user.getCreatedDate());
+        CodecSupport.writeString(writer, "last_modified_by", user.getLastModifiedBy());
+        CodecSupport.writeInstant(writer, "last_modified_date", user.getLastModifiedDate());
+        writer.writeString(CodecSupport.CLASS, TYPE);
+        writer.writeEndDocument();
+    }
+
+    @Override
+    public User decode(BsonReader reader, DecoderContext decoderContext) {
+        User user = new User();
+        reader.readStartDocument();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            switch (reader.readName()) {
+                case CodecSupport.ID:
+                    user.setId(CodecSupport.readId(reader));
+                    break;
+                case "login":
+                    user.setLogin(CodecSupport.readString(reader));
+                    break;
+                case "password":
+                    user.setPassword(CodecSupport.readString(reader));
+                    break;
+                case "first_name":
+                    user.setFirstName(CodecSupport.readString(reader));
+                    break;
+                case "last_name":
+                    user.setLastName(CodecSupport.readString(reader));
+                    break;
+                case "email":
+                    // also sets the email key, which is skipped below
+                    user.setEmail(CodecSupport.readString(reader));
+                    break;
+                case "activated":
+                    user.setActivated(reader.readBoolean());
+                    break;
+                case "lang_key":
+                    user.setLangKey(CodecSupport.readString(reader));
+                    break;
+                case "image_url":
+                    user.setImageUrl(CodecSupport.readString(reader));
+                    break;
+                case "activation_key":
+                    user.setActivationKey(CodecSupport.readString(reader));
+                    break;
+                case "reset_key":
+                    user.setResetKey(CodecSupport.readString(reader));
+                    break;
+                case "reset_date":
+                    user.setResetDate(CodecSupport.readInstant(reader));
+                    break;
+                case "authorities":
+                    user.setAuthorities(readAuthorities(reader));
+                    break;
+                case "created_by":
+                    user.setCreatedBy(CodecSupport.readString(reader));
+                    break;
+                case "created_date":
+                    user.setCreatedDate(CodecSupport.readInstant(reader));
+                    break;
+                case "last_modified_by":
+                    user.setLastModifiedBy(CodecSupport.readString(reader));
+                    break;
+                case "last_modified_date":
+                    user.setLastModifiedDate(CodecSupport.readInstant(reader));
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.readEndDocument();
+        return user;
+    }
+
+    private Set<Authority> readAuthorities(BsonReader reader) {
+        Set<Authority> authorities = new HashSet<>();
+        reader.readStartArray();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            reader.readStartDocument();
+            while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+                if (CodecSupport.ID.equals(reader.readName())) {
+                    Authority authority = new Authority();
+                    authority.setName(reader.readString());
+                    authorities.add(authority);
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.readEndDocument();
+        }
+        reader.readEndArray();
+        return authorities;
+    }
+
+    @Override
+    public Class<User> getEncoderClass() {
+        return User.class;
+    }
+
+    @Override
+    public User generateIdIfAbsentFromDocument(User user) {
+        if (!documentHasId(user)) {
+            user.setId(new ObjectId().toHexString());
+        }
+        return user;
+    }
+
+    @Override
+    public boolean documentHasId(User user) {
+        return user.getId() != null;
+    }
+
+    @Override
+    public BsonValue getDocumentId(User user) {
+        if (!documentHasId(user)) {
+            throw new IllegalStateException("The user does not contain an _id");
+        }
+        return CodecSupport.toBsonId(user.getId());
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * Hand-written BSON codecs for the documents on the hot read and write paths.
+ */
+package com.example.repository.codec;
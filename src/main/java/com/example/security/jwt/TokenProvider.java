@@ -2,7 +2,12 @@ package com.example.security.jwt;
 
 import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import javax.annotation.PostConstruct;
 
@@ -16,6 +21,9 @@ import org.springframework.security.core.userdetails.User;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.github.jhipster.config.JHipsterProperties;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.io.Decoders;
@@ -28,6 +36,26 @@ public class TokenProvider {
 
     private static final String AUTHORITIES_KEY = "auth";
 
+    /**
+     * Maximum number of verified tokens kept by {@link #authenticate(String)}.
+     */
+    static final int MAX_CACHED_AUTHENTICATIONS = 10_000;
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    private final Cache<String, CachedAuthentication> authentications = Caffeine.newBuilder()
+        .maximumSize(MAX_CACHED_AUTHENTICATIONS)
+        .expireAfter(new UntilTokenExpiration())
+        .build();
+
+    private final ConcurrentMap<String, GrantedAuthority> internedAuthorities = new ConcurrentHashMap<>();
+
     private Key key;
 
     private long tokenValidityInMilliseconds;
@@ -86,21 +114,46 @@ public class TokenProvider {
             .setSigningKey(key)
             .parseClaimsJws(token)
             .getBody();
+        return toAuthentication(token, claims);
+    }
 
-        Collection<? extends GrantedAuthority> authorities =
-            Arrays.stream(claims.get(AUTHORITIES_KEY).toString().split(","))
-                .map(SimpleGrantedAuthority::new)
-                .collect(Collectors.toList());
-
-        User principal = new User(claims.getSubject(), "", authorities);
+    public boolean validateToken(String authToken) {
+        return verify(authToken) != null;
+    }
 
-        return new UsernamePasswordAuthenticationToken(principal, token, authorities);
+    /**
+     * Verify a token and build its authentication, parsing the token only once.
+     * <p>
+     * The principal and authorities of verified tokens are cached until the tokens expire, under a SHA-256 digest
+     * of the token, so that the following requests of a client only cost a digest, a hash lookup and a new
+     * authentication, which is never shared between requests. The cache holds at most
+     * {@link #MAX_CACHED_AUTHENTICATIONS} tokens, and keeps the most used ones when it is full. Invalid tokens are
+     * never cached.
+     *
+     * @param token the token
+     * @return the authentication, or an empty optional if the token is not valid
+     */
+    public Optional<Authentication> authenticate(String token) {
+        String digest = digest(token);
+        CachedAuthentication cached = authentications.getIfPresent(digest);
+        if (cached != null && cached.expiration > System.currentTimeMillis()) {
+            return Optional.of(new UsernamePasswordAuthenticationToken(cached.principal, token,
+                cached.principal.getAuthorities()));
+        }
+        Claims claims = verify(token);
+        if (claims == null) {
+            return Optional.empty();
+        }
+        User principal = toPrincipal(claims);
+        if (claims.getExpiration() != null) {
+            authentications.put(digest, new CachedAuthentication(principal, claims.getExpiration().getTime()));
+        }
+        return Optional.of(new UsernamePasswordAuthenticationToken(principal, token, principal.getAuthorities()));
     }
 
-    public boolean validateToken(String authToken) {
+    private Claims verify(String authToken) {
         try {
-            Jwts.parser().setSigningKey(key).parseClaimsJws(authToken);
-            return true;
+            return Jwts.parser().setSigningKey(key).parseClaimsJws(authToken).getBody();
         } catch (io.jsonwebtoken.security.SecurityException | MalformedJwtException e) {
             log.info("Invalid JWT signature.");
             log.trace("Invalid JWT signature trace: {}", e);
@@ -114,6 +167,62 @@ public class TokenProvider {
             log.info("JWT token compact of handler are invalid.");
             log.trace("JWT token compact of handler are invalid trace: {}", e);
         }
-        return false;
+        return null;
+    }
+
+    private Authentication toAuthentication(String token, Claims claims) {
+        User principal = toPrincipal(claims);
+        return new UsernamePasswordAuthenticationToken(principal, token, principal.getAuthorities());
+    }
+
+    private User toPrincipal(Claims claims) {
+        // the same few authorities are in every token, so their instances are shared
+        List<GrantedAuthority> authorities = Arrays.stream(claims.get(AUTHORITIES_KEY).toString().split(","))
+            .filter(authority -> !authority.isEmpty())
+            .map(authority -> internedAuthorities.computeIfAbsent(authority, SimpleGrantedAuthority::new))
+            .collect(Collectors.collectingAndThen(Collectors.toList(), Collections::unmodifiableList));
+
+        return new User(claims.getSubject(), "", authorities);
+    }
+
+    private static String digest(String token) {
+        MessageDigest digest = SHA_256.get();
+        digest.reset();
+        return Base64.getEncoder().encodeToString(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * The immutable parts of the authentication of a verified token.
+     */
+    private static final class CachedAuthentication {
+
+        private final User principal;
+
+        private final long expiration;
+
+        private CachedAuthentication(User principal, long expiration) {
+            this.principal = principal;
+            this.expiration = expiration;
+        }
+    }
+
+    private static final class UntilTokenExpiration implements Expiry<String, CachedAuthentication> {
+
+        @Override
+        public long expireAfterCreate(String digest, CachedAuthentication cached, long currentTime) {
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, cached.expiration - System.currentTimeMillis()));
+        }
+
+        @Override
+        public long expireAfterUpdate(String digest, CachedAuthentication cached, long currentTime,
+                                      long currentDuration) {
+            return expireAfterCreate(digest, cached, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String digest, CachedAuthentication cached, long currentTime,
+                                    long currentDuration) {
+            return currentDuration;
+        }
     }
 }
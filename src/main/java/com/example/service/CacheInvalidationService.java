@@ -0,0 +1,283 @@
+package com.example.service;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.example.config.ApplicationProperties;
+import com.mongodb.CursorType;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.Filters;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Evicts entries from the caches of this node, and broadcasts the evictions to the other nodes.
+ * <p>
+ * Each node has its own caches, so an entry evicted on one node only would be served stale by the others until it
+ * expires. The evictions are thus recorded, and every {@link #PUBLISH_INTERVAL_MILLIS} the keys evicted since the
+ * previous message are inserted as a single message in the {@link #COLLECTION} capped collection. Each node tails
+ * the collection and evicts the keys of the messages of the other nodes. When more than {@link #MAX_KEYS} keys are
+ * waiting, the message clears the caches instead.
+ * <p>
+ * The tail starts {@link #REPLAY_MILLIS} before the time it is opened, or before the last message read when it is
+ * reopened, as the ids of the messages are timestamped by the clock of their node, so some messages are applied
+ * twice, which is harmless. If the tail is lost and the last message read has since been overwritten, the messages
+ * that followed it may have been too, so the caches of this node are cleared.
+ */
+@Service
+public class CacheInvalidationService {
+
+    /**
+     * The capped collection of the invalidation messages, created by the migrations.
+     */
+    public static final String COLLECTION = "cache_invalidation";
+
+    static final long PUBLISH_INTERVAL_MILLIS = 100;
+
+    static final int MAX_KEYS = 10_000;
+
+    static final long REPLAY_MILLIS = 60_000;
+
+    private static final long RETRY_MILLIS = 1000;
+
+    private final Logger log = LoggerFactory.getLogger(CacheInvalidationService.class);
+
+    private final MongoTemplate mongoTemplate;
+
+    private final CacheManager cacheManager;
+
+    private final boolean enabled;
+
+    private final String node = ObjectId.get().toHexString();
+
+    private final Meter published;
+
+    private final Meter received;
+
+    private Map<String, Set<String>> pending = new HashMap<>();
+
+    private Date tailFrom;
+
+    private ObjectId lastReadId;
+
+    private volatile boolean running;
+
+    private volatile Thread tailer;
+
+    public CacheInvalidationService(MongoTemplate mongoTemplate, CacheManager cacheManager,
+                                    ApplicationProperties applicationProperties, MetricRegistry metricRegistry) {
+        this.mongoTemplate = mongoTemplate;
+        this.cacheManager = cacheManager;
+        this.enabled = applicationProperties.getCache().getInvalidation().isEnabled();
+        this.published = metricRegistry.meter("caches.invalidation.published");
+        this.received = metricRegistry.meter("caches.invalidation.received");
+    }
+
+    /**
+     * Evict a key from a cache, on all the nodes.
+     *
+     * @param cacheName the name of the cache
+     * @param key the key, ignored if null
+     */
+    public void evict(String cacheName, String key) {
+        evict(cacheName, Collections.singleton(key));
+    }
+
+    /**
+     * Evict keys from a cache, on all the nodes. The keys are evicted from the cache of this node at once, and from
+     * those of the other nodes with the next message.
+     *
+     * @param cacheName the name of the cache
+     * @param keys the keys, the null ones being ignored
+     */
+    public void evict(String cacheName, Collection<String> keys) {
+        Set<String> nonNullKeys = keys.stream().filter(Objects::nonNull).collect(Collectors.toSet());
+        if (nonNullKeys.isEmpty()) {
+            return;
+        }
+        evictLocally(Objects.requireNonNull(cacheManager.getCache(cacheName)), nonNullKeys);
+        if (enabled) {
+            synchronized (this) {
+                pending.computeIfAbsent(cacheName, name -> new HashSet<>()).addAll(nonNullKeys);
+            }
+        }
+    }
+
+    /**
+     * Publish the keys evicted since the previous message, if any. They are published again with the next message
+     * if the insert fails.
+     */
+    @Scheduled(fixedDelay = PUBLISH_INTERVAL_MILLIS)
+    public void publish() {
+        Map<String, Set<String>> evictions;
+        synchronized (this) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            evictions = pending;
+            pending = new HashMap<>();
+        }
+        boolean clear = evictions.values().stream().mapToInt(Set::size).sum() > MAX_KEYS;
+        Document caches = new Document();
+        evictions.forEach((cacheName, keys) -> caches.put(cacheName, clear ? null : new ArrayList<>(keys)));
+        try {
+            mongoTemplate.getCollection(COLLECTION).insertOne(new Document("node", node).append("caches", caches));
+            published.mark();
+        } catch (RuntimeException e) {
+            log.warn("Could not publish the cache invalidations: {}", e.getMessage());
+            synchronized (this) {
+                evictions.forEach((cacheName, keys) ->
+                    pending.computeIfAbsent(cacheName, name -> new HashSet<>()).addAll(keys));
+            }
+        }
+    }
+
+    /**
+     * Start tailing the messages of the other nodes, once the migrations have created the collection.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (enabled) {
+            running = true;
+            tailer = new Thread(this::run, "twitster-cache-invalidation");
+            tailer.setDaemon(true);
+            tailer.start();
+        }
+    }
+
+    /**
+     * Stop tailing, and publish the last evictions of this node.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        Thread thread = tailer;
+        if (thread != null) {
+            running = false;
+            thread.join(TimeUnit.SECONDS.toMillis(10));
+        }
+        publish();
+    }
+
+    private void run() {
+        tailFrom = new Date(System.currentTimeMillis() - REPLAY_MILLIS);
+        boolean reopened = false;
+        while (running) {
+            try {
+                if (!reopened) {
+                    lastReadId = findNewestId();
+                } else if (isOverwritten(lastReadId)) {
+                    log.warn("Cache invalidations may have been missed, clearing the caches");
+                    cacheManager.getCacheNames().forEach(cacheName ->
+                        Objects.requireNonNull(cacheManager.getCache(cacheName)).clear());
+                }
+                tail();
+            } catch (RuntimeException e) {
+                log.warn("Could not read the cache invalidations: {}", e.getMessage());
+            }
+            reopened = true;
+            try {
+                // the tail ends when the collection is empty, or after an error
+                Thread.sleep(RETRY_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void tail() {
+        try (MongoCursor<Document> cursor = mongoTemplate.getCollection(COLLECTION)
+            .find(Filters.gte("_id", new ObjectId(tailFrom)))
+            .cursorType(CursorType.TailableAwait)
+            .maxAwaitTime(1, TimeUnit.SECONDS)
+            .noCursorTimeout(true)
+            .iterator()) {
+            while (running) {
+                Document message = cursor.tryNext();
+                if (message != null) {
+                    apply(message);
+                    lastReadId = message.getObjectId("_id");
+                    Date sent = new Date(message.getObjectId("_id").getDate().getTime() - REPLAY_MILLIS);
+                    if (sent.after(tailFrom)) {
+                        tailFrom = sent;
+                    }
+                } else if (cursor.getServerCursor() == null) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the id of the last message inserted, or null if there is none
+     */
+    private ObjectId findNewestId() {
+        Document newest = mongoTemplate.getCollection(COLLECTION).find()
+            .sort(new Document("$natural", -1))
+            .projection(new Document("_id", 1))
+            .first();
+        return newest == null ? null : newest.getObjectId("_id");
+    }
+
+    /**
+     * @return true if the message of the given id is no longer in the collection, so the messages inserted after
+     * it may have been overwritten too
+     */
+    private boolean isOverwritten(ObjectId id) {
+        // the oldest messages are overwritten first, in insertion order, whatever the clocks of their nodes
+        return id != null && mongoTemplate.getCollection(COLLECTION).find(Filters.eq("_id", id))
+            .projection(new Document("_id", 1))
+            .first() == null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void apply(Document message) {
+        Document caches = message.get("caches", Document.class);
+        if (caches == null || node.equals(message.getString("node"))) {
+            return;
+        }
+        received.mark();
+        caches.forEach((cacheName, keys) -> {
+            Cache cache = cacheManager.getCache(cacheName);
+            if (cache == null) {
+                log.debug("Ignoring the invalidations of unknown cache {}", cacheName);
+            } else if (keys == null) {
+                cache.clear();
+            } else {
+                evictLocally(cache, new HashSet<>((List<String>) keys));
+            }
+        });
+    }
+
+    private static void evictLocally(Cache cache, Set<String> keys) {
+        if (cache.getNativeCache() instanceof javax.cache.Cache) {
+            @SuppressWarnings("unchecked")
+            javax.cache.Cache<Object, Object> nativeCache = (javax.cache.Cache<Object, Object>) cache.getNativeCache();
+            nativeCache.removeAll(keys);
+        } else {
+            keys.forEach(cache::evict);
+        }
+    }
+}
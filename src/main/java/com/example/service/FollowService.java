@@ -0,0 +1,123 @@
+package com.example.service;
+
+import com.example.domain.Follow;
+import com.example.repository.FollowRepository;
+import com.example.web.rest.errors.BadRequestAlertException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+
+/**
+ * Service for managing the follow graph.
+ */
+@Service
+public class FollowService {
+
+    private static final String ENTITY_NAME = "follow";
+
+    private final Logger log = LoggerFactory.getLogger(FollowService.class);
+
+    private final FollowRepository followRepository;
+
+    private final LoginIndex loginIndex;
+
+    private final TimelineService timelineService;
+
+    private final HotAuthorService hotAuthorService;
+
+    private final TimelineStreamService timelineStreamService;
+
+    private final TimelineSyncService timelineSyncService;
+
+    private final CacheInvalidationService cacheInvalidationService;
+
+    public FollowService(FollowRepository followRepository, LoginIndex loginIndex, TimelineService timelineService,
+                         HotAuthorService hotAuthorService, TimelineStreamService timelineStreamService,
+                         TimelineSyncService timelineSyncService, CacheInvalidationService cacheInvalidationService) {
+        this.followRepository = followRepository;
+        this.loginIndex = loginIndex;
+        this.timelineService = timelineService;
+        this.hotAuthorService = hotAuthorService;
+        this.timelineStreamService = timelineStreamService;
+        this.timelineSyncService = timelineSyncService;
+        this.cacheInvalidationService = cacheInvalidationService;
+    }
+
+    /**
+     * Make a user follow another one, and backfill the follower's timeline with the followee's recent tweets.
+     * <p>
+     * Following an account twice is a no-op.
+     *
+     * @param follower the login of the follower
+     * @param followee the login of the account to follow
+     * @return the follow relationship
+     */
+    public Follow follow(String follower, String followee) {
+        log.debug("Request for {} to follow {}", follower, followee);
+        if (follower.equals(followee)) {
+            throw new BadRequestAlertException("A user cannot follow themselves", ENTITY_NAME, "followself");
+        }
+        if (!loginIndex.exists(followee)) {
+            throw new BadRequestAlertException("Unknown user", ENTITY_NAME, "followeeunknown");
+        }
+        return followRepository.findOneByFollowerAndFollowee(follower, followee)
+            .orElseGet(() -> {
+                Follow follow = followRepository.save(new Follow().follower(follower).followee(followee));
+                clearFollowCaches(follower);
+                hotAuthorService.followerAdded(followee);
+                timelineService.backfill(follower, followee);
+                timelineStreamService.followed(follower, followee);
+                timelineSyncService.reset(follower);
+                return follow;
+            });
+    }
+
+    /**
+     * Make a user stop following another one, and remove the followee's tweets from the follower's timeline.
+     *
+     * @param follower the login of the follower
+     * @param followee the login of the account to unfollow
+     */
+    public void unfollow(String follower, String followee) {
+        log.debug("Request for {} to unfollow {}", follower, followee);
+        if (followRepository.deleteByFollowerAndFollowee(follower, followee) > 0) {
+            clearFollowCaches(follower);
+            timelineService.prune(follower, followee);
+            timelineStreamService.unfollowed(follower, followee);
+            timelineSyncService.reset(follower);
+            hotAuthorService.followerRemoved(followee);
+        }
+    }
+
+    /**
+     * Get the accounts followed by a user.
+     *
+     * @param login the login of the follower
+     * @param pageable the pagination information
+     * @return the page of follow relationships
+     */
+    public Page<Follow> getFollowing(String login, Pageable pageable) {
+        return followRepository.findAllByFollower(login, pageable);
+    }
+
+    /**
+     * Get the followers of a user.
+     *
+     * @param login the login of the followed account
+     * @param pageable the pagination information
+     * @return the page of follow relationships
+     */
+    public Page<Follow> getFollowers(String login, Pageable pageable) {
+        return followRepository.findAllByFollowee(login, pageable);
+    }
+
+    /**
+     * Evict the accounts followed by a user from the caches of all the nodes, which read them for the timelines,
+     * the streams and the syncs of the user.
+     */
+    private void clearFollowCaches(String follower) {
+        cacheInvalidationService.evict(FollowRepository.FOLLOWS_BY_FOLLOWER_CACHE, follower);
+    }
+}
@@ -0,0 +1,287 @@
+package com.example.service;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.example.config.ApplicationProperties;
+import com.example.domain.Tweet;
+import com.example.repository.FollowRepository;
+import com.example.service.event.AuthorDemotedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Classifies tweeters for the hybrid timeline delivery.
+ * <p>
+ * An author with at least {@code hot-author-follower-threshold} followers is "hot": their tweets are not pushed
+ * into follower timelines, but merged at read time. An author is only demoted once their follower count falls
+ * under 90% of the threshold, so that an author hovering around it does not flip at every follow.
+ * <p>
+ * Follower counts are read from MongoDB the first time an author tweets or is followed, then kept up to date in
+ * memory. As followers may also come and go through the other nodes, the counts of the authors that are hot or
+ * close to the threshold are read again every minute, and the authors are promoted or demoted accordingly. A
+ * demotion publishes an {@link AuthorDemotedEvent}. The timeline read rate of each author is tracked as well, to
+ * help tune the threshold.
+ */
+@Service
+public class HotAuthorService {
+
+    private static final double DEMOTION_RATIO = 0.9;
+
+    private static final int REPORTED_HOT_AUTHORS = 100;
+
+    private static final long READ_RATE_INTERVAL_SECONDS = 60;
+
+    private static final long IDLE_NANOS = TimeUnit.HOURS.toNanos(1);
+
+    private final Logger log = LoggerFactory.getLogger(HotAuthorService.class);
+
+    private final FollowRepository followRepository;
+
+    private final MongoTemplate mongoTemplate;
+
+    private final ApplicationProperties.Timeline timelineProperties;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final ConcurrentMap<String, AuthorStats> authors = new ConcurrentHashMap<>();
+
+    private final Meter pushed;
+
+    private final Meter pulled;
+
+    public HotAuthorService(FollowRepository followRepository, MongoTemplate mongoTemplate,
+                            ApplicationProperties applicationProperties, ApplicationEventPublisher eventPublisher,
+                            MetricRegistry metricRegistry) {
+        this.followRepository = followRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.timelineProperties = applicationProperties.getTimeline();
+        this.eventPublisher = eventPublisher;
+        this.pushed = metricRegistry.meter("timeline.hybrid.pushed");
+        this.pulled = metricRegistry.meter("timeline.hybrid.pulled");
+        metricRegistry.register("timeline.hybrid.follower-threshold",
+            (Gauge<Integer>) timelineProperties::getHotAuthorFollowerThreshold);
+        metricRegistry.register("timeline.hybrid.hot-authors",
+            (Gauge<Long>) () -> authors.values().stream().filter(stats -> stats.hot).count());
+        metricRegistry.register("timeline.hybrid.hot-author-stats",
+            (Gauge<Map<String, String>>) this::getHotAuthorStats);
+    }
+
+    /**
+     * Load the authors that are already over the threshold, so that their followers' reads merge them right away.
+     * <p>
+     * This aggregates the whole follow collection, so it runs on the async executor once the application is up.
+     */
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadHotAuthors() {
+        Aggregation aggregation = Aggregation.newAggregation(
+            Aggregation.group("followee").count().as("followers"),
+            Aggregation.match(Criteria.where("followers").gte(timelineProperties.getHotAuthorFollowerThreshold())));
+        List<FollowerCount> counts = mongoTemplate.aggregate(aggregation, "follow", FollowerCount.class).getMappedResults();
+        counts.forEach(count -> authors.computeIfAbsent(count.id, AuthorStats::new).setFollowers(count.followers));
+        log.info("Loaded {} hot authors", counts.size());
+    }
+
+    /**
+     * @param author the login of the author
+     * @return true if the tweets of this author are merged at read time rather than pushed
+     */
+    public boolean isHot(String author) {
+        AuthorStats stats = authors.get(author);
+        return stats != null && stats.hot;
+    }
+
+    /**
+     * Decide how a new tweet is delivered, and record the decision in the push/pull meters.
+     *
+     * @param author the login of the author of the tweet
+     * @return true if the tweet must be pushed into follower timelines, false if it is merged at read time
+     */
+    public boolean shouldPush(String author) {
+        AuthorStats stats = getStats(author);
+        if (stats.hot) {
+            pulled.mark();
+            return false;
+        }
+        pushed.mark();
+        return true;
+    }
+
+    /**
+     * Record a new follower for an author.
+     *
+     * @param author the login of the followed author
+     */
+    public void followerAdded(String author) {
+        AuthorStats stats = authors.get(author);
+        if (stats != null) {
+            stats.addFollowers(1);
+        }
+    }
+
+    /**
+     * Record a lost follower for an author, who is demoted if their count falls under the demotion ratio.
+     *
+     * @param author the login of the unfollowed author
+     */
+    public void followerRemoved(String author) {
+        AuthorStats stats = authors.get(author);
+        if (stats != null && stats.addFollowers(-1)) {
+            demoted(stats);
+        }
+    }
+
+    /**
+     * Record that tweets have been read in a timeline, to compute the read rate of their authors.
+     *
+     * @param tweets the tweets of the page that was read
+     */
+    public void recordReads(List<Tweet> tweets) {
+        long now = System.nanoTime();
+        for (Tweet tweet : tweets) {
+            AuthorStats stats = authors.computeIfAbsent(tweet.getTweeter(), AuthorStats::new);
+            stats.reads.increment();
+            stats.lastAccess = now;
+        }
+    }
+
+    /**
+     * Refresh the read rates and the follower counts of the authors that are hot or close to the threshold, and
+     * forget about the authors that are neither hot nor active any more.
+     */
+    @Scheduled(fixedRate = READ_RATE_INTERVAL_SECONDS * 1000)
+    public void updateStats() {
+        long now = System.nanoTime();
+        authors.values().forEach(stats -> stats.readRate = (double) stats.reads.sumThenReset() / READ_RATE_INTERVAL_SECONDS);
+        authors.entrySet().removeIf(entry -> !entry.getValue().hot && now - entry.getValue().lastAccess > IDLE_NANOS);
+        refreshFollowerCounts();
+    }
+
+    private void refreshFollowerCounts() {
+        double demotionThreshold = timelineProperties.getHotAuthorFollowerThreshold() * DEMOTION_RATIO;
+        List<String> candidates = authors.values().stream()
+            .filter(stats -> stats.hot || stats.followers >= demotionThreshold)
+            .map(stats -> stats.author)
+            .collect(Collectors.toList());
+        if (candidates.isEmpty()) {
+            return;
+        }
+        Aggregation aggregation = Aggregation.newAggregation(
+            Aggregation.match(Criteria.where("followee").in(candidates)),
+            Aggregation.group("followee").count().as("followers"));
+        Map<String, Long> counts = new HashMap<>();
+        mongoTemplate.aggregate(aggregation, "follow", FollowerCount.class).getMappedResults()
+            .forEach(count -> counts.put(count.id, count.followers));
+        for (String author : candidates) {
+            AuthorStats stats = authors.get(author);
+            // the authors without any follower left are not in the results
+            if (stats != null && stats.setFollowers(counts.getOrDefault(author, 0L))) {
+                demoted(stats);
+            }
+        }
+    }
+
+    private void demoted(AuthorStats stats) {
+        eventPublisher.publishEvent(new AuthorDemotedEvent(stats.author));
+    }
+
+    private AuthorStats getStats(String author) {
+        AuthorStats stats = authors.computeIfAbsent(author, AuthorStats::new);
+        stats.lastAccess = System.nanoTime();
+        if (stats.followers < 0) {
+            long followers = followRepository.countByFollowee(author);
+            synchronized (stats) {
+                if (stats.followers < 0) {
+                    stats.setFollowers(followers);
+                }
+            }
+        }
+        return stats;
+    }
+
+    private Map<String, String> getHotAuthorStats() {
+        return authors.values().stream()
+            .filter(stats -> stats.hot)
+            .sorted(Comparator.comparingLong((AuthorStats stats) -> stats.followers).reversed())
+            .limit(REPORTED_HOT_AUTHORS)
+            .collect(Collectors.toMap(stats -> stats.author,
+                stats -> String.format("followers=%d, reads/s=%.2f", stats.followers, stats.readRate),
+                (left, right) -> left, LinkedHashMap::new));
+    }
+
+    /**
+     * Result of the follower count aggregation.
+     */
+    private static class FollowerCount {
+
+        private String id;
+
+        private long followers;
+    }
+
+    private final class AuthorStats {
+
+        private final String author;
+
+        private volatile long followers = -1;
+
+        private volatile boolean hot;
+
+        private final LongAdder reads = new LongAdder();
+
+        private volatile double readRate;
+
+        private volatile long lastAccess = System.nanoTime();
+
+        private AuthorStats(String author) {
+            this.author = author;
+        }
+
+        /**
+         * @return true if the author has been demoted
+         */
+        private synchronized boolean setFollowers(long followers) {
+            this.followers = followers;
+            int threshold = timelineProperties.getHotAuthorFollowerThreshold();
+            if (followers >= threshold && !hot) {
+                hot = true;
+                log.info("Author {} is now hot, with {} followers", author, followers);
+            } else if (followers < threshold * DEMOTION_RATIO && hot) {
+                hot = false;
+                log.info("Author {} is not hot any more, with {} followers", author, followers);
+                return true;
+            }
+            return false;
+        }
+
+        /**
+         * Apply a follower count change, if the count has been loaded: otherwise it is read from MongoDB later.
+         *
+         * @return true if the author has been demoted
+         */
+        private synchronized boolean addFollowers(long delta) {
+            return followers >= 0 && setFollowers(followers + delta);
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package com.example.service;
+
+import com.example.domain.TagBucket;
+import com.example.domain.TimelineEntry;
+import com.example.domain.Tweet;
+import com.example.repository.TweetRepositoryCustom;
+import com.example.service.dto.QueryPlanDTO;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationContext;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mapping.PropertyPath;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.QueryMapper;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.repository.core.RepositoryInformation;
+import org.springframework.data.repository.query.parser.Part;
+import org.springframework.data.repository.query.parser.PartTree;
+import org.springframework.data.repository.support.Repositories;
+import org.springframework.stereotype.Service;
+
+import java.lang.reflect.Method;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Checks that the queries of the MongoDB repositories are served by an index.
+ * <p>
+ * The derived query methods of every repository are turned back into a filter and a sort, with placeholder
+ * values, and run through the {@code explain} command. The custom queries that cannot be derived from a method
+ * name are declared here. Any plan with a collection scan ({@code COLLSCAN}) or a blocking in-memory
+ * {@code SORT} is flagged.
+ */
+@Service
+public class IndexAdvisorService {
+
+    private static final String COLLECTION_SCAN = "COLLSCAN";
+
+    private static final String IN_MEMORY_SORT = "SORT";
+
+    private final Logger log = LoggerFactory.getLogger(IndexAdvisorService.class);
+
+    private final ApplicationContext applicationContext;
+
+    private final MongoTemplate mongoTemplate;
+
+    private final QueryMapper queryMapper;
+
+    public IndexAdvisorService(ApplicationContext applicationContext, MongoTemplate mongoTemplate) {
+        this.applicationContext = applicationContext;
+        this.mongoTemplate = mongoTemplate;
+        this.queryMapper = new QueryMapper(mongoTemplate.getConverter());
+    }
+
+    /**
+     * Explain all repository queries.
+     *
+     * @return the query plans, the flagged ones first
+     */
+    public List<QueryPlanDTO> explainAll() {
+        List<QueryPlanDTO> plans = new ArrayList<>();
+        Repositories repositories = new Repositories(applicationContext);
+        for (Class<?> domainType : repositories) {
+            repositories.getRepositoryInformationFor(domainType).ifPresent(information -> {
+                String repository = information.getRepositoryInterface().getSimpleName();
+                information.getQueryMethods().forEach(method -> plans.add(explainQueryMethod(repository, information, method)));
+            });
+        }
+        plans.addAll(explainCustomQueries());
+        plans.sort(Comparator.comparing((QueryPlanDTO plan) -> plan.getWarnings().isEmpty())
+            .thenComparing(QueryPlanDTO::getRepository)
+            .thenComparing(QueryPlanDTO::getMethod));
+        return plans;
+    }
+
+    private QueryPlanDTO explainQueryMethod(String repository, RepositoryInformation information, Method method) {
+        String signature = method.getName() + Arrays.stream(method.getParameterTypes())
+            .map(Class::getSimpleName)
+            .collect(Collectors.joining(", ", "(", ")"));
+        QueryPlanDTO plan = new QueryPlanDTO(repository, signature);
+        if (method.isAnnotationPresent(org.springframework.data.mongodb.repository.Query.class)) {
+            plan.getWarnings().add("String-based query, not checked");
+            return plan;
+        }
+        Class<?> domainType = information.getDomainType();
+        try {
+            PartTree tree = new PartTree(method.getName(), domainType);
+            List<Criteria> orCriteria = new ArrayList<>();
+            for (PartTree.OrPart orPart : tree) {
+                Criteria criteria = new Criteria();
+                for (Part part : orPart) {
+                    criteria = toCriteria(criteria, part);
+                }
+                orCriteria.add(criteria);
+            }
+            Query query = orCriteria.size() == 1 ?
+                new Query(orCriteria.get(0)) :
+                new Query(new Criteria().orOperator(orCriteria.toArray(new Criteria[0])));
+            query.with(tree.getSort());
+            explain(plan, domainType, query);
+        } catch (RuntimeException e) {
+            log.debug("Could not explain {}.{}: {}", repository, method.getName(), e.getMessage());
+            plan.getWarnings().add("Not checked: " + e.getMessage());
+        }
+        return plan;
+    }
+
+    /**
+     * Queries built with the {@link MongoTemplate}, with the same filter and sort as their implementation.
+     */
+    private List<QueryPlanDTO> explainCustomQueries() {
+        Instant now = Instant.now();
+        List<QueryPlanDTO> plans = new ArrayList<>();
+
+        QueryPlanDTO allTweets = new QueryPlanDTO("TweetRepository", "findAllBefore(all)");
+        explain(allTweets, Tweet.class, keyset(new Query(), now, "id")
+            .with(Sort.by(Sort.Direction.DESC, "createTime", "id")));
+        plans.add(allTweets);
+
+        QueryPlanDTO someTweets = new QueryPlanDTO("TweetRepository", "findAllBefore(tweeters)");
+        explain(someTweets, Tweet.class, keyset(Query.query(Criteria.where("tweeter").in("a", "b")), now, "id")
+            .with(Sort.by(Sort.Direction.DESC, "createTime", "id")));
+        plans.add(someTweets);
+
+        QueryPlanDTO mentions = new QueryPlanDTO("TweetRepository", "findAllMentioningBefore");
+        explain(mentions, Tweet.class, keyset(Query.query(Criteria.where("refs").is("a")), now, "id")
+            .collation(TweetRepositoryCustom.REFS_COLLATION)
+            .with(Sort.by(Sort.Direction.DESC, "createTime", "id")));
+        plans.add(mentions);
+
+        QueryPlanDTO timeline = new QueryPlanDTO("TimelineService", "findEntriesBefore");
+        explain(timeline, TimelineEntry.class, keyset(Query.query(Criteria.where("owner").is("a")), now, "tweetId")
+            .with(Sort.by(Sort.Direction.DESC, "createTime", "tweetId")));
+        plans.add(timeline);
+
+        QueryPlanDTO tagBuckets = new QueryPlanDTO("TagBucketRepository", "findEntriesBefore");
+        explain(tagBuckets, TagBucket.class, Query.query(Criteria.where("tag").is("a"))
+            .addCriteria(Criteria.where("hour").lte(TagBucket.hourOf(now)).and("minCreateTime").lte(now))
+            .with(Sort.by(Sort.Direction.DESC, "hour", "maxCreateTime")));
+        plans.add(tagBuckets);
+        return plans;
+    }
+
+    private Query keyset(Query query, Instant createTime, String idProperty) {
+        return query
+            .addCriteria(Criteria.where("createTime").lte(createTime))
+            .addCriteria(new Criteria().orOperator(
+                Criteria.where("createTime").lt(createTime),
+                Criteria.where(idProperty).lt("")));
+    }
+
+    /**
+     * Add the condition of a method name part, with a placeholder value of the property type.
+     */
+    private Criteria toCriteria(Criteria criteria, Part part) {
+        PropertyPath path = part.getProperty();
+        Criteria where = criteria.and(path.toDotPath());
+        Object value = sampleValue(path.getLeafProperty().getType());
+        switch (part.getType()) {
+            case SIMPLE_PROPERTY:
+                if (part.shouldIgnoreCase() != Part.IgnoreCaseType.NEVER && value instanceof String) {
+                    // case insensitive equality is a regular expression, as in the repository implementation
+                    return where.regex("^" + Pattern.quote((String) value) + "$", "i");
+                }
+                return where.is(value);
+            case NEGATING_SIMPLE_PROPERTY:
+                return where.ne(value);
+            case LESS_THAN:
+            case BEFORE:
+                return where.lt(value);
+            case LESS_THAN_EQUAL:
+                return where.lte(value);
+            case GREATER_THAN:
+            case AFTER:
+                return where.gt(value);
+            case GREATER_THAN_EQUAL:
+                return where.gte(value);
+            case BETWEEN:
+                return where.gt(value).lt(value);
+            case IN:
+                return where.in(value, value);
+            case NOT_IN:
+                return where.nin(value, value);
+            case IS_NULL:
+                return where.is(null);
+            case IS_NOT_NULL:
+                return where.ne(null);
+            case TRUE:
+                return where.is(true);
+            case FALSE:
+                return where.is(false);
+            case EXISTS:
+                return where.exists(true);
+            default:
+                throw new IllegalArgumentException("Unsupported keyword " + part.getType());
+        }
+    }
+
+    private Object sampleValue(Class<?> type) {
+        if (String.class.equals(type) || Collection.class.isAssignableFrom(type)) {
+            return "";
+        }
+        if (Instant.class.equals(type)) {
+            return Instant.EPOCH;
+        }
+        if (Boolean.class.equals(type) || boolean.class.equals(type)) {
+            return true;
+        }
+        if (Number.class.isAssignableFrom(type) || type.isPrimitive()) {
+            return 0;
+        }
+        return null;
+    }
+
+    private void explain(QueryPlanDTO plan, Class<?> domainType, Query query) {
+        MongoPersistentEntity<?> entity = mongoTemplate.getConverter().getMappingContext().getRequiredPersistentEntity(domainType);
+        Document filter = queryMapper.getMappedObject(query.getQueryObject(), entity);
+        Document sort = queryMapper.getMappedSort(query.getSortObject(), entity);
+        plan.setCollection(entity.getCollection());
+        plan.setFilter(filter.toJson());
+        plan.setSort(sort.toJson());
+        Document find = new Document("find", entity.getCollection()).append("filter", filter);
+        if (!sort.isEmpty()) {
+            find.append("sort", sort);
+        }
+        query.getCollation().ifPresent(collation -> find.append("collation", collation.toDocument()));
+        Document explain = mongoTemplate.getDb().runCommand(new Document("explain", find).append("verbosity", "queryPlanner"));
+        Document queryPlanner = explain.get("queryPlanner", Document.class);
+        collectStages(queryPlanner.get("winningPlan", Document.class), plan);
+        if (plan.getStages().contains(COLLECTION_SCAN)) {
+            plan.getWarnings().add("Collection scan");
+        }
+        if (plan.getStages().contains(IN_MEMORY_SORT)) {
+            plan.getWarnings().add("In-memory sort");
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void collectStages(Document stage, QueryPlanDTO plan) {
+        if (stage == null) {
+            return;
+        }
+        plan.getStages().add(stage.getString("stage"));
+        if (stage.containsKey("indexName")) {
+            plan.getIndexes().add(stage.getString("indexName"));
+        }
+        collectStages(stage.get("inputStage", Document.class), plan);
+        List<Document> inputStages = (List<Document>) stage.get("inputStages");
+        if (inputStages != null) {
+            inputStages.forEach(inputStage -> collectStages(inputStage, plan));
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package com.example.service;
+
+import com.carrotsearch.hppc.LongArrayList;
+import com.carrotsearch.hppc.LongHashSet;
+import com.carrotsearch.hppc.cursors.LongCursor;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.example.domain.User;
+import com.example.repository.UserRepository;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.util.CloseableIterator;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Compact in-memory set of the logins of the activated users, to check that accounts exist without reading them.
+ * <p>
+ * Logins are kept as 64-bit hashes in a sorted {@code long[]}: 8 bytes per account, so 8 MB for a million
+ * accounts, and a lookup is a binary search. Two logins share a hash with a probability of about
+ * {@code accounts / 2^64}, which is negligible. The logins added or removed since the array was built are kept
+ * in small hash sets, and merged into a new array once there are more than {@link #MAX_CHANGES}. The array and
+ * the sets are never modified once published, so lookups take no lock.
+ * <p>
+ * The index is built once the application is up and rebuilt every hour, and is kept current by the
+ * {@link UserService} of this node only. A login missing from the index is therefore looked up in MongoDB before
+ * being reported as unknown, and added to the index if it exists. Logins are matched exactly, as they are stored:
+ * in lower case.
+ */
+@Service
+public class LoginIndex {
+
+    static final int MAX_CHANGES = 4096;
+
+    private final Logger log = LoggerFactory.getLogger(LoginIndex.class);
+
+    private final UserRepository userRepository;
+
+    private final MongoTemplate mongoTemplate;
+
+    private final Meter misses;
+
+    private volatile Snapshot snapshot = new Snapshot(new long[0], new LongHashSet(), new LongHashSet());
+
+    public LoginIndex(UserRepository userRepository, MongoTemplate mongoTemplate, MetricRegistry metricRegistry) {
+        this.userRepository = userRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.misses = metricRegistry.meter("users.login-index.misses");
+        metricRegistry.register("users.login-index.size", (Gauge<Integer>) () -> snapshot.logins.length);
+    }
+
+    /**
+     * Read the logins of all the activated users.
+     * <p>
+     * Until this is done, the logins are looked up in MongoDB, so it runs on the async executor once the
+     * application is up, and again every hour to forget the users deleted by other nodes.
+     */
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "0 0 * * * ?")
+    public void rebuild() {
+        Query query = new Query(where("activated").is(true));
+        query.fields().include("login").exclude("_id");
+        LongArrayList hashes = new LongArrayList();
+        try (CloseableIterator<Document> users = mongoTemplate.stream(query, Document.class,
+            mongoTemplate.getCollectionName(User.class))) {
+            users.forEachRemaining(user -> hashes.add(hash(user.getString("login"))));
+        }
+        long[] logins = sortedUnique(hashes);
+        synchronized (this) {
+            // the changes made while the users were read are kept, until the next merge
+            snapshot = new Snapshot(logins, snapshot.added, snapshot.removed);
+        }
+        log.info("Indexed {} logins", logins.length);
+    }
+
+    /**
+     * @param login a login
+     * @return true if it belongs to an activated user
+     */
+    public boolean exists(String login) {
+        return login != null && !retainExisting(Collections.singleton(login)).isEmpty();
+    }
+
+    /**
+     * Find which of the given logins belong to an activated user. The logins missing from the index are looked up
+     * in MongoDB, with a single query.
+     *
+     * @param logins the logins
+     * @return the given logins that belong to an activated user
+     */
+    public Set<String> retainExisting(Collection<String> logins) {
+        Snapshot current = snapshot;
+        Set<String> existing = new HashSet<>();
+        Set<String> unknown = new HashSet<>();
+        for (String login : logins) {
+            if (login != null) {
+                (current.contains(hash(login)) ? existing : unknown).add(login);
+            }
+        }
+        if (!unknown.isEmpty()) {
+            misses.mark(unknown.size());
+            Set<String> found = userRepository.findActivatedLogins(unknown);
+            found.forEach(this::add);
+            existing.addAll(found);
+        }
+        return existing;
+    }
+
+    /**
+     * Find which of the given logins are in the index, without looking up the others in MongoDB. The users
+     * activated on other nodes since the index was built are left out, until it is rebuilt or they are looked up.
+     *
+     * @param logins the logins
+     * @return the given logins that belong to an activated user known to the index
+     */
+    public Set<String> retainIndexed(Collection<String> logins) {
+        Snapshot current = snapshot;
+        Set<String> indexed = new HashSet<>();
+        for (String login : logins) {
+            if (login != null && current.contains(hash(login))) {
+                indexed.add(login);
+            }
+        }
+        return indexed;
+    }
+
+    /**
+     * Record an activated user.
+     *
+     * @param login the login of the user
+     */
+    public synchronized void add(String login) {
+        long hash = hash(login);
+        LongHashSet added = new LongHashSet(snapshot.added);
+        LongHashSet removed = new LongHashSet(snapshot.removed);
+        added.add(hash);
+        removed.remove(hash);
+        publish(snapshot.logins, added, removed);
+    }
+
+    /**
+     * Record a deleted or deactivated user.
+     *
+     * @param login the login of the user
+     */
+    public synchronized void remove(String login) {
+        long hash = hash(login);
+        LongHashSet added = new LongHashSet(snapshot.added);
+        LongHashSet removed = new LongHashSet(snapshot.removed);
+        added.remove(hash);
+        removed.add(hash);
+        publish(snapshot.logins, added, removed);
+    }
+
+    private void publish(long[] logins, LongHashSet added, LongHashSet removed) {
+        if (added.size() + removed.size() <= MAX_CHANGES) {
+            snapshot = new Snapshot(logins, added, removed);
+            return;
+        }
+        LongArrayList merged = new LongArrayList(logins.length + added.size());
+        for (long login : logins) {
+            if (!removed.contains(login)) {
+                merged.add(login);
+            }
+        }
+        for (LongCursor cursor : added) {
+            merged.add(cursor.value);
+        }
+        snapshot = new Snapshot(sortedUnique(merged), new LongHashSet(), new LongHashSet());
+    }
+
+    private static long[] sortedUnique(LongArrayList hashes) {
+        long[] sorted = hashes.toArray();
+        Arrays.sort(sorted);
+        int size = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (size == 0 || sorted[i] != sorted[size - 1]) {
+                sorted[size++] = sorted[i];
+            }
+        }
+        return size == sorted.length ? sorted : Arrays.copyOf(sorted, size);
+    }
+
+    /**
+     * 64-bit FNV-1a hash, with the finalizer of MurmurHash3 so that the last characters reach all the bits.
+     */
+    static long hash(String login) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < login.length(); i++) {
+            hash ^= login.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    private static final class Snapshot {
+
+        private final long[] logins;
+
+        private final LongHashSet added;
+
+        private final LongHashSet removed;
+
+        private Snapshot(long[] logins, LongHashSet added, LongHashSet removed) {
+            this.logins = logins;
+            this.added = added;
+            this.removed = removed;
+        }
+
+        private boolean contains(long hash) {
+            return !removed.contains(hash) && (added.contains(hash) || Arrays.binarySearch(logins, hash) >= 0);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.service;
+
+import com.example.domain.Tweet;
+import com.example.domain.User;
+import com.example.repository.UserRepository;
+import com.example.service.dto.MentionDTO;
+import com.example.service.dto.TweetDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.support.NullValue;
+import org.springframework.stereotype.Service;
+
+import javax.cache.processor.EntryProcessorResult;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Resolves the users mentioned in a page of tweets, so that clients can render the links to their profiles
+ * without looking them up one by one.
+ * <p>
+ * The refs of the whole page are deduplicated, and those missing from the {@link LoginIndex} are left out at once,
+ * so that mentions of unknown or not activated users cost neither a cache miss nor a query. The others are looked
+ * up in the {@link UserRepository#USERS_BY_LOGIN_CACHE} cache, and the remaining ones are read with a single query.
+ * The cache is only peeked at, so that a read-through cache does not load the missing users one by one. Refs are
+ * matched whatever their case, as the mentions are.
+ */
+@Service
+public class MentionResolver {
+
+    private final Logger log = LoggerFactory.getLogger(MentionResolver.class);
+
+    private final UserRepository userRepository;
+
+    private final CacheManager cacheManager;
+
+    private final LoginIndex loginIndex;
+
+    public MentionResolver(UserRepository userRepository, CacheManager cacheManager, LoginIndex loginIndex) {
+        this.userRepository = userRepository;
+        this.cacheManager = cacheManager;
+        this.loginIndex = loginIndex;
+    }
+
+    /**
+     * @param tweets a page of tweets
+     * @return the tweets with the users they mention, in the same order
+     */
+    public List<TweetDTO> resolve(List<Tweet> tweets) {
+        Set<String> logins = tweets.stream()
+            .flatMap(tweet -> tweet.getRefs().stream())
+            .map(MentionResolver::normalize)
+            .collect(Collectors.toSet());
+        Map<String, MentionDTO> mentions = findMentions(loginIndex.retainIndexed(logins));
+        return tweets.stream()
+            .map(tweet -> new TweetDTO(tweet, tweet.getRefs().stream()
+                .map(MentionResolver::normalize)
+                .distinct()
+                .map(mentions::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList())))
+            .collect(Collectors.toList());
+    }
+
+    private Map<String, MentionDTO> findMentions(Set<String> logins) {
+        Map<String, MentionDTO> mentions = new HashMap<>();
+        if (logins.isEmpty()) {
+            return mentions;
+        }
+        Map<String, Object> cached = peek(
+            Objects.requireNonNull(cacheManager.getCache(UserRepository.USERS_BY_LOGIN_CACHE)), logins);
+        Set<String> uncached = new HashSet<>();
+        for (String login : logins) {
+            Object user = cached.get(login);
+            if (user == null) {
+                uncached.add(login);
+            } else if (user instanceof User && ((User) user).getActivated()) {
+                mentions.put(login, new MentionDTO((User) user));
+            }
+        }
+        if (!uncached.isEmpty()) {
+            log.debug("Reading {} mentioned users, {} found in cache", uncached.size(), mentions.size());
+            // partially read, so they are not put in the cache, which is also used for authentication
+            for (User user : userRepository.findActivatedProfiles(new ArrayList<>(uncached))) {
+                mentions.put(user.getLogin(), new MentionDTO(user));
+            }
+        }
+        return mentions;
+    }
+
+    /**
+     * Read the cached values of the given keys, without loading the missing ones. A JCache cache is read with a
+     * single entry processor call, as its {@code get} loads the missing entries of a read-through cache.
+     *
+     * @return the cached values by key, including the {@link NullValue}s of the unknown users
+     */
+    private static Map<String, Object> peek(Cache cache, Set<String> keys) {
+        Map<String, Object> values = new HashMap<>();
+        if (cache.getNativeCache() instanceof javax.cache.Cache) {
+            @SuppressWarnings("unchecked")
+            javax.cache.Cache<Object, Object> nativeCache = (javax.cache.Cache<Object, Object>) cache.getNativeCache();
+            Map<Object, EntryProcessorResult<Object>> results = nativeCache.invokeAll(new HashSet<>(keys),
+                (entry, arguments) -> entry.exists() ? entry.getValue() : null);
+            results.forEach((key, result) -> {
+                Object value = result.get();
+                if (value != null) {
+                    values.put((String) key, value);
+                }
+            });
+        } else {
+            for (String key : keys) {
+                Cache.ValueWrapper cached = cache.get(key);
+                if (cached != null) {
+                    values.put(key, cached.get() != null ? cached.get() : NullValue.INSTANCE);
+                }
+            }
+        }
+        return values;
+    }
+
+    private static String normalize(String ref) {
+        return ref.toLowerCase(Locale.ENGLISH);
+    }
+}
@@ -0,0 +1,347 @@
+package com.example.service;
+
+import com.example.config.ApplicationProperties;
+import com.example.domain.Tweet;
+import com.example.repository.TweetRepository;
+import com.example.service.event.TweetEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Bounded in-memory cache of the most recent tweet ids of each author, used to assemble timelines on read.
+ * <p>
+ * Each author keeps at most {@code recent-tweets-per-author} entries, newest first, and at most
+ * {@code recent-tweets-max-authors} authors are kept, the least recently read ones being evicted first.
+ * Authors are loaded from MongoDB on their first read, and reading past the cached entries falls back
+ * to MongoDB as well.
+ */
+@Component
+public class RecentTweetCache {
+
+    /**
+     * Newest first, ties broken on the tweet id so that the order is total.
+     */
+    public static final Comparator<RecentTweet> NEWEST_FIRST = Comparator
+        .comparingLong(RecentTweet::getCreateTime)
+        .thenComparing(RecentTweet::getId)
+        .reversed();
+
+    private final Logger log = LoggerFactory.getLogger(RecentTweetCache.class);
+
+    private final TweetRepository tweetRepository;
+
+    private final int capacity;
+
+    private final int maxAuthors;
+
+    private final ConcurrentMap<String, AuthorTweets> authors = new ConcurrentHashMap<>();
+
+    private final AtomicBoolean evicting = new AtomicBoolean();
+
+    public RecentTweetCache(TweetRepository tweetRepository, ApplicationProperties applicationProperties) {
+        this.tweetRepository = tweetRepository;
+        this.capacity = applicationProperties.getTimeline().getRecentTweetsPerAuthor();
+        this.maxAuthors = applicationProperties.getTimeline().getRecentTweetsMaxAuthors();
+    }
+
+    /**
+     * Keep the cached authors in sync with the tweet collection.
+     * <p>
+     * Authors that are not cached yet are left alone: their first read loads them from MongoDB.
+     *
+     * @param event the tweet change
+     */
+    @EventListener
+    public void onTweetEvent(TweetEvent event) {
+        Tweet tweet = event.getTweet();
+        switch (event.getType()) {
+            case CREATED:
+                add(tweet);
+                break;
+            case UPDATED:
+                if (!tweet.getTweeter().equals(event.getPrevious().getTweeter())) {
+                    remove(event.getPrevious());
+                    add(tweet);
+                }
+                break;
+            case DELETED:
+                remove(tweet);
+                break;
+        }
+    }
+
+    /**
+     * Open a cursor over the tweets of an author, newest first.
+     *
+     * @param author the login of the author
+     * @return the cursor, which reads from MongoDB once the cached entries are exhausted
+     */
+    public Cursor cursor(String author) {
+        AuthorTweets authorTweets = authors.computeIfAbsent(author, AuthorTweets::new);
+        evictIfNeeded();
+        return new Cursor(author, authorTweets.snapshot());
+    }
+
+    /**
+     * Open a cursor over the tweets of an author that are older than a given tweet, newest first.
+     *
+     * @param author the login of the author
+     * @param before the last tweet already read
+     * @return the cursor, positioned right after {@code before}
+     */
+    public Cursor cursor(String author, RecentTweet before) {
+        Cursor cursor = cursor(author);
+        cursor.seek(before);
+        return cursor;
+    }
+
+    /**
+     * @return the number of authors currently cached
+     */
+    public int size() {
+        return authors.size();
+    }
+
+    /**
+     * Forget all cached authors, they are reloaded from MongoDB on their next read.
+     */
+    public void clear() {
+        authors.clear();
+    }
+
+    private void add(Tweet tweet) {
+        AuthorTweets authorTweets = authors.get(tweet.getTweeter());
+        if (authorTweets != null) {
+            authorTweets.add(new RecentTweet(tweet.getId(), tweet.getCreateTime().toEpochMilli()));
+        }
+    }
+
+    private void remove(Tweet tweet) {
+        AuthorTweets authorTweets = authors.get(tweet.getTweeter());
+        if (authorTweets != null) {
+            authorTweets.remove(tweet.getId());
+        }
+    }
+
+    /**
+     * Evict the least recently read tenth of the authors once the cache is over its bound.
+     * <p>
+     * Only one thread sweeps at a time, the others carry on without waiting.
+     */
+    private void evictIfNeeded() {
+        if (authors.size() <= maxAuthors || !evicting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            List<Map.Entry<String, AuthorTweets>> entries = new ArrayList<>(authors.entrySet());
+            entries.sort(Comparator.comparingLong(entry -> entry.getValue().lastAccess));
+            int toEvict = Math.max(entries.size() - maxAuthors, maxAuthors / 10);
+            entries.stream().limit(toEvict).forEach(entry -> authors.remove(entry.getKey(), entry.getValue()));
+            log.debug("Evicted {} authors from the recent tweet cache", toEvict);
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+    private List<RecentTweet> load(String author, RecentTweet before) {
+        // sorted on the id after the creation time, as NEWEST_FIRST, so that the next load continues from the last
+        Instant createTime = before == null ? null : Instant.ofEpochMilli(before.getCreateTime());
+        String id = before == null ? null : before.getId();
+        List<Tweet> tweets = tweetRepository.findAllBefore(Collections.singleton(author), createTime, id, capacity)
+            .getContent();
+        List<RecentTweet> recentTweets = new ArrayList<>(tweets.size());
+        for (Tweet tweet : tweets) {
+            recentTweets.add(new RecentTweet(tweet.getId(), tweet.getCreateTime().toEpochMilli()));
+        }
+        return recentTweets;
+    }
+
+    /**
+     * A tweet id and its creation time, in epoch milliseconds.
+     */
+    public static final class RecentTweet {
+
+        private final String id;
+
+        private final long createTime;
+
+        public RecentTweet(String id, long createTime) {
+            this.id = id;
+            this.createTime = createTime;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public long getCreateTime() {
+            return createTime;
+        }
+    }
+
+    /**
+     * Iterates over the tweets of one author, newest first: first the cached snapshot, then pages read from MongoDB.
+     */
+    public final class Cursor implements TimelineCursor {
+
+        private final String author;
+
+        private RecentTweet[] tweets;
+
+        private boolean complete;
+
+        private int position;
+
+        /**
+         * The last tweet read, or the tweet the cursor was positioned after, from which MongoDB is read next.
+         */
+        private RecentTweet last;
+
+        private Cursor(String author, Snapshot snapshot) {
+            this.author = author;
+            this.tweets = snapshot.tweets;
+            this.complete = snapshot.complete;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (position < tweets.length) {
+                return true;
+            }
+            if (complete) {
+                return false;
+            }
+            // also when the snapshot is empty without being complete, as after the removal of its tweets
+            loadOlder(last);
+            return tweets.length > 0;
+        }
+
+        @Override
+        public RecentTweet peek() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return tweets[position];
+        }
+
+        @Override
+        public RecentTweet next() {
+            RecentTweet tweet = peek();
+            position++;
+            last = tweet;
+            return tweet;
+        }
+
+        private void seek(RecentTweet before) {
+            last = before;
+            int index = Arrays.binarySearch(tweets, before, NEWEST_FIRST);
+            position = index < 0 ? -index - 1 : index + 1;
+            if (position == tweets.length && !complete) {
+                // older than all the cached tweets: go straight to MongoDB
+                loadOlder(before);
+            }
+        }
+
+        private void loadOlder(RecentTweet before) {
+            List<RecentTweet> older = load(author, before);
+            tweets = older.toArray(new RecentTweet[0]);
+            complete = older.size() < capacity;
+            position = 0;
+        }
+    }
+
+    private static final class Snapshot {
+
+        private final RecentTweet[] tweets;
+
+        private final boolean complete;
+
+        private Snapshot(RecentTweet[] tweets, boolean complete) {
+            this.tweets = tweets;
+            this.complete = complete;
+        }
+    }
+
+    /**
+     * The recent tweets of one author.
+     * <p>
+     * Readers get an immutable snapshot without locking; writers copy the (small) array under the author's lock.
+     */
+    private final class AuthorTweets {
+
+        private final String author;
+
+        private volatile Snapshot snapshot;
+
+        private volatile long lastAccess = System.nanoTime();
+
+        private AuthorTweets(String author) {
+            this.author = author;
+        }
+
+        private Snapshot snapshot() {
+            lastAccess = System.nanoTime();
+            Snapshot current = snapshot;
+            if (current != null) {
+                return current;
+            }
+            synchronized (this) {
+                if (snapshot == null) {
+                    List<RecentTweet> loaded = load(author, null);
+                    snapshot = new Snapshot(loaded.toArray(new RecentTweet[0]), loaded.size() < capacity);
+                }
+                return snapshot;
+            }
+        }
+
+        private synchronized void add(RecentTweet tweet) {
+            Snapshot current = snapshot;
+            if (current == null) {
+                // not loaded yet: the tweet is already in MongoDB, so the first read will see it
+                return;
+            }
+            for (RecentTweet existing : current.tweets) {
+                if (existing.getId().equals(tweet.getId())) {
+                    return;
+                }
+            }
+            int index = Arrays.binarySearch(current.tweets, tweet, NEWEST_FIRST);
+            int insertion = index < 0 ? -index - 1 : index;
+            if (insertion >= capacity) {
+                return;
+            }
+            int length = Math.min(current.tweets.length + 1, capacity);
+            RecentTweet[] tweets = new RecentTweet[length];
+            System.arraycopy(current.tweets, 0, tweets, 0, insertion);
+            tweets[insertion] = tweet;
+            System.arraycopy(current.tweets, insertion, tweets, insertion + 1, length - insertion - 1);
+            boolean complete = current.complete && current.tweets.length < capacity;
+            snapshot = new Snapshot(tweets, complete);
+        }
+
+        private synchronized void remove(String tweetId) {
+            Snapshot current = snapshot;
+            if (current == null) {
+                return;
+            }
+            RecentTweet[] tweets = Arrays.stream(current.tweets)
+                .filter(tweet -> !tweet.getId().equals(tweetId))
+                .toArray(RecentTweet[]::new);
+            snapshot = new Snapshot(tweets, current.complete);
+        }
+    }
+}
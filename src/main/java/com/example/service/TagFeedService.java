@@ -0,0 +1,113 @@
+package com.example.service;
+
+import com.example.domain.TagBucket;
+import com.example.domain.Tweet;
+import com.example.repository.TagBucketRepository;
+import com.example.repository.TweetRepository;
+import com.example.service.dto.TweetCursor;
+import com.example.service.event.TweetEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Service for the hashtag feeds.
+ * <p>
+ * The tweets of each hashtag are indexed in {@link TagBucket}s, one per tag and hour of creation, so that reading
+ * the newest tweets of a tag reads a few buckets rather than a range of the multikey {@code tags} index.
+ */
+@Service
+public class TagFeedService {
+
+    private final Logger log = LoggerFactory.getLogger(TagFeedService.class);
+
+    private final TagBucketRepository tagBucketRepository;
+
+    private final TweetRepository tweetRepository;
+
+    public TagFeedService(TagBucketRepository tagBucketRepository, TweetRepository tweetRepository) {
+        this.tagBucketRepository = tagBucketRepository;
+        this.tweetRepository = tweetRepository;
+    }
+
+    /**
+     * Keep the tag buckets in sync with the tweet collection.
+     *
+     * @param event the tweet change
+     */
+    @Async
+    @EventListener
+    public void onTweetEvent(TweetEvent event) {
+        Tweet tweet = event.getTweet();
+        switch (event.getType()) {
+            case CREATED:
+                add(tweet);
+                break;
+            case UPDATED:
+                Tweet previous = event.getPrevious();
+                if (!previous.getTags().equals(tweet.getTags())
+                    || !Objects.equals(previous.getCreateTime(), tweet.getCreateTime())) {
+                    remove(previous);
+                    add(tweet);
+                }
+                break;
+            case DELETED:
+                remove(tweet);
+                break;
+        }
+    }
+
+    /**
+     * Index a tweet under each of its hashtags.
+     *
+     * @param tweet the tweet
+     */
+    public void add(Tweet tweet) {
+        log.debug("Adding Tweet {} to tags {}", tweet.getId(), tweet.getTags());
+        tagBucketRepository.append(Collections.singletonList(tweet));
+    }
+
+    /**
+     * Remove a tweet from the feeds of its hashtags.
+     *
+     * @param tweet the tweet, as it was indexed
+     */
+    public void remove(Tweet tweet) {
+        log.debug("Removing Tweet {} from tags {}", tweet.getId(), tweet.getTags());
+        tagBucketRepository.remove(tweet);
+    }
+
+    /**
+     * Get a slice of the tweets of a hashtag, newest first, with keyset pagination.
+     *
+     * @param tag the hashtag, in any case
+     * @param before the last tweet already read, or null to start with the newest tweet
+     * @param limit the maximum number of tweets to return
+     * @return the slice of tweets
+     */
+    public Slice<Tweet> getFeed(String tag, TweetCursor before, int limit) {
+        log.debug("Request to get Tweets tagged {} before {}", tag, before);
+        List<TagBucket.Entry> entries = before == null ?
+            tagBucketRepository.findEntriesBefore(tag, null, null, limit + 1) :
+            tagBucketRepository.findEntriesBefore(tag, before.getCreateTime(), before.getId(), limit + 1);
+        boolean hasNext = entries.size() > limit;
+        List<String> ids = entries.stream().limit(limit).map(TagBucket.Entry::getTweetId).collect(Collectors.toList());
+        Map<String, Tweet> tweets = tweetRepository.findAllByIdIn(ids).stream()
+            .collect(Collectors.toMap(Tweet::getId, Function.identity()));
+        // keep the feed order, and skip tweets deleted since the buckets were read
+        List<Tweet> content = ids.stream().map(tweets::get).filter(Objects::nonNull).collect(Collectors.toList());
+        return new SliceImpl<>(content, PageRequest.of(0, limit), hasNext);
+    }
+}
@@ -0,0 +1,280 @@
+package com.example.service;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.example.config.ApplicationProperties;
+import com.example.config.CacheEventCounter;
+import org.bson.types.ObjectId;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Cache of the newest entries of each materialized timeline.
+ * <p>
+ * For each user, the ids and creation times of the first {@code cache-size} tweets of their timeline are packed
+ * into a byte array, ObjectIds taking 12 bytes, and stored in the {@link #TIMELINE_CACHE} cache, which is
+ * off-heap. Timelines are evicted on all the nodes, through the {@link CacheInvalidationService}, whenever an
+ * entry is delivered to or removed from them, and reloaded on their next read.
+ * <p>
+ * A head read from MongoDB before an eviction must not be cached after it, or it would be served until it expires.
+ * A miss thus first puts a lease, a unique marker, in the cache if it holds nothing, and the loaded head only
+ * replaces its own lease, atomically. An eviction removes the lease, so the head loaded meanwhile is not cached.
+ */
+@Component
+public class TimelineCache {
+
+    public static final String TIMELINE_CACHE = "timelineHead";
+
+    private static final byte COMPLETE = 1;
+
+    private static final byte LEASE = 2;
+
+    private static final byte OBJECT_ID = 0;
+
+    private static final byte STRING_ID = 1;
+
+    private final Cache cache;
+
+    private final CacheInvalidationService cacheInvalidationService;
+
+    private final int size;
+
+    private final Meter hits;
+
+    private final Meter misses;
+
+    private final AtomicLong leases = new AtomicLong(new SecureRandom().nextLong());
+
+    public TimelineCache(CacheManager cacheManager, CacheInvalidationService cacheInvalidationService,
+                         ApplicationProperties applicationProperties, MetricRegistry metricRegistry,
+                         CacheEventCounter timelineCacheEvictionCounter) {
+        this.cache = Objects.requireNonNull(cacheManager.getCache(TIMELINE_CACHE));
+        this.cacheInvalidationService = cacheInvalidationService;
+        this.size = applicationProperties.getTimeline().getCacheSize();
+        this.hits = metricRegistry.meter("timeline.cache.hits");
+        this.misses = metricRegistry.meter("timeline.cache.misses");
+        metricRegistry.register("timeline.cache.evictions", (Gauge<Long>) timelineCacheEvictionCounter::getCount);
+    }
+
+    /**
+     * @return the maximum number of entries kept per timeline
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Get the cached head of a timeline.
+     *
+     * @param owner the owner of the timeline
+     * @return the head, or empty if it is not cached
+     */
+    public Optional<Head> get(String owner) {
+        byte[] value = cache.get(owner, byte[].class);
+        if (value == null || value[0] == LEASE) {
+            misses.mark();
+            return Optional.empty();
+        }
+        hits.mark();
+        return Optional.of(decode(value));
+    }
+
+    /**
+     * Get the cached head of a timeline, loading it on a miss. The loaded head is only cached if the timeline was
+     * not evicted while it was loaded, and if no other load of the same timeline is running.
+     *
+     * @param owner the owner of the timeline
+     * @param loader reads the head from MongoDB
+     * @return the head
+     */
+    public Head get(String owner, Supplier<Head> loader) {
+        Optional<Head> cached = get(owner);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+        byte[] lease = ByteBuffer.allocate(1 + Long.BYTES).put(LEASE).putLong(leases.incrementAndGet()).array();
+        boolean leased = cache.putIfAbsent(owner, lease) == null;
+        Head head;
+        try {
+            head = loader.get();
+        } catch (RuntimeException e) {
+            if (leased) {
+                replace(owner, lease, null);
+            }
+            throw e;
+        }
+        if (leased) {
+            replace(owner, lease, encode(head));
+        }
+        return head;
+    }
+
+    /**
+     * Evict the head of a timeline, on all the nodes.
+     *
+     * @param owner the owner of the timeline
+     */
+    public void evict(String owner) {
+        cacheInvalidationService.evict(TIMELINE_CACHE, owner);
+    }
+
+    /**
+     * Evict the heads of timelines, on all the nodes.
+     *
+     * @param owners the owners of the timelines
+     */
+    public void evict(Collection<String> owners) {
+        cacheInvalidationService.evict(TIMELINE_CACHE, owners);
+    }
+
+    public void clear() {
+        cache.clear();
+    }
+
+    /**
+     * Replace the value of a key if it is still the given lease, or remove it if the new value is null. Leases are
+     * compared by content, as the off-heap tier returns copies of the stored arrays.
+     */
+    @SuppressWarnings("unchecked")
+    private void replace(String owner, byte[] lease, byte[] value) {
+        if (cache.getNativeCache() instanceof javax.cache.Cache) {
+            ((javax.cache.Cache<String, byte[]>) cache.getNativeCache()).invoke(owner, (entry, arguments) -> {
+                if (entry.exists() && Arrays.equals(entry.getValue(), lease)) {
+                    if (value == null) {
+                        entry.remove();
+                    } else {
+                        entry.setValue(value);
+                    }
+                }
+                return null;
+            });
+        } else if (value == null) {
+            ((ConcurrentMap<Object, Object>) cache.getNativeCache()).remove(owner, lease);
+        } else {
+            ((ConcurrentMap<Object, Object>) cache.getNativeCache()).replace(owner, lease, value);
+        }
+    }
+
+    private byte[] encode(Head head) {
+        List<byte[]> ids = new ArrayList<>(head.tweets.size());
+        int length = 1 + Integer.BYTES;
+        for (RecentTweetCache.RecentTweet tweet : head.tweets) {
+            byte[] id = isObjectId(tweet.getId())
+                ? new ObjectId(tweet.getId()).toByteArray()
+                : tweet.getId().getBytes(StandardCharsets.UTF_8);
+            ids.add(id);
+            length += Long.BYTES + 1 + (isObjectId(tweet.getId()) ? 0 : Integer.BYTES) + id.length;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        buffer.put(head.complete ? COMPLETE : 0);
+        buffer.putInt(head.tweets.size());
+        for (int i = 0; i < head.tweets.size(); i++) {
+            RecentTweetCache.RecentTweet tweet = head.tweets.get(i);
+            buffer.putLong(tweet.getCreateTime());
+            if (isObjectId(tweet.getId())) {
+                buffer.put(OBJECT_ID);
+            } else {
+                buffer.put(STRING_ID);
+                buffer.putInt(ids.get(i).length);
+            }
+            buffer.put(ids.get(i));
+        }
+        return buffer.array();
+    }
+
+    /**
+     * @return true if the id is the hex string of an ObjectId, and can be stored as its 12 bytes
+     */
+    private static boolean isObjectId(String id) {
+        return ObjectId.isValid(id) && id.equals(id.toLowerCase(Locale.ROOT));
+    }
+
+    private Head decode(byte[] value) {
+        ByteBuffer buffer = ByteBuffer.wrap(value);
+        boolean complete = buffer.get() == COMPLETE;
+        int count = buffer.getInt();
+        List<RecentTweetCache.RecentTweet> tweets = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            long createTime = buffer.getLong();
+            String id;
+            if (buffer.get() == OBJECT_ID) {
+                byte[] bytes = new byte[12];
+                buffer.get(bytes);
+                id = new ObjectId(bytes).toHexString();
+            } else {
+                byte[] bytes = new byte[buffer.getInt()];
+                buffer.get(bytes);
+                id = new String(bytes, StandardCharsets.UTF_8);
+            }
+            tweets.add(new RecentTweetCache.RecentTweet(id, createTime));
+        }
+        return new Head(tweets, complete);
+    }
+
+    /**
+     * The newest entries of a timeline, newest first.
+     */
+    public static final class Head {
+
+        private final List<RecentTweetCache.RecentTweet> tweets;
+
+        private final boolean complete;
+
+        /**
+         * @param tweets the newest entries of the timeline
+         * @param complete true if the timeline has no other entries
+         */
+        public Head(List<RecentTweetCache.RecentTweet> tweets, boolean complete) {
+            this.tweets = Collections.unmodifiableList(tweets);
+            this.complete = complete;
+        }
+
+        public List<RecentTweetCache.RecentTweet> getTweets() {
+            return tweets;
+        }
+
+        public boolean isComplete() {
+            return complete;
+        }
+
+        /**
+         * Read entries of the timeline, if they are all known.
+         *
+         * @param before the last entry already read, or null to start with the newest entry
+         * @param offset the number of entries to skip after {@code before}
+         * @param count the number of entries to read
+         * @return the entries, fewer than {@code count} only at the end of the timeline, or empty if some of them
+         * are past the cached entries
+         */
+        public Optional<List<RecentTweetCache.RecentTweet>> read(RecentTweetCache.RecentTweet before, long offset,
+                                                                 int count) {
+            long from = offset;
+            if (before != null) {
+                int index = Collections.binarySearch(tweets, before, RecentTweetCache.NEWEST_FIRST);
+                from += index >= 0 ? index + 1 : -index - 1;
+            }
+            if (from + count > tweets.size() && !complete) {
+                return Optional.empty();
+            }
+            int start = (int) Math.min(from, tweets.size());
+            return Optional.of(tweets.subList(start, (int) Math.min(from + count, tweets.size())));
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.service;
+
+/**
+ * Iterates over the tweet ids of a timeline source, newest first, so that several sources can be merged.
+ *
+ * @see RecentTweetCache#NEWEST_FIRST
+ */
+public interface TimelineCursor {
+
+    boolean hasNext();
+
+    /**
+     * @return the next tweet, without moving the cursor
+     */
+    RecentTweetCache.RecentTweet peek();
+
+    RecentTweetCache.RecentTweet next();
+}
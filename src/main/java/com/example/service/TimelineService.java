@@ -0,0 +1,563 @@
+package com.example.service;
+
+import com.example.config.ApplicationProperties;
+import com.example.domain.Follow;
+import com.example.domain.TimelineEntry;
+import com.example.domain.Tweet;
+import com.example.repository.FollowRepository;
+import com.example.repository.TimelineEntryRepository;
+import com.example.repository.TweetRepository;
+import com.example.service.dto.TweetCursor;
+import com.example.service.event.AuthorDemotedEvent;
+import com.example.service.event.TweetEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Service for the home timeline.
+ * <p>
+ * The way timelines are assembled depends on {@code application.timeline.mode}:
+ * <ul>
+ * <li>{@code PUSH}: timelines are materialized on write. Each new tweet is pushed as a {@link TimelineEntry}
+ * into the timeline of its author and of every follower, so reading a timeline page is a single range scan
+ * on the {@code owner_createTime} index, whatever the number of followed accounts.</li>
+ * <li>{@code PULL}: timelines are assembled on read, with a k-way merge over the {@link RecentTweetCache}
+ * of each followed account. Writes only touch the author's cache entry.</li>
+ * <li>{@code QUERY}: timelines are read with a single query over the tweets of all followed accounts.</li>
+ * <li>{@code HYBRID}: tweets are pushed as in {@code PUSH} mode, except those of the authors classified as hot
+ * by the {@link HotAuthorService}, which are merged on read with the materialized timeline as in {@code PULL}
+ * mode. This bounds both the fan-out of a single tweet and the number of cursors merged per read.</li>
+ * </ul>
+ * In {@code PUSH} and {@code HYBRID} modes, the newest entries of each materialized timeline are read through
+ * the {@link TimelineCache}, which is evicted whenever entries are delivered to or removed from a timeline.
+ */
+@Service
+public class TimelineService {
+
+    private final Logger log = LoggerFactory.getLogger(TimelineService.class);
+
+    private final TimelineEntryRepository timelineEntryRepository;
+
+    private final FollowRepository followRepository;
+
+    private final TweetRepository tweetRepository;
+
+    private final MongoTemplate mongoTemplate;
+
+    private final RecentTweetCache recentTweetCache;
+
+    private final HotAuthorService hotAuthorService;
+
+    private final TimelineCache timelineCache;
+
+    private final ApplicationProperties.Timeline timelineProperties;
+
+    public TimelineService(TimelineEntryRepository timelineEntryRepository, FollowRepository followRepository,
+                           TweetRepository tweetRepository, MongoTemplate mongoTemplate,
+                           RecentTweetCache recentTweetCache, HotAuthorService hotAuthorService,
+                           TimelineCache timelineCache, ApplicationProperties applicationProperties) {
+        this.timelineEntryRepository = timelineEntryRepository;
+        this.followRepository = followRepository;
+        this.tweetRepository = tweetRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.recentTweetCache = recentTweetCache;
+        this.hotAuthorService = hotAuthorService;
+        this.timelineCache = timelineCache;
+        this.timelineProperties = applicationProperties.getTimeline();
+    }
+
+    /**
+     * Keep the materialized timelines in sync with the tweet collection.
+     * <p>
+     * This runs on the async executor, so posting a tweet does not wait for the fan-out.
+     *
+     * @param event the tweet change
+     */
+    @Async
+    @EventListener
+    public void onTweetEvent(TweetEvent event) {
+        if (!isMaterialized()) {
+            return;
+        }
+        Tweet tweet = event.getTweet();
+        switch (event.getType()) {
+            case CREATED:
+                if (!isHybrid() || hotAuthorService.shouldPush(tweet.getTweeter())) {
+                    fanOut(tweet);
+                }
+                break;
+            case UPDATED:
+                // entries only reference the tweet, so only a change of author needs a new delivery
+                if (!Objects.equals(tweet.getTweeter(), event.getPrevious().getTweeter())) {
+                    removeFromTimelines(tweet.getId());
+                    fanOut(tweet);
+                }
+                break;
+            case DELETED:
+                removeFromTimelines(tweet.getId());
+                break;
+        }
+    }
+
+    /**
+     * Deliver a tweet to the timeline of its author and of all their followers.
+     *
+     * @param tweet the tweet to deliver
+     */
+    public void fanOut(Tweet tweet) {
+        log.debug("Fanning out Tweet : {}", tweet.getId());
+        int batchSize = timelineProperties.getFanOutBatchSize();
+        List<TimelineEntry> batch = new ArrayList<>(batchSize);
+        batch.add(new TimelineEntry(tweet.getTweeter(), tweet));
+        int delivered = 0;
+        try (Stream<Follow> followers = followRepository.streamAllByFollowee(tweet.getTweeter())) {
+            Iterator<Follow> iterator = followers.iterator();
+            while (iterator.hasNext()) {
+                batch.add(new TimelineEntry(iterator.next().getFollower(), tweet));
+                if (batch.size() >= batchSize) {
+                    delivered += deliver(batch);
+                    batch.clear();
+                }
+            }
+        }
+        delivered += deliver(batch);
+        log.debug("Delivered Tweet {} to {} timelines", tweet.getId(), delivered);
+    }
+
+    /**
+     * Push the recent tweets of an author who is not hot any more into the timelines of their followers,
+     * since these tweets stop being merged on read.
+     *
+     * @param event the demotion of the author
+     */
+    @Async
+    @EventListener
+    public void onAuthorDemoted(AuthorDemotedEvent event) {
+        redeliver(event.getAuthor());
+    }
+
+    private void redeliver(String author) {
+        if (!isHybrid()) {
+            return;
+        }
+        log.debug("Redelivering recent tweets of {}", author);
+        List<Tweet> tweets = tweetRepository
+            .findAllByTweeterOrderByCreateTimeDesc(author, PageRequest.of(0, timelineProperties.getBackfillSize()));
+        if (tweets.isEmpty()) {
+            return;
+        }
+        int batchSize = timelineProperties.getFanOutBatchSize();
+        List<TimelineEntry> batch = new ArrayList<>(batchSize);
+        try (Stream<Follow> followers = followRepository.streamAllByFollowee(author)) {
+            Iterator<Follow> iterator = followers.iterator();
+            while (iterator.hasNext()) {
+                String follower = iterator.next().getFollower();
+                for (Tweet tweet : tweets) {
+                    batch.add(new TimelineEntry(follower, tweet));
+                }
+                if (batch.size() >= batchSize) {
+                    deliver(batch);
+                    batch.clear();
+                }
+            }
+        }
+        deliver(batch);
+    }
+
+    /**
+     * Copy the most recent tweets of a newly followed account into the follower's timeline.
+     *
+     * @param follower the login of the follower
+     * @param followee the login of the followed account
+     */
+    public void backfill(String follower, String followee) {
+        if (!isMaterialized()) {
+            return;
+        }
+        if (isHybrid() && hotAuthorService.isHot(followee)) {
+            // the tweets of hot authors are merged on read
+            return;
+        }
+        log.debug("Backfilling timeline of {} with tweets from {}", follower, followee);
+        List<TimelineEntry> entries = tweetRepository
+            .findAllByTweeterOrderByCreateTimeDesc(followee, PageRequest.of(0, timelineProperties.getBackfillSize()))
+            .stream()
+            .map(tweet -> new TimelineEntry(follower, tweet))
+            .collect(Collectors.toList());
+        deliver(entries);
+    }
+
+    /**
+     * Remove all tweets of an unfollowed account from the follower's timeline.
+     *
+     * @param follower the login of the follower
+     * @param followee the login of the unfollowed account
+     */
+    public void prune(String follower, String followee) {
+        if (!isMaterialized()) {
+            return;
+        }
+        log.debug("Removing tweets from {} in timeline of {}", followee, follower);
+        timelineEntryRepository.deleteByOwnerAndTweeter(follower, followee);
+        timelineCache.evict(follower);
+    }
+
+    /**
+     * Get a page of the home timeline of a user, newest first.
+     *
+     * @param login the owner of the timeline
+     * @param pageable the pagination information
+     * @return the page of tweets
+     */
+    public Page<Tweet> getTimeline(String login, Pageable pageable) {
+        log.debug("Request to get a page of the timeline of {}", login);
+        Page<Tweet> page;
+        switch (timelineProperties.getMode()) {
+            case PULL:
+                page = getMergedTimeline(login, pageable);
+                break;
+            case QUERY:
+                page = tweetRepository.findByTweeterInOrderByCreateTimeDesc(getAuthors(login), pageable);
+                break;
+            case HYBRID:
+                page = getHybridTimeline(login, pageable);
+                break;
+            default:
+                page = getMaterializedTimeline(login, pageable);
+        }
+        hotAuthorService.recordReads(page.getContent());
+        return page;
+    }
+
+    /**
+     * Get a slice of the home timeline of a user, newest first, with keyset pagination.
+     * <p>
+     * Unlike {@link #getTimeline(String, Pageable)}, nothing is counted or skipped, so reading deep into a timeline
+     * costs the same as reading its first page.
+     *
+     * @param login the owner of the timeline
+     * @param before the last tweet already read, or null to start with the newest tweet
+     * @param limit the maximum number of tweets to return
+     * @return the slice of tweets
+     */
+    public Slice<Tweet> getTimeline(String login, TweetCursor before, int limit) {
+        log.debug("Request to get a slice of the timeline of {} before {}", login, before);
+        RecentTweetCache.RecentTweet last = before == null ? null :
+            new RecentTweetCache.RecentTweet(before.getId(), before.getCreateTime().toEpochMilli());
+        Slice<Tweet> slice;
+        switch (timelineProperties.getMode()) {
+            case PULL:
+                slice = mergeSlice(getAuthors(login).stream()
+                    .map(author -> openCursor(author, last))
+                    .collect(Collectors.toList()), limit);
+                break;
+            case QUERY:
+                slice = before == null ?
+                    tweetRepository.findAllBefore(getAuthors(login), null, null, limit) :
+                    tweetRepository.findAllBefore(getAuthors(login), before.getCreateTime(), before.getId(), limit);
+                break;
+            case HYBRID:
+                List<TimelineCursor> cursors = new ArrayList<>();
+                cursors.add(new EntryCursor(readEntriesBefore(login, before, limit + 1)));
+                getAuthors(login).stream()
+                    .filter(hotAuthorService::isHot)
+                    .map(author -> openCursor(author, last))
+                    .forEach(cursors::add);
+                slice = mergeSlice(cursors, limit);
+                break;
+            default:
+                List<RecentTweetCache.RecentTweet> entries = readEntriesBefore(login, before, limit + 1);
+                boolean hasNext = entries.size() > limit;
+                List<String> ids = entries.stream().limit(limit).map(RecentTweetCache.RecentTweet::getId)
+                    .collect(Collectors.toList());
+                slice = new SliceImpl<>(loadTweets(ids), PageRequest.of(0, limit), hasNext);
+        }
+        hotAuthorService.recordReads(slice.getContent());
+        return slice;
+    }
+
+    /**
+     * Read a page of the materialized timeline of a user, from the {@link TimelineCache} when the page is within
+     * the cached entries.
+     * <p>
+     * Pages read from the cache are not counted, their total is reported as in {@link #mergePage}.
+     */
+    private Page<Tweet> getMaterializedTimeline(String login, Pageable pageable) {
+        int size = pageable.getPageSize();
+        Optional<List<RecentTweetCache.RecentTweet>> cached = readCachedEntries(login, null, pageable.getOffset(), size + 1);
+        if (cached.isPresent()) {
+            boolean more = cached.get().size() > size;
+            List<String> ids = cached.get().stream().limit(size).map(RecentTweetCache.RecentTweet::getId)
+                .collect(Collectors.toList());
+            return new PageImpl<>(loadTweets(ids), pageable, pageable.getOffset() + ids.size() + (more ? 1 : 0));
+        }
+        Page<TimelineEntry> entries = timelineEntryRepository.findByOwnerOrderByCreateTimeDescTweetIdDesc(login, pageable);
+        List<String> ids = entries.getContent().stream().map(TimelineEntry::getTweetId).collect(Collectors.toList());
+        return new PageImpl<>(loadTweets(ids), pageable, entries.getTotalElements());
+    }
+
+    /**
+     * Merge the recent tweets of the user and of every followed account with a heap holding one cursor per author.
+     */
+    private Page<Tweet> getMergedTimeline(String login, Pageable pageable) {
+        List<TimelineCursor> cursors = getAuthors(login).stream()
+            .map(recentTweetCache::cursor)
+            .collect(Collectors.toList());
+        return mergePage(cursors, pageable);
+    }
+
+    /**
+     * Merge the materialized timeline of the user with the recent tweets of the hot accounts they follow.
+     * <p>
+     * The materialized timeline cannot contribute more than {@code offset + size} tweets to the page, so only
+     * that many entries are read, plus one to know whether there are more.
+     */
+    private Page<Tweet> getHybridTimeline(String login, Pageable pageable) {
+        List<TimelineCursor> cursors = new ArrayList<>();
+        int limit = (int) pageable.getOffset() + pageable.getPageSize() + 1;
+        cursors.add(new EntryCursor(readCachedEntries(login, null, 0, limit)
+            .orElseGet(() -> toRecentTweets(timelineEntryRepository
+                .findAllByOwnerOrderByCreateTimeDescTweetIdDesc(login, PageRequest.of(0, limit))))));
+        getAuthors(login).stream()
+            .filter(hotAuthorService::isHot)
+            .map(recentTweetCache::cursor)
+            .forEach(cursors::add);
+        return mergePage(cursors, pageable);
+    }
+
+    private Page<Tweet> mergePage(List<TimelineCursor> cursors, Pageable pageable) {
+        List<String> ids = new ArrayList<>(pageable.getPageSize());
+        boolean more = merge(cursors, pageable.getOffset(), pageable.getPageSize(), ids);
+        // the total is not counted: report one more element than has been read while there are more,
+        // so that a "next" link is generated
+        long total = pageable.getOffset() + ids.size() + (more ? 1 : 0);
+        return new PageImpl<>(loadTweets(ids), pageable, total);
+    }
+
+    private Slice<Tweet> mergeSlice(List<TimelineCursor> cursors, int limit) {
+        List<String> ids = new ArrayList<>(limit);
+        boolean more = merge(cursors, 0, limit, ids);
+        return new SliceImpl<>(loadTweets(ids), PageRequest.of(0, limit), more);
+    }
+
+    private TimelineCursor openCursor(String author, RecentTweetCache.RecentTweet before) {
+        return before == null ? recentTweetCache.cursor(author) : recentTweetCache.cursor(author, before);
+    }
+
+    /**
+     * Read the materialized timeline entries of a user that are older than a given tweet, newest first,
+     * from the {@link TimelineCache} when they are within the cached entries.
+     */
+    private List<RecentTweetCache.RecentTweet> readEntriesBefore(String login, TweetCursor before, int limit) {
+        RecentTweetCache.RecentTweet last = before == null ? null
+            : new RecentTweetCache.RecentTweet(before.getId(), before.getCreateTime().toEpochMilli());
+        return readCachedEntries(login, last, 0, limit)
+            .orElseGet(() -> toRecentTweets(findEntriesBefore(login, before, limit)));
+    }
+
+    /**
+     * Read materialized timeline entries of a user from the {@link TimelineCache}, loading the newest entries
+     * of the timeline on a miss.
+     *
+     * @return the entries, or empty if some of them are past the cached entries
+     */
+    private Optional<List<RecentTweetCache.RecentTweet>> readCachedEntries(String login,
+                                                                          RecentTweetCache.RecentTweet before,
+                                                                          long offset, int count) {
+        int size = timelineCache.getSize();
+        if (offset + count > size) {
+            return Optional.empty();
+        }
+        TimelineCache.Head head = timelineCache.get(login, () -> {
+            List<TimelineEntry> entries = timelineEntryRepository
+                .findAllByOwnerOrderByCreateTimeDescTweetIdDesc(login, PageRequest.of(0, size + 1));
+            return new TimelineCache.Head(
+                toRecentTweets(entries.subList(0, Math.min(size, entries.size()))), entries.size() <= size);
+        });
+        return head.read(before, offset, count);
+    }
+
+    /**
+     * Read the materialized timeline entries of a user that are older than a given tweet, newest first.
+     * <p>
+     * This is a range scan on the {@code owner_createTime} index, starting right after {@code before}.
+     */
+    private List<TimelineEntry> findEntriesBefore(String login, TweetCursor before, int limit) {
+        Query query = Query.query(Criteria.where("owner").is(login));
+        if (before != null) {
+            query.addCriteria(Criteria.where("createTime").lte(before.getCreateTime()));
+            query.addCriteria(new Criteria().orOperator(
+                Criteria.where("createTime").lt(before.getCreateTime()),
+                Criteria.where("tweetId").lt(before.getId())));
+        }
+        query.with(Sort.by(Sort.Direction.DESC, "createTime", "tweetId")).limit(limit);
+        return mongoTemplate.find(query, TimelineEntry.class);
+    }
+
+    /**
+     * K-way merge of timeline cursors, newest first, skipping the tweets returned by more than one cursor.
+     * <p>
+     * This reads {@code offset + size} entries, each costing {@code O(log k)} for {@code k} cursors.
+     *
+     * @param ids the list the ids of the merged tweets are added to
+     * @return true if there are more tweets after the ones read
+     */
+    private boolean merge(List<TimelineCursor> cursors, long offset, int size, List<String> ids) {
+        PriorityQueue<TimelineCursor> heap = new PriorityQueue<>(Math.max(1, cursors.size()),
+            (left, right) -> RecentTweetCache.NEWEST_FIRST.compare(left.peek(), right.peek()));
+        for (TimelineCursor cursor : cursors) {
+            if (cursor.hasNext()) {
+                heap.add(cursor);
+            }
+        }
+        long toSkip = offset;
+        Set<String> seen = new HashSet<>();
+        while (!heap.isEmpty() && ids.size() < size) {
+            TimelineCursor cursor = heap.poll();
+            String id = cursor.next().getId();
+            if (seen.add(id)) {
+                if (toSkip > 0) {
+                    toSkip--;
+                } else {
+                    ids.add(id);
+                }
+            }
+            if (cursor.hasNext()) {
+                heap.add(cursor);
+            }
+        }
+        return !heap.isEmpty();
+    }
+
+    /**
+     * @return the login of the user followed by the logins of all the accounts they follow
+     */
+    private List<String> getAuthors(String login) {
+        List<Follow> follows = followRepository.findAllByFollower(login);
+        List<String> authors = new ArrayList<>(follows.size() + 1);
+        authors.add(login);
+        follows.forEach(follow -> authors.add(follow.getFollowee()));
+        return authors;
+    }
+
+    private boolean isMaterialized() {
+        return timelineProperties.getMode() == ApplicationProperties.Timeline.Mode.PUSH || isHybrid();
+    }
+
+    private boolean isHybrid() {
+        return timelineProperties.getMode() == ApplicationProperties.Timeline.Mode.HYBRID;
+    }
+
+    private List<Tweet> loadTweets(List<String> ids) {
+        Map<String, Tweet> tweets = tweetRepository.findAllByIdIn(ids).stream()
+            .collect(Collectors.toMap(Tweet::getId, Function.identity()));
+        // keep the timeline order, and skip tweets deleted since the page was read
+        return ids.stream().map(tweets::get).filter(Objects::nonNull).collect(Collectors.toList());
+    }
+
+    /**
+     * Remove a tweet from all the timelines it was delivered to.
+     * <p>
+     * The owners are read before the entries are deleted, so that their cached timelines can be evicted.
+     */
+    private void removeFromTimelines(String tweetId) {
+        Set<String> owners;
+        try (Stream<TimelineEntry> entries = timelineEntryRepository.streamAllByTweetId(tweetId)) {
+            owners = entries.map(TimelineEntry::getOwner).collect(Collectors.toSet());
+        }
+        timelineEntryRepository.deleteByTweetId(tweetId);
+        timelineCache.evict(owners);
+    }
+
+    private static List<RecentTweetCache.RecentTweet> toRecentTweets(List<TimelineEntry> entries) {
+        return entries.stream()
+            .map(entry -> new RecentTweetCache.RecentTweet(entry.getTweetId(), entry.getCreateTime().toEpochMilli()))
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Upsert the entries in one unordered bulk write, so that a tweet delivered twice
+     * (for instance by a backfill racing with a fan-out) is stored only once, then evict
+     * the timelines they were delivered to from the {@link TimelineCache}.
+     */
+    private int deliver(List<TimelineEntry> entries) {
+        if (entries.isEmpty()) {
+            return 0;
+        }
+        BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, TimelineEntry.class);
+        for (TimelineEntry entry : entries) {
+            bulkOperations.upsert(Query.query(Criteria.where("_id").is(entry.getId())),
+                new Update()
+                    .setOnInsert("owner", entry.getOwner())
+                    .setOnInsert("tweetId", entry.getTweetId())
+                    .setOnInsert("tweeter", entry.getTweeter())
+                    .setOnInsert("createTime", entry.getCreateTime()));
+        }
+        bulkOperations.execute();
+        timelineCache.evict(entries.stream().map(TimelineEntry::getOwner).collect(Collectors.toSet()));
+        return entries.size();
+    }
+
+    /**
+     * Cursor over a page of materialized timeline entries.
+     */
+    private static final class EntryCursor implements TimelineCursor {
+
+        private final List<RecentTweetCache.RecentTweet> entries;
+
+        private int position;
+
+        private EntryCursor(List<RecentTweetCache.RecentTweet> entries) {
+            this.entries = entries;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return position < entries.size();
+        }
+
+        @Override
+        public RecentTweetCache.RecentTweet peek() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return entries.get(position);
+        }
+
+        @Override
+        public RecentTweetCache.RecentTweet next() {
+            RecentTweetCache.RecentTweet tweet = peek();
+            position++;
+            return tweet;
+        }
+    }
+}
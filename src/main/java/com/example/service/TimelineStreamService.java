@@ -0,0 +1,279 @@
+package com.example.service;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.example.config.ApplicationProperties;
+import com.example.domain.Follow;
+import com.example.domain.Tweet;
+import com.example.repository.FollowRepository;
+import com.example.service.event.TweetEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * In-process publish/subscribe bus pushing new tweets to the live timeline streams of this node.
+ * <p>
+ * Each stream is an {@link SseEmitter}, so an idle stream holds an async servlet request but no thread. Every
+ * subscriber has a bounded queue: publishing only offers the tweet to the queues of the subscribers following its
+ * author, and a subscriber is drained by one task at a time on the stream executor, which is bounded and apart
+ * from the async executor. A subscriber whose queue is full, or whose drain cannot be queued by the stream
+ * executor, is too slow to keep up and is disconnected, so that it cannot hold back the others or grow without
+ * bound; clients reconnect and catch up with {@code /api/timeline}.
+ * <p>
+ * Heartbeats are only sent to the streams that have sent nothing since the previous heartbeat. The scheduler thread
+ * only picks them, and their drains send the heartbeats on the stream executor.
+ */
+@Service
+public class TimelineStreamService {
+
+    private final Logger log = LoggerFactory.getLogger(TimelineStreamService.class);
+
+    private final FollowRepository followRepository;
+
+    private final Executor streamTaskExecutor;
+
+    private final ApplicationProperties.Timeline timelineProperties;
+
+    /**
+     * Subscribers by login of the authors they receive tweets from.
+     */
+    private final ConcurrentMap<String, Set<Subscriber>> subscribersByAuthor = new ConcurrentHashMap<>();
+
+    /**
+     * Subscribers by login of the timeline owner, a user may have several streams open.
+     */
+    private final ConcurrentMap<String, Set<Subscriber>> subscribersByOwner = new ConcurrentHashMap<>();
+
+    private final Meter sent;
+
+    private final Meter evicted;
+
+    public TimelineStreamService(FollowRepository followRepository,
+                                 @Qualifier("streamTaskExecutor") Executor streamTaskExecutor,
+                                 ApplicationProperties applicationProperties, MetricRegistry metricRegistry) {
+        this.followRepository = followRepository;
+        this.streamTaskExecutor = streamTaskExecutor;
+        this.timelineProperties = applicationProperties.getTimeline();
+        this.sent = metricRegistry.meter("timeline.stream.sent");
+        this.evicted = metricRegistry.meter("timeline.stream.evicted");
+        metricRegistry.register("timeline.stream.subscribers",
+            (Gauge<Integer>) () -> subscribersByOwner.values().stream().mapToInt(Set::size).sum());
+    }
+
+    /**
+     * Open a live stream of the tweets of a user and of the accounts they follow.
+     *
+     * @param login the owner of the timeline
+     * @return the emitter, to be returned by the controller
+     */
+    public SseEmitter subscribe(String login) {
+        log.debug("Opening timeline stream of {}", login);
+        SseEmitter emitter = new SseEmitter(TimeUnit.SECONDS.toMillis(timelineProperties.getStreamTimeoutSeconds()));
+        Subscriber subscriber = new Subscriber(login, emitter, timelineProperties.getStreamQueueSize());
+        emitter.onCompletion(() -> unsubscribe(subscriber));
+        emitter.onTimeout(() -> unsubscribe(subscriber));
+        emitter.onError(error -> unsubscribe(subscriber));
+        add(subscribersByOwner, login, subscriber);
+        subscriber.authors.add(login);
+        followRepository.findAllByFollower(login).stream().map(Follow::getFollowee).forEach(subscriber.authors::add);
+        subscriber.authors.forEach(author -> add(subscribersByAuthor, author, subscriber));
+        return emitter;
+    }
+
+    /**
+     * Start sending the tweets of a newly followed account to the open streams of the follower.
+     *
+     * @param follower the login of the follower
+     * @param followee the login of the followed account
+     */
+    public void followed(String follower, String followee) {
+        subscribersByOwner.getOrDefault(follower, Collections.emptySet()).forEach(subscriber -> {
+            subscriber.authors.add(followee);
+            add(subscribersByAuthor, followee, subscriber);
+        });
+    }
+
+    /**
+     * Stop sending the tweets of an unfollowed account to the open streams of the follower.
+     *
+     * @param follower the login of the follower
+     * @param followee the login of the unfollowed account
+     */
+    public void unfollowed(String follower, String followee) {
+        subscribersByOwner.getOrDefault(follower, Collections.emptySet()).forEach(subscriber -> {
+            subscriber.authors.remove(followee);
+            remove(subscribersByAuthor, followee, subscriber);
+        });
+    }
+
+    /**
+     * Push new tweets to the streams following their author.
+     * <p>
+     * This runs on the async executor, so posting a tweet does not wait for the subscribers to be found.
+     *
+     * @param event the tweet change
+     */
+    @Async
+    @EventListener
+    public void onTweetEvent(TweetEvent event) {
+        if (event.getType() == TweetEvent.Type.CREATED) {
+            publish(event.getTweet());
+        }
+    }
+
+    /**
+     * Offer a tweet to the queue of every stream following its author.
+     *
+     * @param tweet the new tweet
+     */
+    public void publish(Tweet tweet) {
+        subscribersByAuthor.getOrDefault(tweet.getTweeter(), Collections.emptySet()).forEach(subscriber -> {
+            if (!subscriber.queue.offer(tweet)) {
+                disconnect(subscriber);
+            } else {
+                scheduleDrain(subscriber);
+            }
+        });
+    }
+
+    /**
+     * Request a comment on the streams that have sent nothing since the previous heartbeat, so that the connections
+     * closed by clients are noticed and released. The comments are sent by the drains, on the stream executor, as
+     * the scheduler thread is shared by the other scheduled jobs and must not block on a connection.
+     */
+    @Scheduled(fixedRateString = "#{${application.timeline.stream-heartbeat-seconds:20} * 1000}")
+    public void heartbeat() {
+        // half an interval, so that a stream last written to by the previous heartbeat is not skipped by jitter
+        long idleSince = System.nanoTime() - TimeUnit.SECONDS.toNanos(timelineProperties.getStreamHeartbeatSeconds()) / 2;
+        subscribersByOwner.values().forEach(subscribers -> subscribers.forEach(subscriber -> {
+            if (subscriber.lastSend - idleSince <= 0 && subscriber.heartbeat.compareAndSet(false, true)) {
+                scheduleDrain(subscriber);
+            }
+        }));
+    }
+
+    private void scheduleDrain(Subscriber subscriber) {
+        if (subscriber.draining.compareAndSet(false, true)) {
+            try {
+                streamTaskExecutor.execute(() -> drain(subscriber));
+            } catch (RejectedExecutionException e) {
+                subscriber.draining.set(false);
+                if (subscriber.queue.isEmpty()) {
+                    // only a heartbeat was due, which the next sweep requests again
+                    subscriber.heartbeat.set(false);
+                } else {
+                    disconnect(subscriber);
+                }
+            }
+        }
+    }
+
+    private void disconnect(Subscriber subscriber) {
+        log.debug("Disconnecting slow timeline stream of {}", subscriber.owner);
+        evicted.mark();
+        unsubscribe(subscriber);
+        subscriber.emitter.complete();
+    }
+
+    private void close(Subscriber subscriber, Exception e) {
+        log.debug("Closing timeline stream of {}: {}", subscriber.owner, e.getMessage());
+        unsubscribe(subscriber);
+        subscriber.emitter.completeWithError(e);
+    }
+
+    /**
+     * Send the queued tweets of a subscriber, and the requested heartbeat if no tweet was sent. Only one drain
+     * runs at a time per subscriber, so that the events are sent in order.
+     */
+    private void drain(Subscriber subscriber) {
+        do {
+            try {
+                boolean sentTweets = false;
+                for (Tweet tweet = subscriber.queue.poll(); tweet != null; tweet = subscriber.queue.poll()) {
+                    subscriber.emitter.send(SseEmitter.event().id(tweet.getId()).name("tweet").data(tweet));
+                    subscriber.lastSend = System.nanoTime();
+                    sent.mark();
+                    sentTweets = true;
+                }
+                if (subscriber.heartbeat.getAndSet(false) && !sentTweets) {
+                    subscriber.emitter.send(SseEmitter.event().comment("heartbeat"));
+                    subscriber.lastSend = System.nanoTime();
+                }
+            } catch (IOException | IllegalStateException e) {
+                close(subscriber, e);
+                return;
+            } finally {
+                subscriber.draining.set(false);
+            }
+            // an item offered after the last poll but before the flag was reset would otherwise wait
+        } while ((!subscriber.queue.isEmpty() || subscriber.heartbeat.get())
+            && subscriber.draining.compareAndSet(false, true));
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        if (remove(subscribersByOwner, subscriber.owner, subscriber)) {
+            log.debug("Closed timeline stream of {}", subscriber.owner);
+            subscriber.authors.forEach(author -> remove(subscribersByAuthor, author, subscriber));
+            subscriber.queue.clear();
+        }
+    }
+
+    private static void add(ConcurrentMap<String, Set<Subscriber>> subscribers, String key, Subscriber subscriber) {
+        subscribers.compute(key, (k, set) -> {
+            Set<Subscriber> result = set == null ? ConcurrentHashMap.newKeySet() : set;
+            result.add(subscriber);
+            return result;
+        });
+    }
+
+    private static boolean remove(ConcurrentMap<String, Set<Subscriber>> subscribers, String key, Subscriber subscriber) {
+        AtomicBoolean removed = new AtomicBoolean();
+        subscribers.computeIfPresent(key, (k, set) -> {
+            removed.set(set.remove(subscriber));
+            return set.isEmpty() ? null : set;
+        });
+        return removed.get();
+    }
+
+    private static final class Subscriber {
+
+        private final String owner;
+
+        private final SseEmitter emitter;
+
+        private final BlockingQueue<Tweet> queue;
+
+        private final Set<String> authors = ConcurrentHashMap.newKeySet();
+
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        private final AtomicBoolean heartbeat = new AtomicBoolean();
+
+        private volatile long lastSend = System.nanoTime();
+
+        private Subscriber(String owner, SseEmitter emitter, int queueSize) {
+            this.owner = owner;
+            this.emitter = emitter;
+            this.queue = new ArrayBlockingQueue<>(queueSize);
+        }
+    }
+}
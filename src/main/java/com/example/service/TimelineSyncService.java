@@ -0,0 +1,442 @@
+package com.example.service;
+
+import com.example.config.ApplicationProperties;
+import com.example.domain.Follow;
+import com.example.domain.TimelineChange;
+import com.example.domain.Tweet;
+import com.example.repository.FollowRepository;
+import com.example.repository.TweetRepository;
+import com.example.service.dto.TimelineSyncDTO;
+import com.example.service.event.TweetEvent;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * Service for the incremental sync of home timelines.
+ * <p>
+ * Every tweet change is appended to a journal of {@link TimelineChange}s, numbered from a counter in the
+ * {@code sequence} collection, so a client only reads the changes made after the last sequence number it has
+ * seen, whatever the size of its timeline. A sequence number and its server time are taken together, but the
+ * entry is inserted afterwards, so an entry with a lower number may still be in flight when a higher one is
+ * readable. Syncs therefore only read the entries up to a low watermark, the {@code settled} sequence number,
+ * below which all the entries are inserted, so that no entry is skipped. The watermark stops at the first
+ * missing entry, unless an entry after it was numbered more than {@link #SETTLE_MILLIS} ago by the server
+ * clock, in which case the missing entry is considered lost. The watermark is advanced by a scheduled task, so
+ * that a sync only reads the sequence document and the journal.
+ * <p>
+ * Syncs without changes may wait for them: the request is then held as a {@link DeferredResult}, and answered
+ * when a change to the timeline is journaled on this node, or when the wait is over. Changes journaled on other
+ * nodes are read at the end of the wait.
+ */
+@Service
+public class TimelineSyncService {
+
+    /**
+     * Time after which a missing journal entry is considered lost, and no longer holds back the syncs.
+     */
+    public static final long SETTLE_MILLIS = 1000;
+
+    private static final int SETTLE_BATCH_SIZE = 1000;
+
+    static final String SEQUENCE_COLLECTION = "sequence";
+
+    private final Logger log = LoggerFactory.getLogger(TimelineSyncService.class);
+
+    private final MongoTemplate mongoTemplate;
+
+    private final FollowRepository followRepository;
+
+    private final TweetRepository tweetRepository;
+
+    private final Executor taskExecutor;
+
+    private final ApplicationProperties.Timeline timelineProperties;
+
+    /**
+     * Waiting syncs by login of the authors whose changes they wait for.
+     */
+    private final ConcurrentMap<String, Set<Waiter>> waitersByAuthor = new ConcurrentHashMap<>();
+
+    /**
+     * Waiting syncs by login of the timeline owner, for the {@link TimelineChange.Type#RESET} entries.
+     */
+    private final ConcurrentMap<String, Set<Waiter>> waitersByOwner = new ConcurrentHashMap<>();
+
+    /**
+     * Changes journaled on this node that have waiting syncs, until they are settled.
+     */
+    private final ConcurrentLinkedQueue<TimelineChange> unsettled = new ConcurrentLinkedQueue<>();
+
+    public TimelineSyncService(MongoTemplate mongoTemplate, FollowRepository followRepository,
+                               TweetRepository tweetRepository, @Qualifier("taskExecutor") Executor taskExecutor,
+                               ApplicationProperties applicationProperties) {
+        this.mongoTemplate = mongoTemplate;
+        this.followRepository = followRepository;
+        this.tweetRepository = tweetRepository;
+        this.taskExecutor = taskExecutor;
+        this.timelineProperties = applicationProperties.getTimeline();
+    }
+
+    /**
+     * Journal the tweet changes.
+     *
+     * @param event the tweet change
+     */
+    @Async
+    @EventListener
+    public void onTweetEvent(TweetEvent event) {
+        Tweet tweet = event.getTweet();
+        switch (event.getType()) {
+            case CREATED:
+                record(TimelineChange.Type.CREATED, tweet);
+                break;
+            case UPDATED:
+                Tweet previous = event.getPrevious();
+                if (!Objects.equals(previous.getTweeter(), tweet.getTweeter())) {
+                    // the tweet leaves the timelines of the followers of its previous author
+                    record(TimelineChange.Type.DELETED, previous);
+                }
+                record(TimelineChange.Type.UPDATED, tweet);
+                break;
+            case DELETED:
+                record(TimelineChange.Type.DELETED, tweet);
+                break;
+        }
+    }
+
+    /**
+     * Journal a change of a tweet.
+     *
+     * @param type the type of change
+     * @param tweet the tweet
+     * @return the journal entry
+     */
+    public TimelineChange record(TimelineChange.Type type, Tweet tweet) {
+        TimelineChange change = new TimelineChange();
+        change.setType(type);
+        change.setTweetId(tweet.getId());
+        change.setTweeter(tweet.getTweeter());
+        return append(change);
+    }
+
+    /**
+     * Journal that the timeline of a user must be read again, after they followed or unfollowed an account.
+     *
+     * @param owner the login of the owner of the timeline
+     * @return the journal entry
+     */
+    public TimelineChange reset(String owner) {
+        TimelineChange change = new TimelineChange();
+        change.setType(TimelineChange.Type.RESET);
+        change.setOwner(owner);
+        return append(change);
+    }
+
+    private TimelineChange append(TimelineChange change) {
+        Document sequence = mongoTemplate.findAndModify(
+            query(where("_id").is(TimelineChange.class.getSimpleName())),
+            new Update().inc("value", 1L).currentDate("time"),
+            FindAndModifyOptions.options().returnNew(true).upsert(true),
+            Document.class, SEQUENCE_COLLECTION);
+        change.setId(((Number) sequence.get("value")).longValue());
+        change.setTime(sequence.getDate("time").toInstant());
+        mongoTemplate.insert(change);
+        log.debug("Journaled {}", change);
+        if (change.getOwner() != null ?
+            waitersByOwner.containsKey(change.getOwner()) : waitersByAuthor.containsKey(change.getTweeter())) {
+            unsettled.add(change);
+        }
+        return change;
+    }
+
+    /**
+     * Get the changes of the home timeline of a user since a sync token.
+     *
+     * @param login the owner of the timeline
+     * @param since the sequence number of the last change read, or null to start a sync
+     * @param limit the maximum number of journal entries to read
+     * @return the changes, or a reset if the token is missing or older than the journal
+     */
+    public TimelineSyncDTO sync(String login, Long since, int limit) {
+        return sync(login, getAuthors(login), since, limit);
+    }
+
+    /**
+     * Get the changes of the home timeline of a user since a sync token, waiting for them if there are none.
+     *
+     * @param login the owner of the timeline
+     * @param since the sequence number of the last change read, or null to start a sync
+     * @param limit the maximum number of journal entries to read
+     * @param waitSeconds how long to wait for changes, capped by {@code application.timeline.sync-max-wait-seconds}
+     * @return the deferred changes, to be returned by the controller
+     */
+    public DeferredResult<TimelineSyncDTO> sync(String login, Long since, int limit, long waitSeconds) {
+        long wait = TimeUnit.SECONDS.toMillis(Math.max(0, Math.min(waitSeconds, timelineProperties.getSyncMaxWaitSeconds())));
+        Set<String> authors = getAuthors(login);
+        DeferredResult<TimelineSyncDTO> result = new DeferredResult<>(wait + SETTLE_MILLIS);
+        TimelineSyncDTO changes = sync(login, authors, since, limit);
+        if (changes.hasChanges() || wait == 0) {
+            result.setResult(changes);
+            return result;
+        }
+        Waiter waiter = new Waiter(login, authors, since, limit, result);
+        result.onTimeout(() -> result.setResult(sync(login, authors, since, limit)));
+        result.onCompletion(() -> {
+            remove(waitersByOwner, login, waiter);
+            authors.forEach(author -> remove(waitersByAuthor, author, waiter));
+        });
+        add(waitersByOwner, login, waiter);
+        authors.forEach(author -> add(waitersByAuthor, author, waiter));
+        return result;
+    }
+
+    /**
+     * Advance the low watermark of the journal, and answer the waiting syncs concerned by the changes journaled on
+     * this node, once they are settled.
+     */
+    @Scheduled(fixedDelay = 200)
+    public void wakeWaiters() {
+        long settled = settle();
+        Set<Waiter> woken = new HashSet<>();
+        // the queue is only polled here, so the peeked change is the polled one
+        for (TimelineChange change = unsettled.peek(); change != null && change.getId() <= settled;
+             change = unsettled.peek()) {
+            unsettled.poll();
+            woken.addAll(change.getOwner() != null ?
+                waitersByOwner.getOrDefault(change.getOwner(), Collections.emptySet()) :
+                waitersByAuthor.getOrDefault(change.getTweeter(), Collections.emptySet()));
+        }
+        woken.forEach(waiter -> {
+            try {
+                taskExecutor.execute(() -> wake(waiter));
+            } catch (RejectedExecutionException e) {
+                // the waiter is answered at the end of its wait
+                log.debug("Could not wake the timeline sync of {}", waiter.login);
+            }
+        });
+    }
+
+    private void wake(Waiter waiter) {
+        if (waiter.result.isSetOrExpired() || !waiter.querying.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            TimelineSyncDTO changes = sync(waiter.login, waiter.authors, waiter.since, waiter.limit);
+            if (changes.hasChanges()) {
+                waiter.result.setResult(changes);
+            }
+        } finally {
+            waiter.querying.set(false);
+        }
+    }
+
+    /**
+     * Remove the journal entries older than {@code application.timeline.sync-retention-days}.
+     * <p>
+     * The sequence number of the newest removed entry is saved first, so that the syncs from older tokens,
+     * which can no longer be answered, are reset. This is scheduled to get fired everyday, at 01:30 (am).
+     */
+    @Scheduled(cron = "0 30 1 * * ?")
+    public void purge() {
+        Instant cutoff = Instant.now().minus(timelineProperties.getSyncRetentionDays(), ChronoUnit.DAYS);
+        Query newest = query(where("time").lt(cutoff)).with(Sort.by(Sort.Direction.DESC, "time")).limit(1);
+        TimelineChange last = mongoTemplate.findOne(newest, TimelineChange.class);
+        if (last != null) {
+            mongoTemplate.upsert(query(where("_id").is(TimelineChange.class.getSimpleName())),
+                new Update().max("purged", last.getId()), SEQUENCE_COLLECTION);
+            long removed = mongoTemplate.remove(query(where("id").lte(last.getId())), TimelineChange.class)
+                .getDeletedCount();
+            log.debug("Purged {} timeline changes", removed);
+        }
+    }
+
+    private TimelineSyncDTO sync(String login, Set<String> authors, Long since, int limit) {
+        log.debug("Request to sync the timeline of {} since {}", login, since);
+        Document sequence = getSequence();
+        long purged = sequence == null ? 0 : getLong(sequence, "purged");
+        long settled = sequence == null ? 0 : Math.max(getLong(sequence, "settled"), purged);
+        if (since == null || since < purged) {
+            return reset(settled);
+        }
+        Query query = query(new Criteria().andOperator(
+            where("id").gt(since).lte(settled),
+            new Criteria().orOperator(where("tweeter").in(authors), where("owner").is(login))))
+            .with(Sort.by(Sort.Direction.ASC, "id"))
+            .limit(limit + 1);
+        List<TimelineChange> journal = mongoTemplate.find(query, TimelineChange.class);
+        if (journal.isEmpty()) {
+            // the next sync starts after the entries read, rather than reading them again
+            return new TimelineSyncDTO(String.valueOf(Math.max(since, settled)));
+        }
+        List<TimelineChange> read = journal.subList(0, Math.min(limit, journal.size()));
+        if (read.stream().anyMatch(change -> change.getType() == TimelineChange.Type.RESET)) {
+            return reset(settled);
+        }
+        // only the last change of each tweet matters
+        Map<String, TimelineChange.Type> changes = new LinkedHashMap<>();
+        read.forEach(change -> {
+            changes.remove(change.getTweetId());
+            changes.put(change.getTweetId(), change.getType());
+        });
+        List<String> updated = changes.entrySet().stream()
+            .filter(change -> change.getValue() != TimelineChange.Type.DELETED)
+            .map(Map.Entry::getKey)
+            .collect(Collectors.toList());
+        Map<String, Tweet> tweets = tweetRepository.findAllByIdIn(updated).stream()
+            .collect(Collectors.toMap(Tweet::getId, Function.identity()));
+        boolean more = journal.size() > limit;
+        TimelineSyncDTO result = new TimelineSyncDTO(String.valueOf(more ? read.get(read.size() - 1).getId() : settled));
+        changes.keySet().forEach(id -> {
+            Tweet tweet = tweets.get(id);
+            // a tweet deleted since its last journaled change is reported as deleted already
+            if (tweet != null) {
+                result.getTweets().add(tweet);
+            } else {
+                result.getDeleted().add(id);
+            }
+        });
+        result.setMore(more);
+        return result;
+    }
+
+    /**
+     * A reset, with the settled sequence number as token.
+     */
+    private TimelineSyncDTO reset(long settled) {
+        TimelineSyncDTO result = new TimelineSyncDTO(String.valueOf(settled));
+        result.setReset(true);
+        return result;
+    }
+
+    /**
+     * Advance the low watermark of the journal past the entries inserted since, and past the missing entries
+     * numbered more than {@link #SETTLE_MILLIS} before a later one. All the nodes advance it, so it only grows.
+     *
+     * @return the sequence number up to which all the entries are inserted or lost
+     */
+    private long settle() {
+        Document sequence = getSequence();
+        if (sequence == null) {
+            return 0;
+        }
+        long settled = Math.max(getLong(sequence, "settled"), getLong(sequence, "purged"));
+        if (settled >= getLong(sequence, "value")) {
+            return settled;
+        }
+        long previous = settled;
+        Query query = query(where("id").gt(settled)).with(Sort.by(Sort.Direction.ASC, "id")).limit(SETTLE_BATCH_SIZE);
+        query.fields().include("time");
+        Instant lost = null;
+        for (TimelineChange change : mongoTemplate.find(query, TimelineChange.class)) {
+            if (change.getId() != settled + 1) {
+                if (lost == null) {
+                    lost = getServerTime().minusMillis(SETTLE_MILLIS);
+                }
+                if (!change.getTime().isBefore(lost)) {
+                    // the missing entries may still be in flight
+                    break;
+                }
+                log.warn("Timeline changes {} to {} were lost", settled + 1, change.getId() - 1);
+            }
+            settled = change.getId();
+        }
+        if (settled > previous) {
+            mongoTemplate.updateFirst(query(where("_id").is(TimelineChange.class.getSimpleName())),
+                new Update().max("settled", settled), SEQUENCE_COLLECTION);
+        }
+        return settled;
+    }
+
+    private Instant getServerTime() {
+        return mongoTemplate.executeCommand(new Document("isMaster", 1)).getDate("localTime").toInstant();
+    }
+
+    private Document getSequence() {
+        return mongoTemplate.findById(TimelineChange.class.getSimpleName(), Document.class, SEQUENCE_COLLECTION);
+    }
+
+    private static long getLong(Document document, String key) {
+        Object value = document.get(key);
+        return value == null ? 0 : ((Number) value).longValue();
+    }
+
+    private Set<String> getAuthors(String login) {
+        Set<String> authors = new HashSet<>();
+        authors.add(login);
+        followRepository.findAllByFollower(login).stream().map(Follow::getFollowee).forEach(authors::add);
+        return authors;
+    }
+
+    private static void add(ConcurrentMap<String, Set<Waiter>> waiters, String key, Waiter waiter) {
+        waiters.compute(key, (k, set) -> {
+            Set<Waiter> result = set == null ? ConcurrentHashMap.newKeySet() : set;
+            result.add(waiter);
+            return result;
+        });
+    }
+
+    private static void remove(ConcurrentMap<String, Set<Waiter>> waiters, String key, Waiter waiter) {
+        waiters.computeIfPresent(key, (k, set) -> {
+            set.remove(waiter);
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    private static final class Waiter {
+
+        private final String login;
+
+        private final Set<String> authors;
+
+        private final Long since;
+
+        private final int limit;
+
+        private final DeferredResult<TimelineSyncDTO> result;
+
+        private final AtomicBoolean querying = new AtomicBoolean();
+
+        private Waiter(String login, Set<String> authors, Long since, int limit, DeferredResult<TimelineSyncDTO> result) {
+            this.login = login;
+            this.authors = authors;
+            this.since = since;
+            this.limit = limit;
+            this.result = result;
+        }
+    }
+}
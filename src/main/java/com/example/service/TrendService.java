@@ -0,0 +1,106 @@
+package com.example.service;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.example.config.ApplicationProperties;
+import com.example.domain.TagBucket;
+import com.example.service.dto.TrendDTO;
+import com.example.service.event.TweetEvent;
+import com.example.service.trend.SlidingWindow;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Finds the trending hashtags over the last 5 minutes, hour and day.
+ * <p>
+ * Publishing a tweet only adds its hashtags to a lock-free queue, bounded by {@code max-pending}: the request
+ * thread never waits. The queue is drained every second by a single scheduled task, which updates a
+ * {@link SlidingWindow} per period and publishes their top hashtags, so that reading the trends is a volatile read.
+ * All summaries have a fixed size, so memory does not grow with the number of distinct hashtags.
+ */
+@Service
+public class TrendService {
+
+    private static final long AGGREGATION_INTERVAL_MILLIS = 1000;
+
+    private final ApplicationProperties.Trends trendProperties;
+
+    private final Map<String, SlidingWindow> windows = new LinkedHashMap<>();
+
+    private final ConcurrentLinkedQueue<String> pending = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger pendingCount = new AtomicInteger();
+
+    private final Meter dropped;
+
+    private volatile Map<String, List<TrendDTO>> trends = Collections.emptyMap();
+
+    public TrendService(ApplicationProperties applicationProperties, MetricRegistry metricRegistry) {
+        this.trendProperties = applicationProperties.getTrends();
+        windows.put("5m", newWindow(Duration.ofMinutes(5), 5));
+        windows.put("1h", newWindow(Duration.ofHours(1), 12));
+        windows.put("24h", newWindow(Duration.ofDays(1), 24));
+        this.dropped = metricRegistry.meter("trends.dropped");
+        metricRegistry.register("trends.pending", (Gauge<Integer>) pendingCount::get);
+    }
+
+    /**
+     * Queue the hashtags of new tweets. This runs on the request thread, so it does not take any lock.
+     *
+     * @param event the tweet change
+     */
+    @EventListener
+    public void onTweetEvent(TweetEvent event) {
+        if (event.getType() != TweetEvent.Type.CREATED) {
+            return;
+        }
+        for (String tag : event.getTweet().getTags()) {
+            if (pendingCount.incrementAndGet() > trendProperties.getMaxPending()) {
+                // the aggregation is lagging: shed load rather than grow the queue
+                pendingCount.decrementAndGet();
+                dropped.mark();
+            } else {
+                pending.offer(TagBucket.normalize(tag));
+            }
+        }
+    }
+
+    /**
+     * Count the queued hashtags, and publish the top hashtags of each window.
+     */
+    @Scheduled(fixedDelay = AGGREGATION_INTERVAL_MILLIS)
+    public synchronized void aggregate() {
+        long now = System.currentTimeMillis();
+        for (String tag = pending.poll(); tag != null; tag = pending.poll()) {
+            pendingCount.decrementAndGet();
+            for (SlidingWindow window : windows.values()) {
+                window.add(tag, now);
+            }
+        }
+        Map<String, List<TrendDTO>> top = new LinkedHashMap<>();
+        windows.forEach((name, window) -> top.put(name, window.top(trendProperties.getTop(), now)));
+        trends = Collections.unmodifiableMap(top);
+    }
+
+    /**
+     * @return the top hashtags of each window ("5m", "1h" and "24h"), most used first, as of the last aggregation
+     */
+    public Map<String, List<TrendDTO>> getTrends() {
+        return trends;
+    }
+
+    private SlidingWindow newWindow(Duration length, int slices) {
+        return new SlidingWindow(length, slices, trendProperties.getSketchWidth(), trendProperties.getSketchDepth(),
+            trendProperties.getCandidatesPerSlice());
+    }
+}
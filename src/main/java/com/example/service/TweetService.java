@@ -0,0 +1,138 @@
+package com.example.service;
+
+import com.example.domain.Tweet;
+import com.example.repository.TweetRepository;
+import com.example.service.dto.TweetCursor;
+import com.example.service.event.TweetEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Service Implementation for managing Tweet.
+ * <p>
+ * Every change is published as a {@link TweetEvent}, so that timelines and other derived data can follow it.
+ */
+@Service
+public class TweetService {
+
+    private final Logger log = LoggerFactory.getLogger(TweetService.class);
+
+    private final TweetRepository tweetRepository;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    public TweetService(TweetRepository tweetRepository, ApplicationEventPublisher eventPublisher) {
+        this.tweetRepository = tweetRepository;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Save a tweet.
+     *
+     * @param tweet the entity to save
+     * @return the persisted entity
+     */
+    public Tweet save(Tweet tweet) {
+        log.debug("Request to save Tweet : {}", tweet);
+        Optional<Tweet> previous = tweet.getId() == null ? Optional.empty() : tweetRepository.findById(tweet.getId());
+        Tweet result = tweetRepository.save(tweet);
+        eventPublisher.publishEvent(previous
+            .map(previousTweet -> TweetEvent.updated(result, previousTweet))
+            .orElseGet(() -> TweetEvent.created(result)));
+        return result;
+    }
+
+    /**
+     * Insert a batch of new tweets, with a single bulk write.
+     * <p>
+     * The refs and tags of the tweets are extracted in parallel beforehand, and a {@link TweetEvent} is published
+     * for every inserted tweet, as for {@link #save(Tweet)}.
+     *
+     * @param tweets the new tweets, given an id if they have none
+     * @return the error messages of the tweets that could not be inserted, by index in the list
+     */
+    public Map<Integer, String> insertAll(List<Tweet> tweets) {
+        log.debug("Request to insert {} Tweets", tweets.size());
+        tweets.parallelStream().forEach(Tweet::ensureTokenized);
+        Map<Integer, String> failures = tweetRepository.insertAll(tweets);
+        for (int i = 0; i < tweets.size(); i++) {
+            if (!failures.containsKey(i)) {
+                eventPublisher.publishEvent(TweetEvent.created(tweets.get(i)));
+            }
+        }
+        return failures;
+    }
+
+    /**
+     * Get all the tweets.
+     *
+     * @param pageable the pagination information
+     * @return the list of entities
+     */
+    public Page<Tweet> findAll(Pageable pageable) {
+        log.debug("Request to get all Tweets");
+        return tweetRepository.findAll(pageable);
+    }
+
+    /**
+     * Get a slice of all the tweets, newest first, with keyset pagination.
+     *
+     * @param before the last tweet already read, or null to start with the newest tweet
+     * @param limit the maximum number of tweets to return
+     * @return the slice of entities
+     */
+    public Slice<Tweet> findAllBefore(TweetCursor before, int limit) {
+        log.debug("Request to get Tweets before {}", before);
+        return before == null ?
+            tweetRepository.findAllBefore(null, null, null, limit) :
+            tweetRepository.findAllBefore(null, before.getCreateTime(), before.getId(), limit);
+    }
+
+    /**
+     * Get a slice of the tweets mentioning a user, newest first, with keyset pagination.
+     *
+     * @param login the login of the mentioned user
+     * @param before the last tweet already read, or null to start with the newest tweet
+     * @param limit the maximum number of tweets to return
+     * @return the slice of entities
+     */
+    public Slice<Tweet> findAllMentioning(String login, TweetCursor before, int limit) {
+        log.debug("Request to get Tweets mentioning {} before {}", login, before);
+        return before == null ?
+            tweetRepository.findAllMentioningBefore(login, null, null, limit) :
+            tweetRepository.findAllMentioningBefore(login, before.getCreateTime(), before.getId(), limit);
+    }
+
+    /**
+     * Get one tweet by id.
+     *
+     * @param id the id of the entity
+     * @return the entity
+     */
+    public Optional<Tweet> findOne(String id) {
+        log.debug("Request to get Tweet : {}", id);
+        return tweetRepository.findById(id);
+    }
+
+    /**
+     * Delete the tweet by id.
+     *
+     * @param id the id of the entity
+     */
+    public void delete(String id) {
+        log.debug("Request to delete Tweet : {}", id);
+        tweetRepository.findById(id).ifPresent(tweet -> {
+            tweetRepository.delete(tweet);
+            eventPublisher.publishEvent(TweetEvent.deleted(tweet));
+        });
+    }
+}
@@ -0,0 +1,221 @@
+package com.example.service;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.example.config.ApplicationProperties;
+import com.example.domain.Tweet;
+import com.example.service.util.RingBuffer;
+import com.example.web.rest.errors.ServiceUnavailableException;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
+
+/**
+ * Group commit of new tweets, used when {@code application.tweet-writes.mode} is {@code GROUP}.
+ * <p>
+ * Request threads only give the tweet an id and offer it to a bounded {@link RingBuffer}. A single writer thread
+ * drains the buffer and inserts the tweets with {@link TweetService#insertAll(List)}, as soon as a batch of
+ * {@code batch-size} tweets is waiting, or {@code flush-interval-millis} after the first one arrived. Under load,
+ * MongoDB thus sees a few large inserts instead of a round trip per tweet. When the writer cannot keep up, the
+ * buffer fills up and new tweets are refused, so that callers back off instead of queuing without bound.
+ * <p>
+ * Once the writer is stopped, or has died, new tweets are refused with a 503, and the tweets still buffered are
+ * failed. Callers waiting for their batch give up after {@code write-timeout-millis}.
+ */
+@Service
+public class TweetWritePipeline {
+
+    private final Logger log = LoggerFactory.getLogger(TweetWritePipeline.class);
+
+    private final TweetService tweetService;
+
+    private final ApplicationProperties.TweetWrites properties;
+
+    private final RingBuffer<PendingWrite> buffer;
+
+    private final Histogram batchSizes;
+
+    private final Meter rejected;
+
+    private final Meter failed;
+
+    private volatile boolean running;
+
+    private volatile Thread writer;
+
+    public TweetWritePipeline(TweetService tweetService, ApplicationProperties applicationProperties,
+                              MetricRegistry metricRegistry) {
+        this.tweetService = tweetService;
+        this.properties = applicationProperties.getTweetWrites();
+        this.buffer = new RingBuffer<>(properties.getBufferSize());
+        this.batchSizes = metricRegistry.histogram("tweets.write.batch-size");
+        this.rejected = metricRegistry.meter("tweets.write.rejected");
+        this.failed = metricRegistry.meter("tweets.write.failed");
+        metricRegistry.register("tweets.write.pending", (Gauge<Integer>) buffer::size);
+    }
+
+    public boolean isEnabled() {
+        return properties.getMode() == ApplicationProperties.TweetWrites.Mode.GROUP;
+    }
+
+    public long getRetryAfterSeconds() {
+        return properties.getRetryAfterSeconds();
+    }
+
+    @PostConstruct
+    public void start() {
+        if (isEnabled()) {
+            running = true;
+            writer = new Thread(this::run, "twitster-tweet-writer");
+            writer.setDaemon(true);
+            writer.start();
+        }
+    }
+
+    /**
+     * Stop the writer once the buffered tweets are written.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        Thread thread = writer;
+        if (thread != null) {
+            running = false;
+            LockSupport.unpark(thread);
+            thread.join(TimeUnit.SECONDS.toMillis(10));
+        }
+    }
+
+    /**
+     * Write a new tweet with the next batch.
+     * <p>
+     * With {@code ack: ACCEPTED}, this returns as soon as the tweet is buffered. With {@code ack: WRITTEN}, it
+     * waits for the batch to be written, and fails if the tweet could not be inserted.
+     *
+     * @param tweet the new tweet, which is given an id
+     * @return the tweet, or an empty optional if the buffer is full
+     * @throws ServiceUnavailableException 503 (Service Unavailable) if the writer is not running, or if the batch
+     * was not written within {@code write-timeout-millis}, in which case the tweet may still be written
+     */
+    public Optional<Tweet> write(Tweet tweet) {
+        log.debug("Request to write Tweet : {}", tweet);
+        if (!running) {
+            throw new ServiceUnavailableException("Tweets are not being written", properties.getRetryAfterSeconds());
+        }
+        tweet.setId(ObjectId.get().toHexString());
+        // tokenized here, so that the tweet is not modified by the writer while it is returned to the client
+        tweet.ensureTokenized();
+        PendingWrite write = new PendingWrite(tweet);
+        if (!buffer.offer(write)) {
+            rejected.mark();
+            tweet.setId(null);
+            return Optional.empty();
+        }
+        // lets the writer notice the tweet before the end of its wait, if the batch is full
+        LockSupport.unpark(writer);
+        if (properties.getAck() == ApplicationProperties.TweetWrites.Ack.ACCEPTED) {
+            return Optional.of(tweet);
+        }
+        try {
+            return Optional.of(write.future.get(properties.getWriteTimeoutMillis(), TimeUnit.MILLISECONDS));
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Could not write Tweet " + tweet.getId(), e.getCause());
+        } catch (TimeoutException e) {
+            throw new ServiceUnavailableException("Tweet " + tweet.getId() + " is still being written",
+                properties.getRetryAfterSeconds());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("Interrupted while writing Tweet " + tweet.getId(),
+                properties.getRetryAfterSeconds());
+        }
+    }
+
+    private void run() {
+        try {
+            writeBatches();
+        } finally {
+            // also reached if the writer dies, after which the new tweets are refused, and the buffered ones failed
+            running = false;
+            List<PendingWrite> left = new ArrayList<>();
+            buffer.drainTo(left, Integer.MAX_VALUE);
+            if (!left.isEmpty()) {
+                log.error("Tweet writer stopped with {} tweets not written", left.size());
+                failed.mark(left.size());
+                IllegalStateException e = new IllegalStateException("The tweet writer stopped");
+                left.forEach(write -> write.future.completeExceptionally(e));
+            }
+        }
+    }
+
+    private void writeBatches() {
+        long flushInterval = TimeUnit.MILLISECONDS.toNanos(properties.getFlushIntervalMillis());
+        int batchSize = properties.getBatchSize();
+        List<PendingWrite> batch = new ArrayList<>(batchSize);
+        while (running || !buffer.isEmpty()) {
+            if (buffer.isEmpty()) {
+                // woken by the next write, the timeout only bounds the wait for a stop
+                LockSupport.parkNanos(this, TimeUnit.SECONDS.toNanos(1));
+                continue;
+            }
+            long deadline = System.nanoTime() + flushInterval;
+            for (long remaining = flushInterval; running && remaining > 0 && buffer.size() < batchSize;
+                 remaining = deadline - System.nanoTime()) {
+                LockSupport.parkNanos(this, remaining);
+            }
+            buffer.drainTo(batch, batchSize);
+            insert(batch);
+            batch.clear();
+        }
+    }
+
+    private void insert(List<PendingWrite> batch) {
+        batchSizes.update(batch.size());
+        List<Tweet> tweets = batch.stream().map(write -> write.tweet).collect(Collectors.toList());
+        Map<Integer, String> failures;
+        try {
+            failures = tweetService.insertAll(tweets);
+        } catch (RuntimeException e) {
+            log.error("Could not write a batch of {} tweets", tweets.size(), e);
+            failed.mark(batch.size());
+            batch.forEach(write -> write.future.completeExceptionally(e));
+            return;
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            PendingWrite write = batch.get(i);
+            String failure = failures.get(i);
+            if (failure == null) {
+                write.future.complete(write.tweet);
+            } else {
+                log.error("Could not write Tweet {}: {}", write.tweet.getId(), failure);
+                failed.mark();
+                write.future.completeExceptionally(new IllegalStateException(failure));
+            }
+        }
+    }
+
+    private static final class PendingWrite {
+
+        private final Tweet tweet;
+
+        private final CompletableFuture<Tweet> future = new CompletableFuture<>();
+
+        private PendingWrite(Tweet tweet) {
+            this.tweet = tweet;
+        }
+    }
+}
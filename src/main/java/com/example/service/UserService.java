@@ -13,9 +13,9 @@ import com.example.web.rest.errors.*;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.cache.CacheManager;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.util.CloseableIterator;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
@@ -31,6 +31,8 @@ import java.util.stream.Collectors;
 @Service
 public class UserService {
 
+    static final int PURGE_BATCH_SIZE = 1000;
+
     private final Logger log = LoggerFactory.getLogger(UserService.class);
 
     private final UserRepository userRepository;
@@ -39,13 +41,16 @@ public class UserService {
 
     private final AuthorityRepository authorityRepository;
 
-    private final CacheManager cacheManager;
+    private final CacheInvalidationService cacheInvalidationService;
+
+    private final LoginIndex loginIndex;
 
-    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder, AuthorityRepository authorityRepository, CacheManager cacheManager) {
+    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder, AuthorityRepository authorityRepository, CacheInvalidationService cacheInvalidationService, LoginIndex loginIndex) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.authorityRepository = authorityRepository;
-        this.cacheManager = cacheManager;
+        this.cacheInvalidationService = cacheInvalidationService;
+        this.loginIndex = loginIndex;
     }
 
     public Optional<User> activateRegistration(String key) {
@@ -57,6 +62,7 @@ public class UserService {
                 user.setActivationKey(null);
                 userRepository.save(user);
                 this.clearUserCaches(user);
+                loginIndex.add(user.getLogin());
                 log.debug("Activated user: {}", user);
                 return user;
             });
@@ -77,7 +83,7 @@ public class UserService {
     }
 
     public Optional<User> requestPasswordReset(String mail) {
-        return userRepository.findOneByEmailIgnoreCase(mail)
+        return userRepository.findOneByEmailKey(User.toEmailKey(mail))
             .filter(User::getActivated)
             .map(user -> {
                 user.setResetKey(RandomUtil.generateResetKey());
@@ -95,7 +101,7 @@ public class UserService {
                 throw new LoginAlreadyUsedException();
             }
         });
-        userRepository.findOneByEmailIgnoreCase(userDTO.getEmail()).ifPresent(existingUser -> {
+        userRepository.findOneByEmailKey(User.toEmailKey(userDTO.getEmail())).ifPresent(existingUser -> {
             boolean removed = removeNonActivatedUser(existingUser);
             if (!removed) {
                 throw new EmailAlreadyUsedException();
@@ -159,6 +165,7 @@ public class UserService {
         }
         userRepository.save(user);
         this.clearUserCaches(user);
+        loginIndex.add(user.getLogin());
         log.debug("Created Information for User: {}", user);
         return user;
     }
@@ -200,6 +207,7 @@ public class UserService {
             .map(Optional::get)
             .map(user -> {
                 this.clearUserCaches(user);
+                loginIndex.remove(user.getLogin());
                 user.setLogin(userDTO.getLogin().toLowerCase());
                 user.setFirstName(userDTO.getFirstName());
                 user.setLastName(userDTO.getLastName());
@@ -216,6 +224,9 @@ public class UserService {
                     .forEach(managedAuthorities::add);
                 userRepository.save(user);
                 this.clearUserCaches(user);
+                if (user.getActivated()) {
+                    loginIndex.add(user.getLogin());
+                }
                 log.debug("Changed Information for User: {}", user);
                 return user;
             })
@@ -226,6 +237,7 @@ public class UserService {
         userRepository.findOneByLogin(login).ifPresent(user -> {
             userRepository.delete(user);
             this.clearUserCaches(user);
+            loginIndex.remove(user.getLogin());
             log.debug("Deleted User: {}", user);
         });
     }
@@ -265,17 +277,37 @@ public class UserService {
     /**
      * Not activated users should be automatically deleted after 3 days.
      * <p>
-     * This is scheduled to get fired everyday, at 01:00 (am).
+     * This is scheduled to get fired everyday, at 01:00 (am). The users are streamed, then deleted and evicted
+     * from the caches by batches of {@link #PURGE_BATCH_SIZE}, with one query per batch.
      */
     @Scheduled(cron = "0 0 1 * * ?")
     public void removeNotActivatedUsers() {
-        userRepository
-            .findAllByActivatedIsFalseAndCreatedDateBefore(Instant.now().minus(3, ChronoUnit.DAYS))
-            .forEach(user -> {
-                log.debug("Deleting not activated user {}", user.getLogin());
-                userRepository.delete(user);
-                this.clearUserCaches(user);
-            });
+        Instant createdBefore = Instant.now().minus(3, ChronoUnit.DAYS);
+        List<User> batch = new ArrayList<>(PURGE_BATCH_SIZE);
+        long removed = 0;
+        try (CloseableIterator<User> users = userRepository.streamNotActivatedUsers(createdBefore)) {
+            while (users.hasNext()) {
+                batch.add(users.next());
+                if (batch.size() == PURGE_BATCH_SIZE) {
+                    removed += removeNotActivatedUsers(batch, createdBefore);
+                    batch.clear();
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            removed += removeNotActivatedUsers(batch, createdBefore);
+        }
+        log.debug("Deleted {} not activated users", removed);
+    }
+
+    private long removeNotActivatedUsers(List<User> users, Instant createdBefore) {
+        long removed = userRepository.deleteNotActivatedUsers(
+            users.stream().map(User::getId).collect(Collectors.toList()), createdBefore);
+        cacheInvalidationService.evict(UserRepository.USERS_BY_LOGIN_CACHE,
+            users.stream().map(User::getLogin).collect(Collectors.toList()));
+        cacheInvalidationService.evict(UserRepository.USERS_BY_EMAIL_CACHE,
+            users.stream().map(User::getEmailKey).collect(Collectors.toList()));
+        return removed;
     }
 
     /**
@@ -286,7 +318,7 @@ public class UserService {
     }
 
     private void clearUserCaches(User user) {
-        Objects.requireNonNull(cacheManager.getCache(UserRepository.USERS_BY_LOGIN_CACHE)).evict(user.getLogin());
-        Objects.requireNonNull(cacheManager.getCache(UserRepository.USERS_BY_EMAIL_CACHE)).evict(user.getEmail());
+        cacheInvalidationService.evict(UserRepository.USERS_BY_LOGIN_CACHE, user.getLogin());
+        cacheInvalidationService.evict(UserRepository.USERS_BY_EMAIL_CACHE, user.getEmailKey());
     }
 }
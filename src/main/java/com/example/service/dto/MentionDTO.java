@@ -0,0 +1,50 @@
+package com.example.service.dto;
+
+import com.example.domain.User;
+
+/**
+ * A user mentioned in a tweet, with what is needed to render a link to their profile.
+ */
+public class MentionDTO {
+
+    private final String login;
+
+    private final String firstName;
+
+    private final String lastName;
+
+    private final String imageUrl;
+
+    public MentionDTO(User user) {
+        this.login = user.getLogin();
+        this.firstName = user.getFirstName();
+        this.lastName = user.getLastName();
+        this.imageUrl = user.getImageUrl();
+    }
+
+    public String getLogin() {
+        return login;
+    }
+
+    public String getFirstName() {
+        return firstName;
+    }
+
+    public String getLastName() {
+        return lastName;
+    }
+
+    public String getImageUrl() {
+        return imageUrl;
+    }
+
+    @Override
+    public String toString() {
+        return "MentionDTO{" +
+            "login='" + login + "'" +
+            ", firstName='" + firstName + "'" +
+            ", lastName='" + lastName + "'" +
+            ", imageUrl='" + imageUrl + "'" +
+            "}";
+    }
+}
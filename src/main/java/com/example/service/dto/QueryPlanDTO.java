@@ -0,0 +1,111 @@
+package com.example.service.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The winning plan of a repository query, as reported by the index advisor.
+ */
+public class QueryPlanDTO {
+
+    private String repository;
+
+    private String method;
+
+    private String collection;
+
+    private String filter;
+
+    private String sort;
+
+    private List<String> stages = new ArrayList<>();
+
+    private List<String> indexes = new ArrayList<>();
+
+    private List<String> warnings = new ArrayList<>();
+
+    public QueryPlanDTO() {
+        // Empty constructor needed for Jackson.
+    }
+
+    public QueryPlanDTO(String repository, String method) {
+        this.repository = repository;
+        this.method = method;
+    }
+
+    public String getRepository() {
+        return repository;
+    }
+
+    public void setRepository(String repository) {
+        this.repository = repository;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public void setMethod(String method) {
+        this.method = method;
+    }
+
+    public String getCollection() {
+        return collection;
+    }
+
+    public void setCollection(String collection) {
+        this.collection = collection;
+    }
+
+    public String getFilter() {
+        return filter;
+    }
+
+    public void setFilter(String filter) {
+        this.filter = filter;
+    }
+
+    public String getSort() {
+        return sort;
+    }
+
+    public void setSort(String sort) {
+        this.sort = sort;
+    }
+
+    public List<String> getStages() {
+        return stages;
+    }
+
+    public void setStages(List<String> stages) {
+        this.stages = stages;
+    }
+
+    public List<String> getIndexes() {
+        return indexes;
+    }
+
+    public void setIndexes(List<String> indexes) {
+        this.indexes = indexes;
+    }
+
+    public List<String> getWarnings() {
+        return warnings;
+    }
+
+    public void setWarnings(List<String> warnings) {
+        this.warnings = warnings;
+    }
+
+    @Override
+    public String toString() {
+        return "QueryPlanDTO{" +
+            "repository='" + repository + '\'' +
+            ", method='" + method + '\'' +
+            ", collection='" + collection + '\'' +
+            ", stages=" + stages +
+            ", indexes=" + indexes +
+            ", warnings=" + warnings +
+            "}";
+    }
+}
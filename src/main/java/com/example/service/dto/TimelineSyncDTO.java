@@ -0,0 +1,90 @@
+package com.example.service.dto;
+
+import com.example.domain.Tweet;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The changes of a home timeline since a sync token.
+ * <p>
+ * Tweets created or updated since the token are returned in their current version in {@code tweets}, and the
+ * ids of the deleted ones in {@code deleted}. When {@code reset} is set, the changes are not known and the
+ * whole timeline must be read again. The {@code token} is to be passed to the next sync, and {@code more} tells
+ * whether changes remain after it.
+ */
+public class TimelineSyncDTO {
+
+    private String token;
+
+    private boolean reset;
+
+    private boolean more;
+
+    private List<Tweet> tweets = new ArrayList<>();
+
+    private List<String> deleted = new ArrayList<>();
+
+    public TimelineSyncDTO() {
+        // Empty constructor needed for Jackson.
+    }
+
+    public TimelineSyncDTO(String token) {
+        this.token = token;
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    public void setToken(String token) {
+        this.token = token;
+    }
+
+    public boolean isReset() {
+        return reset;
+    }
+
+    public void setReset(boolean reset) {
+        this.reset = reset;
+    }
+
+    public boolean isMore() {
+        return more;
+    }
+
+    public void setMore(boolean more) {
+        this.more = more;
+    }
+
+    public List<Tweet> getTweets() {
+        return tweets;
+    }
+
+    public void setTweets(List<Tweet> tweets) {
+        this.tweets = tweets;
+    }
+
+    public List<String> getDeleted() {
+        return deleted;
+    }
+
+    public void setDeleted(List<String> deleted) {
+        this.deleted = deleted;
+    }
+
+    public boolean hasChanges() {
+        return reset || !tweets.isEmpty() || !deleted.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "TimelineSyncDTO{" +
+            "token='" + token + "'" +
+            ", reset=" + reset +
+            ", more=" + more +
+            ", tweets=" + tweets.size() +
+            ", deleted=" + deleted.size() +
+            "}";
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.service.dto;
+
+/**
+ * A trending hashtag, with the estimated number of tweets using it over a time window.
+ */
+public class TrendDTO {
+
+    private final String tag;
+
+    private final long count;
+
+    public TrendDTO(String tag, long count) {
+        this.tag = tag;
+        this.count = count;
+    }
+
+    public String getTag() {
+        return tag;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    @Override
+    public String toString() {
+        return "TrendDTO{" +
+            "tag='" + tag + "'" +
+            ", count=" + count +
+            "}";
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.service.dto;
+
+import com.example.domain.Tweet;
+import org.springframework.data.domain.Slice;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Position in a list of tweets sorted newest first, for keyset pagination.
+ * <p>
+ * A cursor is the creation time and id of the last tweet of a page: the next page starts with the first tweet
+ * strictly older than it, ties on the creation time being broken on the id. Clients get it as an opaque string.
+ */
+public final class TweetCursor {
+
+    private static final char SEPARATOR = ':';
+
+    private final Instant createTime;
+
+    private final String id;
+
+    public TweetCursor(Instant createTime, String id) {
+        this.createTime = Objects.requireNonNull(createTime);
+        this.id = Objects.requireNonNull(id);
+    }
+
+    /**
+     * @param tweet the last tweet of a page
+     * @return the cursor pointing after that tweet
+     */
+    public static TweetCursor of(Tweet tweet) {
+        return new TweetCursor(tweet.getCreateTime(), tweet.getId());
+    }
+
+    /**
+     * @param slice a page of tweets, newest first
+     * @return the cursor of the next page, if there is one
+     */
+    public static Optional<TweetCursor> next(Slice<Tweet> slice) {
+        if (!slice.hasNext() || !slice.hasContent()) {
+            return Optional.empty();
+        }
+        return Optional.of(of(slice.getContent().get(slice.getNumberOfElements() - 1)));
+    }
+
+    /**
+     * @param value a cursor returned by {@link #encode()}
+     * @return the decoded cursor
+     * @throws IllegalArgumentException if the value is not a valid cursor
+     */
+    public static TweetCursor decode(String value) {
+        String decoded = new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8);
+        int separator = decoded.indexOf(SEPARATOR);
+        if (separator <= 0 || separator == decoded.length() - 1) {
+            throw new IllegalArgumentException("Invalid cursor: " + value);
+        }
+        return new TweetCursor(Instant.ofEpochMilli(Long.parseLong(decoded.substring(0, separator))),
+            decoded.substring(separator + 1));
+    }
+
+    public String encode() {
+        String value = Long.toString(createTime.toEpochMilli()) + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public Instant getCreateTime() {
+        return createTime;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        TweetCursor that = (TweetCursor) o;
+        return createTime.equals(that.createTime) && id.equals(that.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(createTime, id);
+    }
+
+    @Override
+    public String toString() {
+        return "TweetCursor{" +
+            "createTime=" + createTime +
+            ", id='" + id + "'" +
+            "}";
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.service.dto;
+
+import com.example.domain.Tweet;
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+
+import java.util.List;
+
+/**
+ * A tweet, with the users it mentions. It is serialized as the tweet itself, with an additional
+ * {@code mentions} property.
+ */
+public class TweetDTO {
+
+    private final Tweet tweet;
+
+    private final List<MentionDTO> mentions;
+
+    public TweetDTO(Tweet tweet, List<MentionDTO> mentions) {
+        this.tweet = tweet;
+        this.mentions = mentions;
+    }
+
+    @JsonUnwrapped
+    public Tweet getTweet() {
+        return tweet;
+    }
+
+    /**
+     * @return the activated users mentioned in the tweet, in the order of its refs
+     */
+    public List<MentionDTO> getMentions() {
+        return mentions;
+    }
+
+    @Override
+    public String toString() {
+        return "TweetDTO{" +
+            "tweet=" + tweet +
+            ", mentions=" + mentions +
+            "}";
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.service.event;
+
+/**
+ * Published by {@link com.example.service.HotAuthorService} when an author is not hot any more.
+ * <p>
+ * The recent tweets of the author were merged on read, so listeners push them into the timelines of the followers.
+ */
+public class AuthorDemotedEvent {
+
+    private final String author;
+
+    public AuthorDemotedEvent(String author) {
+        this.author = author;
+    }
+
+    /**
+     * @return the login of the demoted author
+     */
+    public String getAuthor() {
+        return author;
+    }
+
+    @Override
+    public String toString() {
+        return "AuthorDemotedEvent{" +
+            "author='" + author + "'" +
+            "}";
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.service.event;
+
+import com.example.domain.Tweet;
+
+/**
+ * Published by {@link com.example.service.TweetService} once a tweet has been created, updated or deleted.
+ * <p>
+ * Listeners use it to keep derived data (timelines, indexes, caches) in sync with the tweet collection.
+ */
+public class TweetEvent {
+
+    public enum Type {
+        CREATED, UPDATED, DELETED
+    }
+
+    private final Type type;
+
+    private final Tweet tweet;
+
+    private final Tweet previous;
+
+    private TweetEvent(Type type, Tweet tweet, Tweet previous) {
+        this.type = type;
+        this.tweet = tweet;
+        this.previous = previous;
+    }
+
+    public static TweetEvent created(Tweet tweet) {
+        return new TweetEvent(Type.CREATED, tweet, null);
+    }
+
+    public static TweetEvent updated(Tweet tweet, Tweet previous) {
+        return new TweetEvent(Type.UPDATED, tweet, previous);
+    }
+
+    public static TweetEvent deleted(Tweet tweet) {
+        return new TweetEvent(Type.DELETED, tweet, null);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * @return the tweet as stored after the change, or as it was before deletion
+     */
+    public Tweet getTweet() {
+        return tweet;
+    }
+
+    /**
+     * @return the tweet as stored before an update, or null for other event types
+     */
+    public Tweet getPrevious() {
+        return previous;
+    }
+
+    @Override
+    public String toString() {
+        return "TweetEvent{" +
+            "type=" + type +
+            ", tweet=" + tweet +
+            "}";
+    }
+}
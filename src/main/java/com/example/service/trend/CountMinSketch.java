@@ -0,0 +1,82 @@
+package com.example.service.trend;
+
+import java.util.Arrays;
+
+/**
+ * Count-Min sketch: approximate counts of a stream of strings, in a fixed amount of memory.
+ * <p>
+ * Each item increments one counter in each of {@code depth} rows of {@code width} counters, and its estimate is the
+ * smallest of these counters. Estimates are never lower than the real count, and exceed it by at most
+ * {@code 2 * total / width} with a probability of {@code 1 - 2^-depth}.
+ * <p>
+ * This class is not thread-safe.
+ */
+public final class CountMinSketch {
+
+    private final int depth;
+
+    private final int mask;
+
+    private final int[] counters;
+
+    /**
+     * @param width the number of counters per row, rounded up to a power of two
+     * @param depth the number of rows
+     */
+    public CountMinSketch(int width, int depth) {
+        if (width < 1 || depth < 1) {
+            throw new IllegalArgumentException("Width and depth must be positive");
+        }
+        int rowWidth = Integer.highestOneBit(width) == width ? width : Integer.highestOneBit(width) << 1;
+        this.depth = depth;
+        this.mask = rowWidth - 1;
+        this.counters = new int[depth * rowWidth];
+    }
+
+    public void add(String item) {
+        long hash64 = hash(item);
+        // double hashing: the row hashes are h1 + i * h2, with an odd h2, from the two halves of a 64-bit hash
+        int hash = (int) hash64;
+        int step = (int) (hash64 >>> 32) | 1;
+        for (int row = 0; row < depth; row++) {
+            int index = row * (mask + 1) + ((hash + row * step) & mask);
+            if (counters[index] != Integer.MAX_VALUE) {
+                counters[index]++;
+            }
+        }
+    }
+
+    public int estimate(String item) {
+        long hash64 = hash(item);
+        int hash = (int) hash64;
+        int step = (int) (hash64 >>> 32) | 1;
+        int estimate = Integer.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters[row * (mask + 1) + ((hash + row * step) & mask)]);
+        }
+        return estimate;
+    }
+
+    public void clear() {
+        Arrays.fill(counters, 0);
+    }
+
+    /**
+     * 64-bit FNV-1a hash of the characters, with the Murmur3 finalizer, so that similar strings do not land in
+     * neighbouring counters. Unlike {@link String#hashCode()}, whose collisions such as "Aa" and "BB" would share
+     * the counters of every row, two strings only share them all if their 64-bit hashes collide.
+     */
+    private static long hash(String item) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < item.length(); i++) {
+            hash ^= item.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.service.trend;
+
+import com.carrotsearch.hppc.ObjectHashSet;
+import com.carrotsearch.hppc.cursors.ObjectCursor;
+import com.example.service.dto.TrendDTO;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Approximate most frequent items over a sliding time window.
+ * <p>
+ * The window is divided into a ring of equal time slices, each holding a {@link CountMinSketch} and a
+ * {@link SpaceSaving} summary. Adding an item only updates the current slice, and a slice is reset when the ring
+ * comes back to it, so the memory used is fixed whatever the number of distinct items. The top items of the
+ * window are the candidates tracked by any of its slices, ranked on the sum of their estimated counts.
+ * <p>
+ * This class is not thread-safe.
+ */
+public final class SlidingWindow {
+
+    private final long sliceMillis;
+
+    private final Slice[] slices;
+
+    /**
+     * @param length the length of the window
+     * @param sliceCount the number of slices of the window, which slides by one slice at a time
+     * @param sketchWidth the width of the Count-Min sketch of each slice
+     * @param sketchDepth the depth of the Count-Min sketch of each slice
+     * @param capacity the number of items tracked by the Space-Saving summary of each slice
+     */
+    public SlidingWindow(Duration length, int sliceCount, int sketchWidth, int sketchDepth, int capacity) {
+        this.sliceMillis = length.toMillis() / sliceCount;
+        this.slices = new Slice[sliceCount];
+        for (int i = 0; i < sliceCount; i++) {
+            slices[i] = new Slice(new CountMinSketch(sketchWidth, sketchDepth), new SpaceSaving(capacity));
+        }
+    }
+
+    /**
+     * @param item the item to count
+     * @param now the current time, in milliseconds
+     */
+    public void add(String item, long now) {
+        Slice slice = slice(now);
+        slice.sketch.add(item);
+        slice.candidates.offer(item);
+    }
+
+    /**
+     * @param limit the maximum number of items to return
+     * @param now the current time, in milliseconds
+     * @return the most frequent items of the window ending now, with their estimated count, most frequent first
+     */
+    public List<TrendDTO> top(int limit, long now) {
+        long oldest = (now / sliceMillis - slices.length + 1) * sliceMillis;
+        ObjectHashSet<String> candidates = new ObjectHashSet<>();
+        for (Slice slice : slices) {
+            if (slice.start >= oldest) {
+                for (String item : slice.candidates.items()) {
+                    candidates.add(item);
+                }
+            }
+        }
+        List<TrendDTO> trends = new ArrayList<>(candidates.size());
+        for (ObjectCursor<String> candidate : candidates) {
+            long count = 0;
+            for (Slice slice : slices) {
+                if (slice.start >= oldest) {
+                    count += slice.sketch.estimate(candidate.value);
+                }
+            }
+            trends.add(new TrendDTO(candidate.value, count));
+        }
+        trends.sort(Comparator.comparingLong(TrendDTO::getCount).reversed().thenComparing(TrendDTO::getTag));
+        return trends.size() > limit ? new ArrayList<>(trends.subList(0, limit)) : trends;
+    }
+
+    /**
+     * @return the slice of the given time, reset first if it still holds an older period
+     */
+    private Slice slice(long now) {
+        long period = now / sliceMillis;
+        Slice slice = slices[(int) (period % slices.length)];
+        long start = period * sliceMillis;
+        if (slice.start != start) {
+            slice.sketch.clear();
+            slice.candidates.clear();
+            slice.start = start;
+        }
+        return slice;
+    }
+
+    private static final class Slice {
+
+        private final CountMinSketch sketch;
+
+        private final SpaceSaving candidates;
+
+        private long start = Long.MIN_VALUE;
+
+        private Slice(CountMinSketch sketch, SpaceSaving candidates) {
+            this.sketch = sketch;
+            this.candidates = candidates;
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.service.trend;
+
+import com.carrotsearch.hppc.ObjectIntHashMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Space-Saving summary: the most frequent items of a stream, tracked with a fixed number of counters.
+ * <p>
+ * When all counters are taken, a new item replaces the item with the smallest count and inherits that count as
+ * its possible overestimation. Any item occurring more than {@code total / capacity} times is guaranteed to be
+ * tracked. Counters are kept in a binary min-heap, and items are located with a primitive-valued HPPC map, so
+ * an update costs {@code O(log capacity)} and allocates nothing once the summary is full.
+ * <p>
+ * This class is not thread-safe.
+ */
+public final class SpaceSaving {
+
+    private final int capacity;
+
+    private final String[] items;
+
+    private final long[] counts;
+
+    /**
+     * Position in the heap of each tracked item.
+     */
+    private final ObjectIntHashMap<String> positions;
+
+    private int size;
+
+    public SpaceSaving(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.items = new String[capacity];
+        this.counts = new long[capacity];
+        this.positions = new ObjectIntHashMap<>(capacity);
+    }
+
+    public void offer(String item) {
+        int position = positions.getOrDefault(item, -1);
+        if (position >= 0) {
+            counts[position]++;
+            siftDown(position);
+        } else if (size < capacity) {
+            items[size] = item;
+            counts[size] = 1;
+            positions.put(item, size);
+            siftUp(size++);
+        } else {
+            // evict the smallest counter, its count becomes the error bound of the new item
+            positions.remove(items[0]);
+            items[0] = item;
+            counts[0]++;
+            positions.put(item, 0);
+            siftDown(0);
+        }
+    }
+
+    /**
+     * @return the tracked items, in no particular order
+     */
+    public List<String> items() {
+        return Collections.unmodifiableList(Arrays.asList(items).subList(0, size));
+    }
+
+    /**
+     * @return the tracked items, most frequent first
+     */
+    public List<String> top(int limit) {
+        List<Integer> order = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            order.add(i);
+        }
+        order.sort((left, right) -> Long.compare(counts[right], counts[left]));
+        List<String> top = new ArrayList<>(Math.min(limit, size));
+        for (int i = 0; i < order.size() && i < limit; i++) {
+            top.add(items[order.get(i)]);
+        }
+        return top;
+    }
+
+    /**
+     * @return the counter of a tracked item, which may overestimate its count, or 0 if it is not tracked
+     */
+    public long count(String item) {
+        int position = positions.getOrDefault(item, -1);
+        return position >= 0 ? counts[position] : 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        Arrays.fill(items, 0, size, null);
+        Arrays.fill(counts, 0, size, 0);
+        positions.clear();
+        size = 0;
+    }
+
+    private void siftUp(int position) {
+        int child = position;
+        while (child > 0) {
+            int parent = (child - 1) >>> 1;
+            if (counts[parent] <= counts[child]) {
+                return;
+            }
+            swap(parent, child);
+            child = parent;
+        }
+    }
+
+    private void siftDown(int position) {
+        int parent = position;
+        while (true) {
+            int smallest = parent;
+            int left = 2 * parent + 1;
+            int right = left + 1;
+            if (left < size && counts[left] < counts[smallest]) {
+                smallest = left;
+            }
+            if (right < size && counts[right] < counts[smallest]) {
+                smallest = right;
+            }
+            if (smallest == parent) {
+                return;
+            }
+            swap(parent, smallest);
+            parent = smallest;
+        }
+    }
+
+    private void swap(int i, int j) {
+        String item = items[i];
+        items[i] = items[j];
+        items[j] = item;
+        long count = counts[i];
+        counts[i] = counts[j];
+        counts[j] = count;
+        positions.put(items[i], i);
+        positions.put(items[j], j);
+    }
+}
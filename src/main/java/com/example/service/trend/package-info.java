@@ -0,0 +1,4 @@
+/**
+ * Fixed-size stream summaries used to find trending hashtags.
+ */
+package com.example.service.trend;
@@ -0,0 +1,136 @@
+package com.example.service.util;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded lock-free queue, on a ring of slots whose capacity is a power of two.
+ * <p>
+ * Each slot has a sequence number telling whether it is free for the offer at a given position, or holds the
+ * item for the poll at that position. Producers and consumers claim positions with a compare-and-set on the
+ * tail or the head, so neither blocks the other, and a full buffer makes {@link #offer(Object)} fail at once
+ * instead of blocking. Nothing is allocated per item.
+ *
+ * @param <E> the type of the items
+ */
+public final class RingBuffer<E> {
+
+    private final int mask;
+
+    private final AtomicReferenceArray<E> items;
+
+    private final AtomicLongArray sequences;
+
+    private final AtomicLong head = new AtomicLong();
+
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * @param capacity the minimum capacity, rounded up to a power of two
+     */
+    public RingBuffer(int capacity) {
+        if (capacity < 1 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Capacity must be between 1 and 2^30");
+        }
+        int size = Math.max(2, Integer.highestOneBit(capacity - 1) << 1);
+        this.mask = size - 1;
+        this.items = new AtomicReferenceArray<>(size);
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Add an item at the tail, unless the buffer is full.
+     *
+     * @param item the item, not null
+     * @return false if the buffer is full
+     */
+    public boolean offer(E item) {
+        if (item == null) {
+            throw new NullPointerException();
+        }
+        long position = tail.get();
+        while (true) {
+            int index = (int) position & mask;
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    items.set(index, item);
+                    // publishes the item to the poll at this position
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+            } else if (difference < 0) {
+                // the slot still holds the item of the previous lap
+                return false;
+            }
+            position = tail.get();
+        }
+    }
+
+    /**
+     * Remove the item at the head.
+     *
+     * @return the item, or null if the buffer is empty
+     */
+    public E poll() {
+        long position = head.get();
+        while (true) {
+            int index = (int) position & mask;
+            long difference = sequences.get(index) - (position + 1);
+            if (difference == 0) {
+                if (head.compareAndSet(position, position + 1)) {
+                    E item = items.get(index);
+                    items.set(index, null);
+                    // frees the slot for the offer of the next lap
+                    sequences.set(index, position + mask + 1);
+                    return item;
+                }
+            } else if (difference < 0) {
+                // the offer at this position has not been published yet
+                return null;
+            }
+            position = head.get();
+        }
+    }
+
+    /**
+     * Move items from the head to a collection.
+     *
+     * @param target the collection receiving the items
+     * @param max the maximum number of items to move
+     * @return the number of items moved
+     */
+    public int drainTo(Collection<? super E> target, int max) {
+        int count = 0;
+        while (count < max) {
+            E item = poll();
+            if (item == null) {
+                break;
+            }
+            target.add(item);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * @return the number of items, which may be stale as soon as it is returned
+     */
+    public int size() {
+        long size = tail.get() - head.get();
+        return (int) Math.max(0, Math.min(size, capacity()));
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+}
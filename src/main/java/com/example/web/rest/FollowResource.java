@@ -0,0 +1,101 @@
+package com.example.web.rest;
+
+import com.codahale.metrics.annotation.Timed;
+import com.example.config.Constants;
+import com.example.domain.Follow;
+import com.example.security.SecurityUtils;
+import com.example.service.FollowService;
+import com.example.web.rest.errors.InternalServerErrorException;
+import com.example.web.rest.util.HeaderUtil;
+import com.example.web.rest.util.PaginationUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * REST controller for managing the current user's follow relationships.
+ */
+@RestController
+@RequestMapping("/api")
+public class FollowResource {
+
+    private static final String ENTITY_NAME = "follow";
+
+    private final Logger log = LoggerFactory.getLogger(FollowResource.class);
+
+    private final FollowService followService;
+
+    public FollowResource(FollowService followService) {
+        this.followService = followService;
+    }
+
+    /**
+     * POST  /following/:login : follow the "login" user.
+     *
+     * @param login the login of the user to follow
+     * @return the ResponseEntity with status 200 (OK) and with body the follow relationship,
+     * or with status 400 (Bad Request) if the user is unknown or is the current user
+     */
+    @PostMapping("/following/{login:" + Constants.LOGIN_REGEX + "}")
+    @Timed
+    public ResponseEntity<Follow> follow(@PathVariable String login) {
+        log.debug("REST request to follow User : {}", login);
+        Follow result = followService.follow(getCurrentUserLogin(), login);
+        return ResponseEntity.ok()
+            .headers(HeaderUtil.createEntityCreationAlert(ENTITY_NAME, login))
+            .body(result);
+    }
+
+    /**
+     * DELETE  /following/:login : stop following the "login" user.
+     *
+     * @param login the login of the user to unfollow
+     * @return the ResponseEntity with status 200 (OK)
+     */
+    @DeleteMapping("/following/{login:" + Constants.LOGIN_REGEX + "}")
+    @Timed
+    public ResponseEntity<Void> unfollow(@PathVariable String login) {
+        log.debug("REST request to unfollow User : {}", login);
+        followService.unfollow(getCurrentUserLogin(), login);
+        return ResponseEntity.ok().headers(HeaderUtil.createEntityDeletionAlert(ENTITY_NAME, login)).build();
+    }
+
+    /**
+     * GET  /following : get the accounts followed by the current user.
+     *
+     * @param pageable the pagination information
+     * @return the ResponseEntity with status 200 (OK) and the list of follow relationships in body
+     */
+    @GetMapping("/following")
+    @Timed
+    public ResponseEntity<List<Follow>> getFollowing(Pageable pageable) {
+        Page<Follow> page = followService.getFollowing(getCurrentUserLogin(), pageable);
+        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(page, "/api/following");
+        return new ResponseEntity<>(page.getContent(), headers, HttpStatus.OK);
+    }
+
+    /**
+     * GET  /followers : get the followers of the current user.
+     *
+     * @param pageable the pagination information
+     * @return the ResponseEntity with status 200 (OK) and the list of follow relationships in body
+     */
+    @GetMapping("/followers")
+    @Timed
+    public ResponseEntity<List<Follow>> getFollowers(Pageable pageable) {
+        Page<Follow> page = followService.getFollowers(getCurrentUserLogin(), pageable);
+        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(page, "/api/followers");
+        return new ResponseEntity<>(page.getContent(), headers, HttpStatus.OK);
+    }
+
+    private String getCurrentUserLogin() {
+        return SecurityUtils.getCurrentUserLogin().orElseThrow(() -> new InternalServerErrorException("Current user login not found"));
+    }
+}
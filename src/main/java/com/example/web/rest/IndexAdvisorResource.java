@@ -0,0 +1,40 @@
+package com.example.web.rest;
+
+import com.codahale.metrics.annotation.Timed;
+import com.example.service.IndexAdvisorService;
+import com.example.service.dto.QueryPlanDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * Controller for checking the index usage of the MongoDB queries at runtime.
+ */
+@RestController
+@RequestMapping("/management")
+public class IndexAdvisorResource {
+
+    private final Logger log = LoggerFactory.getLogger(IndexAdvisorResource.class);
+
+    private final IndexAdvisorService indexAdvisorService;
+
+    public IndexAdvisorResource(IndexAdvisorService indexAdvisorService) {
+        this.indexAdvisorService = indexAdvisorService;
+    }
+
+    /**
+     * GET  /index-advisor : explain every repository query, and flag collection scans and in-memory sorts.
+     *
+     * @return the query plans, the flagged ones first
+     */
+    @GetMapping("/index-advisor")
+    @Timed
+    public List<QueryPlanDTO> getQueryPlans() {
+        log.debug("REST request to explain the repository queries");
+        return indexAdvisorService.explainAll();
+    }
+}
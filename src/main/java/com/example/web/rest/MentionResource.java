@@ -0,0 +1,54 @@
+package com.example.web.rest;
+
+import com.codahale.metrics.annotation.Timed;
+import com.example.domain.Tweet;
+import com.example.security.SecurityUtils;
+import com.example.service.TweetService;
+import com.example.service.dto.TweetCursor;
+import com.example.web.rest.errors.InternalServerErrorException;
+import com.example.web.rest.util.PaginationUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api")
+public class MentionResource {
+    private final Logger log = LoggerFactory.getLogger(MentionResource.class);
+
+    private final TweetService tweetService;
+
+    public MentionResource(TweetService tweetService) {
+        this.tweetService = tweetService;
+    }
+
+    /**
+     * GET  /mentions : get a slice of the tweets mentioning the current user, newest first, with keyset pagination.
+     *
+     * @param before the cursor returned in the X-Next-Cursor header of the previous slice, absent for the first one
+     * @param limit the maximum number of tweets to return
+     * @return the ResponseEntity with status 200 (OK) and the list of tweets in body,
+     * or with status 400 (Bad Request) if the cursor is not valid
+     */
+    @GetMapping("/mentions")
+    @Timed
+    public ResponseEntity<List<Tweet>> getMentions(@RequestParam(required = false) String before,
+                                                   @RequestParam(defaultValue = "20") int limit) {
+        final String userLogin = SecurityUtils.getCurrentUserLogin().orElseThrow(() -> new InternalServerErrorException("Current user login not found"));
+        log.debug("REST request to get a slice of the mentions of {} before {}", userLogin, before);
+        int size = PaginationUtil.cursorLimit(limit);
+        Slice<Tweet> mentions = tweetService.findAllMentioning(userLogin, TweetResource.decodeCursor(before), size);
+        String next = TweetCursor.next(mentions).map(TweetCursor::encode).orElse(null);
+        HttpHeaders headers = PaginationUtil.generateCursorHttpHeaders(next, size, "/api/mentions");
+        return new ResponseEntity<>(mentions.getContent(), headers, HttpStatus.OK);
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.web.rest;
+
+import com.codahale.metrics.annotation.Timed;
+import com.example.domain.Tweet;
+import com.example.service.TagFeedService;
+import com.example.service.dto.TweetCursor;
+import com.example.web.rest.util.PaginationUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api")
+public class TagResource {
+    private final Logger log = LoggerFactory.getLogger(TagResource.class);
+
+    private final TagFeedService tagFeedService;
+
+    public TagResource(TagFeedService tagFeedService) {
+        this.tagFeedService = tagFeedService;
+    }
+
+    /**
+     * GET  /tags/:tag : get a slice of the tweets of a hashtag, newest first, with keyset pagination.
+     *
+     * @param tag the hashtag, without the leading '#', in any case
+     * @param before the cursor returned in the X-Next-Cursor header of the previous slice, absent for the first one
+     * @param limit the maximum number of tweets to return
+     * @return the ResponseEntity with status 200 (OK) and the list of tweets in body,
+     * or with status 400 (Bad Request) if the cursor is not valid
+     */
+    @GetMapping("/tags/{tag}")
+    @Timed
+    public ResponseEntity<List<Tweet>> getTagFeed(@PathVariable String tag, @RequestParam(required = false) String before,
+                                                  @RequestParam(defaultValue = "20") int limit) {
+        log.debug("REST request to get a slice of the Tweets tagged {} before {}", tag, before);
+        int size = PaginationUtil.cursorLimit(limit);
+        Slice<Tweet> feed = tagFeedService.getFeed(tag, TweetResource.decodeCursor(before), size);
+        String next = TweetCursor.next(feed).map(TweetCursor::encode).orElse(null);
+        String baseUrl = UriComponentsBuilder.fromPath("/api/tags/{tag}").buildAndExpand(tag).encode().toUriString();
+        HttpHeaders headers = PaginationUtil.generateCursorHttpHeaders(next, size, baseUrl);
+        return new ResponseEntity<>(feed.getContent(), headers, HttpStatus.OK);
+    }
+}
@@ -2,20 +2,32 @@ package com.example.web.rest;
 
 import com.codahale.metrics.annotation.Timed;
 import com.example.domain.Tweet;
-import com.example.repository.TweetRepository;
 import com.example.security.SecurityUtils;
+import com.example.service.MentionResolver;
+import com.example.service.TimelineService;
+import com.example.service.TimelineStreamService;
+import com.example.service.TimelineSyncService;
+import com.example.service.dto.TimelineSyncDTO;
+import com.example.service.dto.TweetCursor;
+import com.example.service.dto.TweetDTO;
+import com.example.web.rest.errors.BadRequestAlertException;
 import com.example.web.rest.errors.InternalServerErrorException;
 import com.example.web.rest.util.PaginationUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 
@@ -24,19 +36,109 @@ import java.util.List;
 public class TimelineResource {
     private final Logger log = LoggerFactory.getLogger(TimelineResource.class);
 
-    private final TweetRepository tweetRepository;
+    private final TimelineService timelineService;
 
-    public TimelineResource(TweetRepository tweetRepository) {
-        this.tweetRepository = tweetRepository;
+    private final TimelineStreamService timelineStreamService;
+
+    private final TimelineSyncService timelineSyncService;
+
+    private final MentionResolver mentionResolver;
+
+    public TimelineResource(TimelineService timelineService, TimelineStreamService timelineStreamService,
+                            TimelineSyncService timelineSyncService, MentionResolver mentionResolver) {
+        this.timelineService = timelineService;
+        this.timelineStreamService = timelineStreamService;
+        this.timelineSyncService = timelineSyncService;
+        this.mentionResolver = mentionResolver;
     }
 
+    /**
+     * GET  /timeline : get a page of the current user's home timeline.
+     *
+     * @param pageable the pagination information
+     * @return the ResponseEntity with status 200 (OK) and the list of tweets, with the users they mention, in body
+     */
     @GetMapping("/timeline")
     @Timed
-    public ResponseEntity<List<Tweet>> view(Pageable pageable) {
-        log.debug("REST request to get a page of the timeline for ");
+    public ResponseEntity<List<TweetDTO>> view(Pageable pageable) {
         final String userLogin = SecurityUtils.getCurrentUserLogin().orElseThrow(() -> new InternalServerErrorException("Current user login not found"));
-        Page<Tweet> timeline = tweetRepository.findByTweeterOrderByCreateTimeDesc(userLogin, pageable);
-        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(timeline, "/api/tweets");
-        return new ResponseEntity<>(timeline.getContent(), headers, HttpStatus.OK);
+        log.debug("REST request to get a page of the timeline for {}", userLogin);
+        Page<Tweet> timeline = timelineService.getTimeline(userLogin, pageable);
+        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(timeline, "/api/timeline");
+        return new ResponseEntity<>(mentionResolver.resolve(timeline.getContent()), headers, HttpStatus.OK);
+    }
+
+    /**
+     * GET  /timeline?limit= : get a slice of the current user's home timeline, with keyset pagination.
+     *
+     * @param before the cursor returned in the X-Next-Cursor header of the previous slice, absent for the first one
+     * @param limit the maximum number of tweets to return
+     * @return the ResponseEntity with status 200 (OK) and the list of tweets, with the users they mention, in body,
+     * or with status 400 (Bad Request) if the cursor is not valid
+     */
+    @GetMapping(value = "/timeline", params = "limit")
+    @Timed
+    public ResponseEntity<List<TweetDTO>> viewBefore(@RequestParam(required = false) String before, @RequestParam int limit) {
+        final String userLogin = SecurityUtils.getCurrentUserLogin().orElseThrow(() -> new InternalServerErrorException("Current user login not found"));
+        log.debug("REST request to get a slice of the timeline for {} before {}", userLogin, before);
+        int size = PaginationUtil.cursorLimit(limit);
+        Slice<Tweet> timeline = timelineService.getTimeline(userLogin, TweetResource.decodeCursor(before), size);
+        String next = TweetCursor.next(timeline).map(TweetCursor::encode).orElse(null);
+        HttpHeaders headers = PaginationUtil.generateCursorHttpHeaders(next, size, "/api/timeline");
+        return new ResponseEntity<>(mentionResolver.resolve(timeline.getContent()), headers, HttpStatus.OK);
+    }
+
+    /**
+     * GET  /timeline/stream : open a Server-Sent Events stream of the new tweets of the current user's home timeline.
+     * <p>
+     * Each new tweet is sent as a "tweet" event, with the tweet id as event id. The stream is closed after
+     * {@code application.timeline.stream-timeout-seconds}, or as soon as the client falls behind, and clients
+     * are expected to reconnect.
+     *
+     * @return the emitter of the stream
+     */
+    @GetMapping(value = "/timeline/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Timed
+    public SseEmitter stream() {
+        final String userLogin = SecurityUtils.getCurrentUserLogin().orElseThrow(() -> new InternalServerErrorException("Current user login not found"));
+        log.debug("REST request to stream the timeline of {}", userLogin);
+        return timelineStreamService.subscribe(userLogin);
+    }
+
+    /**
+     * GET  /timeline/sync : get the changes of the current user's home timeline since the last sync.
+     * <p>
+     * The tweets created or updated since the token are returned with their current content, and the deleted
+     * ones by id. Without a token, or when the token is too old, the response is a reset: the timeline must be
+     * read again, and then synced from the returned token.
+     *
+     * @param since the token returned by the previous sync, absent for the first one
+     * @param limit the maximum number of changes to read
+     * @param wait the number of seconds to wait for changes if there are none
+     * @return the deferred changes, with status 200 (OK), or status 400 (Bad Request) if the token is not valid
+     */
+    @GetMapping("/timeline/sync")
+    @Timed
+    public DeferredResult<TimelineSyncDTO> sync(@RequestParam(required = false) String since,
+                                                @RequestParam(defaultValue = "100") int limit,
+                                                @RequestParam(defaultValue = "0") long wait) {
+        final String userLogin = SecurityUtils.getCurrentUserLogin().orElseThrow(() -> new InternalServerErrorException("Current user login not found"));
+        log.debug("REST request to sync the timeline of {} since {}", userLogin, since);
+        return timelineSyncService.sync(userLogin, decodeSyncToken(since), PaginationUtil.cursorLimit(limit), wait);
+    }
+
+    private static Long decodeSyncToken(String since) {
+        if (since == null) {
+            return null;
+        }
+        try {
+            long sequence = Long.parseLong(since);
+            if (sequence >= 0) {
+                return sequence;
+            }
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        throw new BadRequestAlertException("Invalid sync token", "timeline", "synctokeninvalid");
     }
 }
@@ -0,0 +1,38 @@
+package com.example.web.rest;
+
+import com.codahale.metrics.annotation.Timed;
+import com.example.service.TrendService;
+import com.example.service.dto.TrendDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api")
+public class TrendResource {
+    private final Logger log = LoggerFactory.getLogger(TrendResource.class);
+
+    private final TrendService trendService;
+
+    public TrendResource(TrendService trendService) {
+        this.trendService = trendService;
+    }
+
+    /**
+     * GET  /trends : get the trending hashtags.
+     *
+     * @return the top hashtags of the last 5 minutes, hour and 24 hours, keyed "5m", "1h" and "24h",
+     * with their estimated tweet count, refreshed every second
+     */
+    @GetMapping("/trends")
+    @Timed
+    public Map<String, List<TrendDTO>> getTrends() {
+        log.debug("REST request to get the trends");
+        return trendService.getTrends();
+    }
+}
@@ -2,19 +2,28 @@ package com.example.web.rest;
 
 import com.codahale.metrics.annotation.Timed;
 import com.example.domain.Tweet;
-import com.example.repository.TweetRepository;
+import com.example.service.MentionResolver;
+import com.example.service.TweetService;
+import com.example.service.TweetWritePipeline;
+import com.example.service.dto.TweetCursor;
+import com.example.service.dto.TweetDTO;
 import com.example.web.rest.errors.BadRequestAlertException;
+import com.example.web.rest.errors.FieldErrorVM;
+import com.example.web.rest.errors.TooManyRequestsException;
 import com.example.web.rest.util.HeaderUtil;
 import com.example.web.rest.util.PaginationUtil;
 import com.example.web.rest.validation.TweetValidator;
+import com.example.web.rest.vm.TweetBatchResultVM;
 import io.github.jhipster.web.util.ResponseUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.validation.Errors;
 import org.springframework.web.bind.WebDataBinder;
 import org.springframework.web.bind.annotation.*;
 
@@ -22,8 +31,11 @@ import javax.validation.Valid;
 import java.net.URI;
 import java.net.URISyntaxException;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 /**
  * REST controller for managing Tweet.
@@ -36,13 +48,25 @@ public class TweetResource {
 
     private static final String ENTITY_NAME = "tweet";
 
-    private final TweetRepository tweetRepository;
+    /**
+     * Maximum number of tweets posted in one batch.
+     */
+    public static final int MAX_BATCH_SIZE = 1000;
+
+    private final TweetService tweetService;
 
     private final TweetValidator tweetValidator;
 
-    public TweetResource(TweetRepository tweetRepository, TweetValidator tweetValidator) {
-        this.tweetRepository = tweetRepository;
+    private final TweetWritePipeline tweetWritePipeline;
+
+    private final MentionResolver mentionResolver;
+
+    public TweetResource(TweetService tweetService, TweetValidator tweetValidator, TweetWritePipeline tweetWritePipeline,
+                         MentionResolver mentionResolver) {
+        this.tweetService = tweetService;
         this.tweetValidator = tweetValidator;
+        this.tweetWritePipeline = tweetWritePipeline;
+        this.mentionResolver = mentionResolver;
     }
 
     @InitBinder("tweet")
@@ -52,9 +76,13 @@ public class TweetResource {
 
     /**
      * POST  /tweets : Create a new tweet.
+     * <p>
+     * In the {@code GROUP} mode of {@code application.tweet-writes}, the tweet is written with the next batch of
+     * the {@link TweetWritePipeline}.
      *
      * @param tweet the tweet to create
-     * @return the ResponseEntity with status 201 (Created) and with body the new tweet, or with status 400 (Bad Request) if the tweet has already an ID
+     * @return the ResponseEntity with status 201 (Created) and with body the new tweet, or with status 400 (Bad Request) if the tweet has already an ID,
+     * or with status 429 (Too Many Requests) if the write pipeline is full
      * @throws URISyntaxException if the Location URI syntax is incorrect
      */
     @PostMapping("/tweets")
@@ -64,12 +92,69 @@ public class TweetResource {
         if (tweet.getId() != null) {
             throw new BadRequestAlertException("A new tweet cannot already have an ID", ENTITY_NAME, "idexists");
         }
-        Tweet result = tweetRepository.save(tweet);
+        Tweet result = !tweetWritePipeline.isEnabled() ? tweetService.save(tweet) : tweetWritePipeline.write(tweet)
+            .orElseThrow(() -> new TooManyRequestsException("Too many tweets being written",
+                tweetWritePipeline.getRetryAfterSeconds()));
         return ResponseEntity.created(new URI("/api/tweets/" + result.getId()))
             .headers(HeaderUtil.createEntityCreationAlert(ENTITY_NAME, result.getId().toString()))
             .body(result);
     }
 
+    /**
+     * POST  /tweets/batch : Create a batch of new tweets.
+     * <p>
+     * The tweeters of the whole batch are looked up with a single query, and the valid tweets are inserted with
+     * a single bulk write. Each tweet gets its own result: status 201 (Created) and the id of the new tweet,
+     * status 400 (Bad Request) and the field errors if the tweet is not valid, or status 500 (Internal Server
+     * Error) and the error message if it could not be written.
+     *
+     * @param tweets the tweets to create, at most {@link #MAX_BATCH_SIZE}
+     * @return the ResponseEntity with status 200 (OK) and the results of the tweets in body, in the order of the
+     * request, or with status 400 (Bad Request) if the batch is empty or too large
+     */
+    @PostMapping("/tweets/batch")
+    @Timed
+    public ResponseEntity<List<TweetBatchResultVM>> createTweets(@RequestBody List<Tweet> tweets) {
+        log.debug("REST request to save a batch of {} Tweets", tweets.size());
+        if (tweets.isEmpty() || tweets.size() > MAX_BATCH_SIZE) {
+            throw new BadRequestAlertException("A batch must have between 1 and " + MAX_BATCH_SIZE + " tweets",
+                ENTITY_NAME, "batchsize");
+        }
+        List<Errors> errors = tweetValidator.validateAll(tweets);
+        List<TweetBatchResultVM> results = new ArrayList<>(tweets.size());
+        List<Tweet> valid = new ArrayList<>(tweets.size());
+        List<TweetBatchResultVM> validResults = new ArrayList<>(tweets.size());
+        for (int i = 0; i < tweets.size(); i++) {
+            Tweet tweet = tweets.get(i);
+            if (tweet.getId() != null) {
+                errors.get(i).rejectValue("id", "idexists");
+            }
+            if (errors.get(i).hasErrors()) {
+                TweetBatchResultVM result = new TweetBatchResultVM(i, HttpStatus.BAD_REQUEST.value());
+                result.setFieldErrors(errors.get(i).getFieldErrors().stream()
+                    .map(f -> new FieldErrorVM(f.getObjectName(), f.getField(), f.getCode()))
+                    .collect(Collectors.toList()));
+                results.add(result);
+            } else {
+                TweetBatchResultVM result = new TweetBatchResultVM(i, HttpStatus.CREATED.value());
+                results.add(result);
+                valid.add(tweet);
+                validResults.add(result);
+            }
+        }
+        Map<Integer, String> failures = tweetService.insertAll(valid);
+        for (int i = 0; i < valid.size(); i++) {
+            TweetBatchResultVM result = validResults.get(i);
+            if (failures.containsKey(i)) {
+                result.setStatus(HttpStatus.INTERNAL_SERVER_ERROR.value());
+                result.setMessage(failures.get(i));
+            } else {
+                result.setId(valid.get(i).getId());
+            }
+        }
+        return ResponseEntity.ok(results);
+    }
+
     /**
      * PUT  /tweets : Updates an existing tweet.
      *
@@ -86,7 +171,7 @@ public class TweetResource {
         if (tweet.getId() == null) {
             throw new BadRequestAlertException("Invalid id", ENTITY_NAME, "idnull");
         }
-        Tweet result = tweetRepository.save(tweet);
+        Tweet result = tweetService.save(tweet);
         return ResponseEntity.ok()
             .headers(HeaderUtil.createEntityUpdateAlert(ENTITY_NAME, tweet.getId().toString()))
             .body(result);
@@ -96,15 +181,34 @@ public class TweetResource {
      * GET  /tweets : get all the tweets.
      *
      * @param pageable the pagination information
-     * @return the ResponseEntity with status 200 (OK) and the list of tweets in body
+     * @return the ResponseEntity with status 200 (OK) and the list of tweets, with the users they mention, in body
      */
     @GetMapping("/tweets")
     @Timed
-    public ResponseEntity<List<Tweet>> getAllTweets(Pageable pageable) {
+    public ResponseEntity<List<TweetDTO>> getAllTweets(Pageable pageable) {
         log.debug("REST request to get a page of Tweets");
-        Page<Tweet> page = tweetRepository.findAll(pageable);
+        Page<Tweet> page = tweetService.findAll(pageable);
         HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(page, "/api/tweets");
-        return new ResponseEntity<>(page.getContent(), headers, HttpStatus.OK);
+        return new ResponseEntity<>(mentionResolver.resolve(page.getContent()), headers, HttpStatus.OK);
+    }
+
+    /**
+     * GET  /tweets?limit= : get a slice of all the tweets, newest first, with keyset pagination.
+     *
+     * @param before the cursor returned in the X-Next-Cursor header of the previous slice, absent for the first one
+     * @param limit the maximum number of tweets to return
+     * @return the ResponseEntity with status 200 (OK) and the list of tweets, with the users they mention, in body,
+     * or with status 400 (Bad Request) if the cursor is not valid
+     */
+    @GetMapping(value = "/tweets", params = "limit")
+    @Timed
+    public ResponseEntity<List<TweetDTO>> getTweetsBefore(@RequestParam(required = false) String before, @RequestParam int limit) {
+        log.debug("REST request to get a slice of Tweets before {}", before);
+        int size = PaginationUtil.cursorLimit(limit);
+        Slice<Tweet> slice = tweetService.findAllBefore(decodeCursor(before), size);
+        String next = TweetCursor.next(slice).map(TweetCursor::encode).orElse(null);
+        HttpHeaders headers = PaginationUtil.generateCursorHttpHeaders(next, size, "/api/tweets");
+        return new ResponseEntity<>(mentionResolver.resolve(slice.getContent()), headers, HttpStatus.OK);
     }
 
     /**
@@ -117,7 +221,7 @@ public class TweetResource {
     @Timed
     public ResponseEntity<Tweet> getTweet(@PathVariable String id) {
         log.debug("REST request to get Tweet : {}", id);
-        Optional<Tweet> tweet = tweetRepository.findById(id);
+        Optional<Tweet> tweet = tweetService.findOne(id);
         return ResponseUtil.wrapOrNotFound(tweet);
     }
 
@@ -132,7 +236,18 @@ public class TweetResource {
     public ResponseEntity<Void> deleteTweet(@PathVariable String id) {
         log.debug("REST request to delete Tweet : {}", id);
 
-        tweetRepository.deleteById(id);
+        tweetService.delete(id);
         return ResponseEntity.ok().headers(HeaderUtil.createEntityDeletionAlert(ENTITY_NAME, id)).build();
     }
+
+    static TweetCursor decodeCursor(String before) {
+        if (before == null) {
+            return null;
+        }
+        try {
+            return TweetCursor.decode(before);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestAlertException("Invalid cursor", ENTITY_NAME, "cursorinvalid");
+        }
+    }
 }
@@ -0,0 +1,23 @@
+package com.example.web.rest.errors;
+
+import org.zalando.problem.AbstractThrowableProblem;
+import org.zalando.problem.Status;
+
+/**
+ * Exception returning a Service Unavailable code, with the number of seconds to wait before retrying.
+ */
+public class ServiceUnavailableException extends AbstractThrowableProblem {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long retryAfterSeconds;
+
+    public ServiceUnavailableException(String message, long retryAfterSeconds) {
+        super(ErrorConstants.DEFAULT_TYPE, message, Status.SERVICE_UNAVAILABLE);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -13,6 +13,10 @@ import org.springframework.web.util.UriComponentsBuilder;
  */
 public final class PaginationUtil {
 
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    public static final int MAX_CURSOR_LIMIT = 100;
+
     private PaginationUtil() {
     }
 
@@ -39,6 +43,34 @@ public final class PaginationUtil {
         return headers;
     }
 
+    /**
+     * Generate the headers of a keyset-paginated response: the cursor of the next page, if any, both as is and
+     * as a "next" link. There are no total count, "last" or "prev" links, since these would need a count.
+     *
+     * @param nextCursor the opaque cursor of the next page, or null on the last page
+     * @param limit the page size
+     * @param baseUrl the URL of the resource
+     * @return the headers
+     */
+    public static HttpHeaders generateCursorHttpHeaders(String nextCursor, int limit, String baseUrl) {
+        HttpHeaders headers = new HttpHeaders();
+        if (nextCursor != null) {
+            headers.add(NEXT_CURSOR_HEADER, nextCursor);
+            String uri = UriComponentsBuilder.fromUriString(baseUrl)
+                .queryParam("before", nextCursor).queryParam("limit", limit).toUriString();
+            headers.add(HttpHeaders.LINK, "<" + uri + ">; rel=\"next\"");
+        }
+        return headers;
+    }
+
+    /**
+     * @param limit the requested page size
+     * @return the page size, between 1 and {@link #MAX_CURSOR_LIMIT}
+     */
+    public static int cursorLimit(int limit) {
+        return Math.max(1, Math.min(limit, MAX_CURSOR_LIMIT));
+    }
+
     private static String generateUri(String baseUrl, int page, int size) {
         return UriComponentsBuilder.fromUriString(baseUrl).queryParam("page", page).queryParam("size", size).toUriString();
     }
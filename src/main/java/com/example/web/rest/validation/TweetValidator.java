@@ -1,17 +1,31 @@
 package com.example.web.rest.validation;
 
 import com.example.domain.Tweet;
-import com.example.repository.UserRepository;
+import com.example.service.LoginIndex;
 import org.springframework.stereotype.Component;
+import org.springframework.validation.BeanPropertyBindingResult;
 import org.springframework.validation.Errors;
 import org.springframework.validation.Validator;
+import org.springframework.validation.beanvalidation.SpringValidatorAdapter;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Checks that the tweeter of a tweet is an activated user, with the {@link LoginIndex} rather than by reading the user.
+ */
 @Component
 public class TweetValidator implements Validator {
-    private final UserRepository userRepository;
+    private final LoginIndex loginIndex;
+
+    private final SpringValidatorAdapter beanValidator;
 
-    public TweetValidator(UserRepository userRepository) {
-        this.userRepository = userRepository;
+    public TweetValidator(LoginIndex loginIndex, javax.validation.Validator beanValidator) {
+        this.loginIndex = loginIndex;
+        this.beanValidator = new SpringValidatorAdapter(beanValidator);
     }
 
     @Override
@@ -22,8 +36,31 @@ public class TweetValidator implements Validator {
     @Override
     public void validate(Object o, Errors errors) {
         Tweet tweet = (Tweet) o;
-        if (! userRepository.findOneByLogin(tweet.getTweeter()).isPresent()) {
+        if (! loginIndex.exists(tweet.getTweeter())) {
             errors.rejectValue("tweeter", "tweeter.unknown");
         }
     }
+
+    /**
+     * Validate a batch of tweets, with their bean constraints, and with at most one query for all their tweeters.
+     *
+     * @param tweets the tweets to validate
+     * @return the errors of each tweet, in the order of the tweets
+     */
+    public List<Errors> validateAll(List<Tweet> tweets) {
+        Set<String> tweeters = loginIndex.retainExisting(tweets.stream()
+            .map(Tweet::getTweeter)
+            .filter(Objects::nonNull)
+            .collect(Collectors.toSet()));
+        List<Errors> result = new ArrayList<>(tweets.size());
+        for (Tweet tweet : tweets) {
+            Errors errors = new BeanPropertyBindingResult(tweet, "tweet");
+            beanValidator.validate(tweet, errors);
+            if (!tweeters.contains(tweet.getTweeter())) {
+                errors.rejectValue("tweeter", "tweeter.unknown");
+            }
+            result.add(errors);
+        }
+        return result;
+    }
 }
@@ -0,0 +1,82 @@
+package com.example.web.rest.vm;
+
+import com.example.web.rest.errors.FieldErrorVM;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * View Model object for the outcome of one tweet of a batch, at the same index as the tweet in the request.
+ * The status is the one the tweet would have got from {@code POST /api/tweets}.
+ */
+public class TweetBatchResultVM {
+
+    private int index;
+
+    private int status;
+
+    private String id;
+
+    private String message;
+
+    private List<FieldErrorVM> fieldErrors = new ArrayList<>();
+
+    public TweetBatchResultVM() {
+        // Empty constructor needed for Jackson.
+    }
+
+    public TweetBatchResultVM(int index, int status) {
+        this.index = index;
+        this.status = status;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public void setStatus(int status) {
+        this.status = status;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public List<FieldErrorVM> getFieldErrors() {
+        return fieldErrors;
+    }
+
+    public void setFieldErrors(List<FieldErrorVM> fieldErrors) {
+        this.fieldErrors = fieldErrors;
+    }
+
+    @Override
+    public String toString() {
+        return "TweetBatchResultVM{" +
+            "index=" + index +
+            ", status=" + status +
+            ", id='" + id + '\'' +
+            ", message='" + message + '\'' +
+            '}';
+    }
+}
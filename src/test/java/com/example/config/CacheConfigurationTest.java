@@ -0,0 +1,119 @@
+package com.example.config;
+
+import com.codahale.metrics.MetricRegistry;
+import com.example.domain.Tweet;
+import com.example.domain.User;
+import com.example.repository.UserRepository;
+import com.example.service.LoginIndex;
+import com.example.service.MentionResolver;
+import com.example.service.dto.MentionDTO;
+import com.example.service.dto.TweetDTO;
+import io.github.jhipster.config.JHipsterProperties;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.Cache;
+import org.springframework.cache.jcache.JCacheCacheManager;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test class for the Caffeine caches of users, with refresh after write enabled.
+ *
+ * @see CacheConfiguration
+ */
+public class CacheConfigurationTest {
+
+    private MongoTemplate mongoTemplate;
+
+    private javax.cache.CacheManager jCacheManager;
+
+    private JCacheCacheManager cacheManager;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        mongoTemplate = mock(MongoTemplate.class);
+        ObjectProvider<MongoTemplate> mongoTemplateProvider = mock(ObjectProvider.class);
+        when(mongoTemplateProvider.getObject()).thenReturn(mongoTemplate);
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getCache().setProvider(ApplicationProperties.Cache.Provider.CAFFEINE);
+        ApplicationProperties.Cache.Policy policy = new ApplicationProperties.Cache.Policy();
+        policy.setHeapEntries(100L);
+        policy.setRefreshAfterWriteSeconds(1L);
+        applicationProperties.getCache().getPolicies().put(UserRepository.USERS_BY_LOGIN_CACHE, policy);
+        jCacheManager = new CacheConfiguration(new JHipsterProperties(), applicationProperties, mongoTemplateProvider)
+            .jCacheCacheManager(new CacheEventCounter());
+        cacheManager = new JCacheCacheManager(jCacheManager);
+        cacheManager.afterPropertiesSet();
+    }
+
+    @After
+    public void tearDown() {
+        jCacheManager.getCacheNames().forEach(jCacheManager::destroyCache);
+        jCacheManager.close();
+    }
+
+    @Test
+    public void assertThatUsersAreRefreshedAfterWrite() throws InterruptedException {
+        when(mongoTemplate.findOne(any(Query.class), eq(User.class))).thenReturn(user("alice", "Refreshed"));
+        Cache cache = cacheManager.getCache(UserRepository.USERS_BY_LOGIN_CACHE);
+        cache.put("alice", user("alice", "Cached"));
+
+        Thread.sleep(1100);
+        // the stale user is served while it is reloaded in the background
+        assertThat(cache.get("alice")).isNotNull();
+        for (int i = 0; i < 100 && !"Refreshed".equals(((User) cache.get("alice").get()).getFirstName()); i++) {
+            Thread.sleep(50);
+        }
+        assertThat(((User) cache.get("alice").get()).getFirstName()).isEqualTo("Refreshed");
+    }
+
+    @Test
+    public void assertThatUnknownUsersAreNotCachedByTheLoader() {
+        Cache cache = cacheManager.getCache(UserRepository.USERS_BY_LOGIN_CACHE);
+
+        assertThat(cache.get("nobody")).isNull();
+        verify(mongoTemplate).findOne(any(Query.class), eq(User.class));
+        assertThat(jCacheManager.getCache(UserRepository.USERS_BY_LOGIN_CACHE).containsKey("nobody")).isFalse();
+    }
+
+    @Test
+    public void assertThatMentionsDoNotLoadTheMissingUsers() {
+        UserRepository userRepository = mock(UserRepository.class);
+        LoginIndex loginIndex = new LoginIndex(userRepository, null, new MetricRegistry());
+        loginIndex.add("alice");
+        loginIndex.add("bob");
+        cacheManager.getCache(UserRepository.USERS_BY_LOGIN_CACHE).put("alice", user("alice", "Alice"));
+        when(userRepository.findActivatedProfiles(Collections.singletonList("bob")))
+            .thenReturn(Collections.singletonList(user("bob", "Bob")));
+        MentionResolver mentionResolver = new MentionResolver(userRepository, cacheManager, loginIndex);
+
+        List<TweetDTO> tweets = mentionResolver.resolve(Collections.singletonList(
+            new Tweet().tweeter("carol").content("hello @alice and @bob")));
+
+        assertThat(tweets.get(0).getMentions()).extracting(MentionDTO::getLogin)
+            .containsExactlyInAnyOrder("alice", "bob");
+        // bob is read with the batched query, not by the loader of the cache
+        verify(mongoTemplate, never()).findOne(any(Query.class), eq(User.class));
+        verify(userRepository).findActivatedProfiles(Collections.singletonList("bob"));
+    }
+
+    private static User user(String login, String firstName) {
+        User user = new User();
+        user.setLogin(login);
+        user.setFirstName(firstName);
+        user.setActivated(true);
+        return user;
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.config.dbmigrations;
+
+import com.example.TwitsterApp;
+import com.example.domain.User;
+import com.example.repository.UserRepository;
+
+import org.bson.Document;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.Arrays;
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the UserIndexMigration, on users stored with the same email in different cases.
+ *
+ * @see UserIndexMigration
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = TwitsterApp.class)
+public class UserIndexMigrationIntTest {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private String collection;
+
+    @Before
+    public void setup() {
+        userRepository.deleteAll();
+        collection = mongoTemplate.getCollectionName(User.class);
+        // as before the changeset: the emails have no key, and no unique index
+        mongoTemplate.indexOps(collection).dropIndex("email_key");
+    }
+
+    @After
+    public void tearDown() {
+        userRepository.deleteAll();
+        new UserIndexMigration().addEmailKey(mongoTemplate);
+    }
+
+    @Test
+    public void assertThatDuplicateEmailsKeepOneKey() {
+        mongoTemplate.getCollection(collection).insertMany(Arrays.asList(
+            new Document("login", "old").append("email", "John@Example.com").append("activated", true)
+                .append("last_modified_date", new Date(1000)),
+            new Document("login", "new").append("email", "john@example.com").append("activated", true)
+                .append("last_modified_date", new Date(2000)),
+            new Document("login", "pending").append("email", "JOHN@example.com").append("activated", false)
+                .append("last_modified_date", new Date(3000))));
+
+        new UserIndexMigration().addEmailKey(mongoTemplate);
+
+        assertThat(userRepository.findOneByEmailKey("john@example.com")).hasValueSatisfying(user ->
+            assertThat(user.getLogin()).isEqualTo("new"));
+        assertThat(mongoTemplate.getCollection(collection).count(new Document("email_key",
+            new Document("$exists", true)))).isEqualTo(1);
+        assertThat(mongoTemplate.indexOps(collection).getIndexInfo()).extracting(IndexInfo::getName)
+            .contains("email_key");
+    }
+}
@@ -143,4 +143,54 @@ public class TweetTest {
 
         assertThat(tweet.getTags()).isNotNull().hasSize(3).containsExactlyInAnyOrder("MultipleTags", "SampleTag", "Generate");
     }
+
+    @Test
+    public void setContent_whenRefAndTagAreTheLastWords_resultsInListsWithCorrectEntries() {
+        Tweet tweet = new Tweet().content("This ends with a tag and a ref #SampleTag @SampleRef");
+
+        assertThat(tweet.getRefs()).containsExactly("SampleRef");
+        assertThat(tweet.getTags()).containsExactly("SampleTag");
+    }
+
+    @Test
+    public void setContent_whenTokensAreFollowedByPunctuation_resultsInListsWithoutPunctuation() {
+        Tweet tweet = new Tweet().content("Thanks @sample.ref-1, (@Other) and #first! #second.");
+
+        assertThat(tweet.getRefs()).containsExactly("sample.ref-1", "Other");
+        assertThat(tweet.getTags()).containsExactly("first", "second");
+    }
+
+    @Test
+    public void setContent_whenPrefixIsInsideAWord_resultsInEmptyLists() {
+        Tweet tweet = new Tweet().content("Write to user@example.com about C# and issue#12, or just @ and #");
+
+        assertThat(tweet.getRefs()).isEmpty();
+        assertThat(tweet.getTags()).isEmpty();
+    }
+
+    @Test
+    public void setContent_whenTokensAreRepeated_resultsInListsWithoutDuplicates() {
+        Tweet tweet = new Tweet().content("@SampleRef #SampleTag @SampleRef #SampleTag @Other");
+
+        assertThat(tweet.getRefs()).containsExactly("SampleRef", "Other");
+        assertThat(tweet.getTags()).containsExactly("SampleTag");
+    }
+
+    @Test
+    public void setContent_whenTagIsNotAscii_resultsInTagsListWithCorrectEntry() {
+        Tweet tweet = new Tweet().content("Bonne #fête, #東京 #नमस्ते");
+
+        assertThat(tweet.getTags()).containsExactly("fête", "東京", "नमस्ते");
+    }
+
+    @Test
+    public void setContent_whenCalledAgain_resultsInListsOfTheNewContent() {
+        Tweet tweet = new Tweet().content("Hello @SampleRef #SampleTag");
+        assertThat(tweet.getRefs()).containsExactly("SampleRef");
+
+        tweet.setContent("Hello @OtherRef");
+
+        assertThat(tweet.getRefs()).containsExactly("OtherRef");
+        assertThat(tweet.getTags()).isEmpty();
+    }
 }
@@ -0,0 +1,118 @@
+package com.example.repository.codec;
+
+import com.example.TwitsterApp;
+import com.example.domain.Authority;
+import com.example.domain.Tweet;
+import com.example.domain.User;
+import com.example.repository.TweetRepository;
+import com.example.repository.UserRepository;
+import com.example.security.AuthoritiesConstants;
+import org.apache.commons.lang3.RandomStringUtils;
+import org.bson.BsonDocument;
+import org.bson.BsonDocumentReader;
+import org.bson.BsonDocumentWriter;
+import org.bson.Document;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.DocumentCodec;
+import org.bson.codecs.EncoderContext;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the hand-written codecs, against the Spring Data mapping.
+ *
+ * @see MongoCodecs
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = TwitsterApp.class)
+public class MongoCodecsIntTest {
+
+    @Autowired
+    private MongoCodecs mongoCodecs;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private TweetRepository tweetRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Before
+    public void init() {
+        tweetRepository.deleteAll();
+    }
+
+    @Test
+    public void assertThatTweetCodecReadsMappedDocuments() {
+        Tweet tweet = new Tweet().tweeter("alice").content("Hello @bob #codec");
+        tweet = tweetRepository.save(tweet);
+
+        List<Tweet> decoded = mongoCodecs.find(Query.query(Criteria.where("id").is(tweet.getId())), Tweet.class);
+
+        assertThat(decoded).hasSize(1);
+        Tweet result = decoded.get(0);
+        assertThat(result.getId()).isEqualTo(tweet.getId());
+        assertThat(result.getTweeter()).isEqualTo("alice");
+        assertThat(result.getContent()).isEqualTo("Hello @bob #codec");
+        assertThat(result.getCreateTime()).isEqualTo(tweet.getCreateTime().truncatedTo(ChronoUnit.MILLIS));
+        assertThat(result.getRefs()).containsExactly("bob");
+        assertThat(result.getTags()).containsExactly("codec");
+    }
+
+    @Test
+    public void assertThatTweetCodecWritesMappedDocuments() {
+        Tweet tweet = new Tweet().tweeter("alice").content("Hello @bob #codec");
+        tweet.setId("5bc000000000000000000001");
+        tweet.setCreateTime(Instant.ofEpochMilli(1539000000000L));
+        BsonDocument encoded = new BsonDocument();
+        new TweetCodec().encode(new BsonDocumentWriter(encoded), tweet, EncoderContext.builder().build());
+        Document document = new DocumentCodec().decode(new BsonDocumentReader(encoded), DecoderContext.builder().build());
+
+        Document mapped = new Document();
+        mongoTemplate.getConverter().write(tweet, mapped);
+
+        assertThat(document).isEqualTo(mapped);
+    }
+
+    @Test
+    public void assertThatUserCodecReadsMappedDocuments() {
+        userRepository.findOneByLogin("codec").ifPresent(userRepository::delete);
+        User user = new User();
+        user.setLogin("codec");
+        user.setPassword(RandomStringUtils.random(60));
+        user.setEmail("codec@localhost");
+        user.setActivated(true);
+        user.setLangKey("en");
+        Authority authority = new Authority();
+        authority.setName(AuthoritiesConstants.USER);
+        user.getAuthorities().add(authority);
+        user = userRepository.save(user);
+
+        List<User> decoded = mongoCodecs.find(Query.query(Criteria.where("login").is("codec")), User.class);
+
+        assertThat(decoded).hasSize(1);
+        User result = decoded.get(0);
+        assertThat(result.getId()).isEqualTo(user.getId());
+        assertThat(result.getPassword()).isEqualTo(user.getPassword());
+        assertThat(result.getEmail()).isEqualTo("codec@localhost");
+        assertThat(result.getActivated()).isTrue();
+        assertThat(result.getCreatedDate()).isEqualTo(user.getCreatedDate().truncatedTo(ChronoUnit.MILLIS));
+        assertThat(result.getAuthorities()).extracting(Authority::getName).containsExactly(AuthoritiesConstants.USER);
+        userRepository.delete(user);
+    }
+}
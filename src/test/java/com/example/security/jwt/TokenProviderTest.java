@@ -88,6 +88,47 @@ public class TokenProviderTest {
         assertThat(isTokenValid).isEqualTo(false);
     }
 
+    @Test
+    public void testAuthenticateCachesVerifiedToken() {
+        String token = tokenProvider.createToken(createAuthentication(), false);
+
+        Optional<Authentication> authentication = tokenProvider.authenticate(token);
+
+        assertThat(authentication).isPresent();
+        assertThat(authentication.get().getName()).isEqualTo("anonymous");
+        assertThat(authentication.get().getCredentials()).isEqualTo(token);
+        Authentication cached = tokenProvider.authenticate(token).get();
+        // the principal is cached, but every request gets its own authentication
+        assertThat(cached).isNotSameAs(authentication.get());
+        assertThat(cached.getPrincipal()).isSameAs(authentication.get().getPrincipal());
+        assertThat(cached.getCredentials()).isEqualTo(token);
+    }
+
+    @Test
+    public void testAuthenticateSharesAuthorities() {
+        ReflectionTestUtils.setField(tokenProvider, "tokenValidityInMillisecondsForRememberMe", 2 * ONE_MINUTE);
+        String token = tokenProvider.createToken(createAuthentication(), false);
+        String otherToken = tokenProvider.createToken(createAuthentication(), true);
+
+        GrantedAuthority authority = tokenProvider.authenticate(token).get().getAuthorities().iterator().next();
+        GrantedAuthority otherAuthority = tokenProvider.authenticate(otherToken).get().getAuthorities().iterator().next();
+
+        assertThat(otherAuthority).isSameAs(authority);
+    }
+
+    @Test
+    public void testAuthenticateRejectsInvalidToken() {
+        assertThat(tokenProvider.authenticate(createTokenWithDifferentSignature())).isEmpty();
+    }
+
+    @Test
+    public void testAuthenticateRejectsExpiredToken() {
+        ReflectionTestUtils.setField(tokenProvider, "tokenValidityInMilliseconds", -ONE_MINUTE);
+        String token = tokenProvider.createToken(createAuthentication(), false);
+
+        assertThat(tokenProvider.authenticate(token)).isEmpty();
+    }
+
     private Authentication createAuthentication() {
         Collection<GrantedAuthority> authorities = new ArrayList<>();
         authorities.add(new SimpleGrantedAuthority(AuthoritiesConstants.ANONYMOUS));
@@ -0,0 +1,165 @@
+package com.example.service;
+
+import com.codahale.metrics.MetricRegistry;
+import com.example.TwitsterApp;
+import com.example.config.ApplicationProperties;
+import com.example.repository.FollowRepository;
+import com.example.repository.UserRepository;
+import com.example.service.dto.UserDTO;
+
+import org.bson.Document;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the CacheInvalidationService, with two nodes sharing the database.
+ *
+ * @see CacheInvalidationService
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = TwitsterApp.class)
+public class CacheInvalidationServiceIntTest {
+
+    private static final String CACHE = UserRepository.USERS_BY_LOGIN_CACHE;
+
+    private static final String OTHER_CACHE = UserRepository.USERS_BY_EMAIL_CACHE;
+
+    private static final String FOLLOW_CACHE = FollowRepository.FOLLOWS_BY_FOLLOWER_CACHE;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private FollowRepository followRepository;
+
+    @Autowired
+    private LoginIndex loginIndex;
+
+    @Autowired
+    private TimelineService timelineService;
+
+    @Autowired
+    private HotAuthorService hotAuthorService;
+
+    @Autowired
+    private TimelineStreamService timelineStreamService;
+
+    @Autowired
+    private TimelineSyncService timelineSyncService;
+
+    private ConcurrentMapCacheManager cacheManager;
+
+    private ConcurrentMapCacheManager otherCacheManager;
+
+    private CacheInvalidationService node;
+
+    private CacheInvalidationService otherNode;
+
+    @Before
+    public void setup() {
+        // the other node replays the recent messages, so each test evicts its own keys, and clears its own cache
+        ApplicationProperties properties = new ApplicationProperties();
+        cacheManager = new ConcurrentMapCacheManager(CACHE, OTHER_CACHE, FOLLOW_CACHE);
+        otherCacheManager = new ConcurrentMapCacheManager(CACHE, OTHER_CACHE, FOLLOW_CACHE);
+        node = new CacheInvalidationService(mongoTemplate, cacheManager, properties, new MetricRegistry());
+        otherNode = new CacheInvalidationService(mongoTemplate, otherCacheManager, properties, new MetricRegistry());
+        otherNode.start();
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        otherNode.stop();
+    }
+
+    @Test
+    public void evictionsArePublishedAsOneMessage() {
+        node.evict(CACHE, Arrays.asList("alice", "bob", null));
+        node.evict(CACHE, "alice");
+        node.publish();
+
+        Document message = mongoTemplate.getCollection(CacheInvalidationService.COLLECTION).find()
+            .sort(new Document("$natural", -1))
+            .first();
+        assertThat(message.get("caches", Document.class).get(CACHE, List.class))
+            .containsExactlyInAnyOrder("alice", "bob");
+    }
+
+    @Test
+    public void evictionsAreAppliedOnTheOtherNodes() throws InterruptedException {
+        cacheManager.getCache(CACHE).put("carol", "local");
+        Cache otherCache = otherCacheManager.getCache(CACHE);
+        otherCache.put("carol", "stale");
+        otherCache.put("dave", "fresh");
+
+        node.evict(CACHE, "carol");
+        node.publish();
+
+        assertThat(cacheManager.getCache(CACHE).get("carol")).isNull();
+        awaitEviction(otherCache, "carol");
+        assertThat(otherCache.get("dave")).isNotNull();
+    }
+
+    @Test
+    public void manyEvictionsClearTheCachesOfTheOtherNodes() throws InterruptedException {
+        Cache otherCache = otherCacheManager.getCache(OTHER_CACHE);
+        otherCache.put("erin", "stale");
+
+        node.evict(OTHER_CACHE, IntStream.rangeClosed(0, CacheInvalidationService.MAX_KEYS)
+            .mapToObj(i -> "user" + i)
+            .collect(Collectors.toList()));
+        node.publish();
+
+        // the message has too many keys, so it clears the cache
+        awaitEviction(otherCache, "erin");
+    }
+
+    @Test
+    public void followEvictionsAreAppliedOnTheOtherNodes() throws InterruptedException {
+        followRepository.deleteAll();
+        userRepository.findOneByLogin("frank").ifPresent(userRepository::delete);
+        UserDTO frank = new UserDTO();
+        frank.setLogin("frank");
+        frank.setEmail("frank@example.com");
+        userService.createUser(frank);
+        FollowService followService = new FollowService(followRepository, loginIndex, timelineService,
+            hotAuthorService, timelineStreamService, timelineSyncService, node);
+        Cache otherCache = otherCacheManager.getCache(FOLLOW_CACHE);
+        otherCache.put("grace", Collections.emptyList());
+
+        followService.follow("grace", "frank");
+        node.publish();
+
+        // the other node reads the new follow instead of its cached list
+        awaitEviction(otherCache, "grace");
+        followRepository.deleteAll();
+    }
+
+    private static void awaitEviction(Cache cache, String key) throws InterruptedException {
+        for (int i = 0; i < 100 && cache.get(key) != null; i++) {
+            Thread.sleep(50);
+        }
+        assertThat(cache.get(key)).isNull();
+    }
+}
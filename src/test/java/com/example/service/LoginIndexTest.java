@@ -0,0 +1,74 @@
+package com.example.service;
+
+import com.codahale.metrics.MetricRegistry;
+import com.example.repository.UserRepository;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+public class LoginIndexTest {
+
+    private UserRepository userRepository;
+
+    private LoginIndex loginIndex;
+
+    @Before
+    public void setup() {
+        userRepository = mock(UserRepository.class);
+        when(userRepository.findActivatedLogins(anyCollection())).thenReturn(Collections.emptySet());
+        loginIndex = new LoginIndex(userRepository, null, new MetricRegistry());
+    }
+
+    @Test
+    public void exists_afterAddAndRemove_followsTheChanges() {
+        loginIndex.add("alice");
+
+        assertThat(loginIndex.exists("alice")).isTrue();
+        verify(userRepository, never()).findActivatedLogins(anyCollection());
+
+        loginIndex.remove("alice");
+
+        assertThat(loginIndex.exists("alice")).isFalse();
+    }
+
+    @Test
+    public void retainExisting_withUnknownLogins_looksThemUpOnceAndIndexesThem() {
+        loginIndex.add("alice");
+        when(userRepository.findActivatedLogins(new HashSet<>(Arrays.asList("bob", "nobody"))))
+            .thenReturn(Collections.singleton("bob"));
+
+        assertThat(loginIndex.retainExisting(Arrays.asList("alice", "bob", "nobody", null)))
+            .containsExactlyInAnyOrder("alice", "bob");
+        // bob was added to the index by the lookup
+        assertThat(loginIndex.exists("bob")).isTrue();
+        verify(userRepository, times(1)).findActivatedLogins(anyCollection());
+    }
+
+    @Test
+    public void exists_matchesLoginsExactly() {
+        loginIndex.add("alice");
+
+        assertThat(loginIndex.exists("Alice")).isFalse();
+    }
+
+    @Test
+    public void add_pastMaxChanges_mergesIntoTheSortedArray() {
+        for (int i = 0; i <= LoginIndex.MAX_CHANGES; i++) {
+            loginIndex.add("user" + i);
+        }
+        loginIndex.remove("user0");
+
+        for (int i = 1; i <= LoginIndex.MAX_CHANGES; i++) {
+            assertThat(loginIndex.exists("user" + i)).isTrue();
+        }
+        assertThat(loginIndex.exists("user0")).isFalse();
+        verify(userRepository, times(1)).findActivatedLogins(anyCollection());
+    }
+}
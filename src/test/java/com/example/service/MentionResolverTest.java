@@ -0,0 +1,61 @@
+package com.example.service;
+
+import com.codahale.metrics.MetricRegistry;
+import com.example.domain.Tweet;
+import com.example.domain.User;
+import com.example.repository.UserRepository;
+import com.example.service.dto.MentionDTO;
+import com.example.service.dto.TweetDTO;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+public class MentionResolverTest {
+
+    private UserRepository userRepository;
+
+    private LoginIndex loginIndex;
+
+    private MentionResolver mentionResolver;
+
+    @Before
+    public void setup() {
+        userRepository = mock(UserRepository.class);
+        loginIndex = new LoginIndex(userRepository, null, new MetricRegistry());
+        mentionResolver = new MentionResolver(userRepository,
+            new ConcurrentMapCacheManager(UserRepository.USERS_BY_LOGIN_CACHE), loginIndex);
+    }
+
+    @Test
+    public void resolve_withUnknownMentions_queriesNothing() {
+        List<TweetDTO> tweets = mentionResolver.resolve(Collections.singletonList(
+            new Tweet().tweeter("alice").content("hello @nobody and @Nobody")));
+
+        assertThat(tweets.get(0).getMentions()).isEmpty();
+        verify(userRepository, never()).findActivatedProfiles(anyCollection());
+        verify(userRepository, never()).findActivatedLogins(anyCollection());
+    }
+
+    @Test
+    public void resolve_withKnownAndUnknownMentions_readsTheKnownOnesOnly() {
+        loginIndex.add("bob");
+        User bob = new User();
+        bob.setLogin("bob");
+        bob.setActivated(true);
+        when(userRepository.findActivatedProfiles(Collections.singletonList("bob")))
+            .thenReturn(Collections.singletonList(bob));
+
+        List<TweetDTO> tweets = mentionResolver.resolve(Collections.singletonList(
+            new Tweet().tweeter("alice").content("hello @Bob and @nobody")));
+
+        assertThat(tweets.get(0).getMentions()).extracting(MentionDTO::getLogin).containsExactly("bob");
+        verify(userRepository, times(1)).findActivatedProfiles(anyCollection());
+    }
+}
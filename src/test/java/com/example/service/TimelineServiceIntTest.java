@@ -0,0 +1,310 @@
+package com.example.service;
+
+import com.example.TwitsterApp;
+import com.example.config.ApplicationProperties;
+import com.example.domain.Tweet;
+import com.example.repository.FollowRepository;
+import com.example.repository.TimelineEntryRepository;
+import com.example.repository.TweetRepository;
+import com.example.repository.UserRepository;
+import com.example.service.dto.TweetCursor;
+import com.example.service.dto.UserDTO;
+import com.example.service.event.TweetEvent;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the TimelineService.
+ *
+ * @see TimelineService
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = TwitsterApp.class)
+public class TimelineServiceIntTest {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TweetRepository tweetRepository;
+
+    @Autowired
+    private FollowRepository followRepository;
+
+    @Autowired
+    private TimelineEntryRepository timelineEntryRepository;
+
+    @Autowired
+    private FollowService followService;
+
+    @Autowired
+    private TimelineService timelineService;
+
+    @Autowired
+    private RecentTweetCache recentTweetCache;
+
+    @Autowired
+    private HotAuthorService hotAuthorService;
+
+    @Autowired
+    private TimelineCache timelineCache;
+
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
+    @Before
+    public void init() {
+        tweetRepository.deleteAll();
+        followRepository.deleteAll();
+        timelineEntryRepository.deleteAll();
+        userRepository.deleteAll();
+        recentTweetCache.clear();
+        timelineCache.clear();
+        createUser("alice");
+        createUser("bob");
+        createUser("carol");
+    }
+
+    @After
+    public void resetMode() {
+        applicationProperties.getTimeline().setMode(ApplicationProperties.Timeline.Mode.PUSH);
+        applicationProperties.getTimeline().setHotAuthorFollowerThreshold(10000);
+    }
+
+    @Test
+    public void assertThatTweetIsDeliveredToAuthorAndFollowers() {
+        followService.follow("bob", "alice");
+        Tweet tweet = tweetRepository.save(new Tweet().tweeter("alice").content("hello"));
+
+        timelineService.fanOut(tweet);
+
+        assertThat(timelineService.getTimeline("alice", PageRequest.of(0, 10)).getContent()).containsExactly(tweet);
+        assertThat(timelineService.getTimeline("bob", PageRequest.of(0, 10)).getContent()).containsExactly(tweet);
+    }
+
+    @Test
+    public void assertThatFanOutIsIdempotent() {
+        Tweet tweet = tweetRepository.save(new Tweet().tweeter("alice").content("hello"));
+
+        timelineService.fanOut(tweet);
+        timelineService.fanOut(tweet);
+
+        assertThat(timelineService.getTimeline("alice", PageRequest.of(0, 10)).getTotalElements()).isEqualTo(1);
+    }
+
+    @Test
+    public void assertThatFollowBackfillsAndUnfollowPrunesTimeline() {
+        Tweet older = new Tweet().tweeter("alice").content("older");
+        older.setCreateTime(Instant.now().minusSeconds(60));
+        older = tweetRepository.save(older);
+        Tweet newer = tweetRepository.save(new Tweet().tweeter("alice").content("newer"));
+
+        followService.follow("bob", "alice");
+        assertThat(timelineService.getTimeline("bob", PageRequest.of(0, 10)).getContent()).containsExactly(newer, older);
+
+        followService.unfollow("bob", "alice");
+        assertThat(timelineService.getTimeline("bob", PageRequest.of(0, 10)).getContent()).isEmpty();
+    }
+
+    @Test
+    public void assertThatCachedTimelineIsEvictedOnDelivery() {
+        Instant now = Instant.now();
+        Tweet first = saveTweet("alice", now.minusSeconds(10));
+        timelineService.fanOut(first);
+
+        assertThat(timelineService.getTimeline("alice", PageRequest.of(0, 10)).getContent()).containsExactly(first);
+        assertThat(timelineCache.get("alice")).hasValueSatisfying(head -> {
+            assertThat(head.getTweets()).extracting("id").containsExactly(first.getId());
+            assertThat(head.isComplete()).isTrue();
+        });
+
+        Tweet second = saveTweet("alice", now);
+        timelineService.fanOut(second);
+
+        assertThat(timelineCache.get("alice")).isEmpty();
+        assertThat(timelineService.getTimeline("alice", PageRequest.of(0, 10)).getContent())
+            .containsExactly(second, first);
+    }
+
+    @Test
+    public void assertThatHeadLoadedBeforeAnEvictionIsNotCached() {
+        Tweet tweet = saveTweet("alice", Instant.now());
+        TimelineCache.Head stale = new TimelineCache.Head(Collections.emptyList(), true);
+
+        // a delivery evicts the timeline while the head is read
+        TimelineCache.Head head = timelineCache.get("alice", () -> {
+            timelineService.fanOut(tweet);
+            return stale;
+        });
+
+        assertThat(head).isSameAs(stale);
+        assertThat(timelineCache.get("alice")).isEmpty();
+        assertThat(timelineService.getTimeline("alice", PageRequest.of(0, 10)).getContent()).containsExactly(tweet);
+    }
+
+    @Test
+    public void assertThatPullModeMergesFollowedAuthorsNewestFirst() {
+        applicationProperties.getTimeline().setMode(ApplicationProperties.Timeline.Mode.PULL);
+        Instant now = Instant.now();
+        Tweet first = saveTweet("alice", now.minusSeconds(30));
+        Tweet second = saveTweet("bob", now.minusSeconds(20));
+        Tweet third = saveTweet("alice", now.minusSeconds(10));
+        Tweet fourth = saveTweet("carol", now);
+        followService.follow("carol", "alice");
+        followService.follow("carol", "bob");
+
+        assertThat(timelineService.getTimeline("carol", PageRequest.of(0, 10)).getContent())
+            .containsExactly(fourth, third, second, first);
+        Page<Tweet> secondPage = timelineService.getTimeline("carol", PageRequest.of(1, 2));
+        assertThat(secondPage.getContent()).containsExactly(second, first);
+        assertThat(secondPage.hasNext()).isFalse();
+    }
+
+    @Test
+    public void assertThatQueryModeReadsFollowedAuthorsNewestFirst() {
+        applicationProperties.getTimeline().setMode(ApplicationProperties.Timeline.Mode.QUERY);
+        Instant now = Instant.now();
+        Tweet first = saveTweet("alice", now.minusSeconds(20));
+        saveTweet("bob", now.minusSeconds(10));
+        Tweet third = saveTweet("carol", now);
+        followService.follow("carol", "alice");
+
+        assertThat(timelineService.getTimeline("carol", PageRequest.of(0, 10)).getContent())
+            .containsExactly(third, first);
+    }
+
+    @Test
+    public void assertThatHybridModeMergesHotAuthorsOnRead() {
+        applicationProperties.getTimeline().setMode(ApplicationProperties.Timeline.Mode.HYBRID);
+        applicationProperties.getTimeline().setHotAuthorFollowerThreshold(1);
+        Instant now = Instant.now();
+        Tweet first = saveTweet("alice", now.minusSeconds(30));
+        followService.follow("carol", "alice");
+        followService.follow("carol", "bob");
+        Tweet second = saveTweet("bob", now.minusSeconds(20));
+        timelineService.fanOut(second);
+
+        assertThat(hotAuthorService.shouldPush("alice")).isFalse();
+        Tweet third = saveTweet("alice", now.minusSeconds(10));
+
+        // the backfilled tweet is both materialized and merged, but only returned once
+        assertThat(timelineService.getTimeline("carol", PageRequest.of(0, 10)).getContent())
+            .containsExactly(third, second, first);
+        assertThat(timelineEntryRepository.findAllByOwnerOrderByCreateTimeDescTweetIdDesc("carol", PageRequest.of(0, 10)))
+            .extracting("tweetId").containsExactly(second.getId(), first.getId());
+    }
+
+    @Test
+    public void assertThatHotAuthorsAreDemotedWhenTheirFollowersLeaveElsewhere() throws InterruptedException {
+        applicationProperties.getTimeline().setMode(ApplicationProperties.Timeline.Mode.HYBRID);
+        applicationProperties.getTimeline().setHotAuthorFollowerThreshold(2);
+        followService.follow("carol", "alice");
+        followService.follow("bob", "alice");
+        hotAuthorService.shouldPush("alice");
+        hotAuthorService.updateStats();
+        assertThat(hotAuthorService.isHot("alice")).isTrue();
+        Tweet tweet = saveTweet("alice", Instant.now());
+
+        // a follower removed by another node is only seen by the periodic update
+        followRepository.deleteByFollowerAndFollowee("bob", "alice");
+        hotAuthorService.updateStats();
+
+        assertThat(hotAuthorService.isHot("alice")).isFalse();
+        // the tweet is not merged on read any more, so it is pushed into the timeline of the remaining follower
+        for (int i = 0; i < 100 && timelineEntryRepository
+            .findAllByOwnerOrderByCreateTimeDescTweetIdDesc("carol", PageRequest.of(0, 10)).isEmpty(); i++) {
+            Thread.sleep(50);
+        }
+        assertThat(timelineEntryRepository.findAllByOwnerOrderByCreateTimeDescTweetIdDesc("carol", PageRequest.of(0, 10)))
+            .extracting("tweetId").containsExactly(tweet.getId());
+    }
+
+    @Test
+    public void assertThatCursorPagingReadsEveryTweetOnce() {
+        Instant now = Instant.now();
+        Tweet first = saveTweet("alice", now.minusSeconds(20));
+        Tweet second = saveTweet("alice", now.minusSeconds(10));
+        Tweet third = saveTweet("alice", now.minusSeconds(10));
+        followService.follow("bob", "alice");
+
+        for (ApplicationProperties.Timeline.Mode mode : ApplicationProperties.Timeline.Mode.values()) {
+            applicationProperties.getTimeline().setMode(mode);
+            List<Tweet> tweets = new ArrayList<>();
+            TweetCursor cursor = null;
+            Slice<Tweet> slice;
+            do {
+                slice = timelineService.getTimeline("bob", cursor, 2);
+                tweets.addAll(slice.getContent());
+                cursor = TweetCursor.next(slice).orElse(null);
+            } while (cursor != null);
+            // second and third were created at the same time, so they are sorted on their id
+            Tweet newer = second.getId().compareTo(third.getId()) > 0 ? second : third;
+            Tweet older = newer == second ? third : second;
+            assertThat(tweets).as("timeline in %s mode", mode).containsExactly(newer, older, first);
+        }
+    }
+
+    @Test
+    public void assertThatRecentTweetCursorReadsPastAnEmptiedSnapshot() {
+        Instant now = Instant.now();
+        List<Tweet> saved = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            saved.add(saveTweet("alice", now));
+        }
+        // created at the same time, the tweets are sorted on their id
+        saved.sort(Comparator.comparing(Tweet::getId).reversed());
+        ApplicationProperties properties = new ApplicationProperties();
+        properties.getTimeline().setRecentTweetsPerAuthor(2);
+        RecentTweetCache cache = new RecentTweetCache(tweetRepository, properties);
+
+        List<String> ids = new ArrayList<>();
+        for (RecentTweetCache.Cursor cursor = cache.cursor("alice"); cursor.hasNext(); ) {
+            ids.add(cursor.next().getId());
+        }
+        // the first two from the cache, the last one from MongoDB
+        assertThat(ids).containsExactly(saved.get(0).getId(), saved.get(1).getId(), saved.get(2).getId());
+
+        // once its two tweets are deleted, the cached snapshot is empty but not complete
+        for (Tweet tweet : saved.subList(0, 2)) {
+            tweetRepository.delete(tweet);
+            cache.onTweetEvent(TweetEvent.deleted(tweet));
+        }
+        RecentTweetCache.Cursor cursor = cache.cursor("alice");
+        assertThat(cursor.hasNext()).isTrue();
+        assertThat(cursor.next().getId()).isEqualTo(saved.get(2).getId());
+        assertThat(cursor.hasNext()).isFalse();
+    }
+
+    private Tweet saveTweet(String tweeter, Instant createTime) {
+        Tweet tweet = new Tweet().tweeter(tweeter).content("tweet from " + tweeter);
+        tweet.setCreateTime(createTime);
+        return tweetRepository.save(tweet);
+    }
+
+    private void createUser(String login) {
+        UserDTO user = new UserDTO();
+        user.setLogin(login);
+        user.setEmail(String.format("%s@example.com", login));
+        userService.createUser(user);
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.service;
+
+import com.example.TwitsterApp;
+import com.example.domain.TimelineChange;
+import com.example.domain.Tweet;
+import com.example.repository.TweetRepository;
+import com.example.service.dto.TimelineSyncDTO;
+
+import org.bson.Document;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * Test class for the TimelineSyncService, with journal entries inserted out of sequence order.
+ *
+ * @see TimelineSyncService
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = TwitsterApp.class)
+public class TimelineSyncServiceIntTest {
+
+    @Autowired
+    private TimelineSyncService timelineSyncService;
+
+    @Autowired
+    private TweetRepository tweetRepository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    private String token;
+
+    @Before
+    public void setup() {
+        tweetRepository.deleteAll();
+        mongoTemplate.remove(new Query(), TimelineChange.class);
+        mongoTemplate.remove(new Query(), TimelineSyncService.SEQUENCE_COLLECTION);
+        token = timelineSyncService.sync("bob", null, 100).getToken();
+    }
+
+    @Test
+    public void assertThatAnEntryInFlightHoldsBackTheLaterOnes() {
+        Tweet first = tweetRepository.save(new Tweet().tweeter("bob").content("first"));
+        Tweet second = tweetRepository.save(new Tweet().tweeter("bob").content("second"));
+        // the first entry is numbered, but inserted after the second one
+        Document sequence = nextSequence();
+        timelineSyncService.record(TimelineChange.Type.CREATED, second);
+        timelineSyncService.wakeWaiters();
+
+        TimelineSyncDTO changes = timelineSyncService.sync("bob", Long.valueOf(token), 100);
+        assertThat(changes.hasChanges()).isFalse();
+        assertThat(changes.getToken()).isEqualTo(token);
+
+        insert(sequence, first);
+        timelineSyncService.wakeWaiters();
+        changes = timelineSyncService.sync("bob", Long.valueOf(token), 100);
+        assertThat(changes.getTweets()).extracting(Tweet::getId).containsExactly(first.getId(), second.getId());
+    }
+
+    @Test
+    public void assertThatALostEntryNoLongerHoldsBackTheLaterOnes() throws InterruptedException {
+        Tweet tweet = tweetRepository.save(new Tweet().tweeter("bob").content("hello"));
+        // the entry of this number is never inserted
+        nextSequence();
+        timelineSyncService.record(TimelineChange.Type.CREATED, tweet);
+        timelineSyncService.wakeWaiters();
+        assertThat(timelineSyncService.sync("bob", Long.valueOf(token), 100).hasChanges()).isFalse();
+
+        Thread.sleep(TimelineSyncService.SETTLE_MILLIS + 100);
+        timelineSyncService.wakeWaiters();
+        TimelineSyncDTO changes = timelineSyncService.sync("bob", Long.valueOf(token), 100);
+        assertThat(changes.getTweets()).extracting(Tweet::getId).containsExactly(tweet.getId());
+    }
+
+    @Test
+    public void assertThatSyncsWithoutChangesMoveTheTokenToTheWatermark() {
+        Tweet tweet = tweetRepository.save(new Tweet().tweeter("carol").content("not followed"));
+        TimelineChange change = timelineSyncService.record(TimelineChange.Type.CREATED, tweet);
+        timelineSyncService.wakeWaiters();
+
+        TimelineSyncDTO changes = timelineSyncService.sync("bob", Long.valueOf(token), 100);
+
+        // the next sync does not scan the entry of carol again
+        assertThat(changes.hasChanges()).isFalse();
+        assertThat(changes.getToken()).isEqualTo(String.valueOf(change.getId()));
+    }
+
+    private Document nextSequence() {
+        return mongoTemplate.findAndModify(
+            query(where("_id").is(TimelineChange.class.getSimpleName())),
+            new Update().inc("value", 1L).currentDate("time"),
+            FindAndModifyOptions.options().returnNew(true).upsert(true),
+            Document.class, TimelineSyncService.SEQUENCE_COLLECTION);
+    }
+
+    private void insert(Document sequence, Tweet tweet) {
+        TimelineChange change = new TimelineChange();
+        change.setId(((Number) sequence.get("value")).longValue());
+        change.setTime(sequence.getDate("time").toInstant());
+        change.setType(TimelineChange.Type.CREATED);
+        change.setTweetId(tweet.getId());
+        change.setTweeter(tweet.getTweeter());
+        mongoTemplate.insert(change);
+    }
+}
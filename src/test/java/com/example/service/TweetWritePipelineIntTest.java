@@ -0,0 +1,89 @@
+package com.example.service;
+
+import com.codahale.metrics.MetricRegistry;
+import com.example.TwitsterApp;
+import com.example.config.ApplicationProperties;
+import com.example.domain.Tweet;
+import com.example.repository.TweetRepository;
+import com.example.web.rest.errors.ServiceUnavailableException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Test class for the TweetWritePipeline.
+ *
+ * @see TweetWritePipeline
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = TwitsterApp.class)
+public class TweetWritePipelineIntTest {
+
+    @Autowired
+    private TweetService tweetService;
+
+    @Autowired
+    private TweetRepository tweetRepository;
+
+    private MetricRegistry metricRegistry;
+
+    private TweetWritePipeline pipeline;
+
+    @Before
+    public void setup() {
+        tweetRepository.deleteAll();
+        ApplicationProperties properties = new ApplicationProperties();
+        properties.getTweetWrites().setMode(ApplicationProperties.TweetWrites.Mode.GROUP);
+        properties.getTweetWrites().setAck(ApplicationProperties.TweetWrites.Ack.WRITTEN);
+        properties.getTweetWrites().setBatchSize(10);
+        properties.getTweetWrites().setFlushIntervalMillis(50);
+        metricRegistry = new MetricRegistry();
+        pipeline = new TweetWritePipeline(tweetService, properties, metricRegistry);
+        pipeline.start();
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        pipeline.stop();
+    }
+
+    @Test
+    public void writeGroupsConcurrentTweetsInBatches() {
+        List<CompletableFuture<Tweet>> writes = IntStream.range(0, 25)
+            .mapToObj(i -> CompletableFuture.supplyAsync(() ->
+                pipeline.write(new Tweet().tweeter("alice").content("tweet #t" + i)).get()))
+            .collect(Collectors.toList());
+
+        // with the WRITTEN ack, each write returns once its batch is inserted
+        List<Tweet> written = writes.stream().map(CompletableFuture::join).collect(Collectors.toList());
+
+        assertThat(written).extracting(Tweet::getId).doesNotContainNull().doesNotHaveDuplicates();
+        assertThat(tweetRepository.findAll()).hasSize(25);
+        assertThat(tweetRepository.findById(written.get(0).getId()).get().getTags()).hasSize(1);
+        long batches = metricRegistry.histogram("tweets.write.batch-size").getCount();
+        assertThat(batches).isBetween(3L, 25L);
+        assertThat(metricRegistry.histogram("tweets.write.batch-size").getSnapshot().getMax()).isLessThanOrEqualTo(10);
+    }
+
+    @Test
+    public void writeIsRefusedOnceTheWriterIsStopped() throws InterruptedException {
+        pipeline.stop();
+
+        assertThatThrownBy(() -> pipeline.write(new Tweet().tweeter("alice").content("too late")))
+            .isInstanceOf(ServiceUnavailableException.class);
+        assertThat(tweetRepository.findAll()).isEmpty();
+    }
+}
@@ -15,10 +15,12 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.util.CloseableIterator;
 import org.springframework.test.context.junit4.SpringRunner;
 
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
@@ -69,6 +71,17 @@ public class UserServiceIntTest {
         assertThat(maybeUser.orElse(null).getResetKey()).isNotNull();
     }
 
+    @Test
+    public void assertThatPasswordResetCanBeRequestedWithEmailInAnotherCase() {
+        user.setEmail("John.Doe@Localhost");
+        userRepository.save(user);
+
+        Optional<User> maybeUser = userService.requestPasswordReset("john.doe@LOCALHOST");
+        assertThat(maybeUser).isPresent();
+        assertThat(maybeUser.orElse(null).getLogin()).isEqualTo("johndoe");
+        assertThat(maybeUser.orElse(null).getResetKey()).isNotNull();
+    }
+
     @Test
     public void assertThatOnlyActivatedUserCanRequestPasswordReset() {
         user.setActivated(false);
@@ -132,10 +145,10 @@ public class UserServiceIntTest {
         User dbUser = userRepository.save(user);
         dbUser.setCreatedDate(now.minus(4, ChronoUnit.DAYS));
         userRepository.save(user);
-        List<User> users = userRepository.findAllByActivatedIsFalseAndCreatedDateBefore(now.minus(3, ChronoUnit.DAYS));
+        List<User> users = findNotActivatedUsers(now.minus(3, ChronoUnit.DAYS));
         assertThat(users).isNotEmpty();
         userService.removeNotActivatedUsers();
-        users = userRepository.findAllByActivatedIsFalseAndCreatedDateBefore(now.minus(3, ChronoUnit.DAYS));
+        users = findNotActivatedUsers(now.minus(3, ChronoUnit.DAYS));
         assertThat(users).isEmpty();
     }
 
@@ -167,4 +180,11 @@ public class UserServiceIntTest {
         assertThat(userRepository.findOneByLogin("johndoe")).isNotPresent();
     }
 
+    private List<User> findNotActivatedUsers(Instant createdBefore) {
+        List<User> users = new ArrayList<>();
+        try (CloseableIterator<User> iterator = userRepository.streamNotActivatedUsers(createdBefore)) {
+            iterator.forEachRemaining(users::add);
+        }
+        return users;
+    }
 }
@@ -0,0 +1,53 @@
+package com.example.service.trend;
+
+import org.junit.Test;
+
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CountMinSketchTest {
+
+    @Test
+    public void estimate_always_neverUnderestimates() {
+        CountMinSketch sketch = new CountMinSketch(64, 4);
+
+        IntStream.range(0, 1000).forEach(i -> sketch.add("tag" + (i % 100)));
+
+        IntStream.range(0, 100).forEach(i -> assertThat(sketch.estimate("tag" + i)).isGreaterThanOrEqualTo(10));
+    }
+
+    @Test
+    public void estimate_withWideSketch_isExactForFewItems() {
+        CountMinSketch sketch = new CountMinSketch(4096, 4);
+
+        sketch.add("java");
+        sketch.add("java");
+        sketch.add("kotlin");
+
+        assertThat(sketch.estimate("java")).isEqualTo(2);
+        assertThat(sketch.estimate("kotlin")).isEqualTo(1);
+        assertThat(sketch.estimate("scala")).isEqualTo(0);
+    }
+
+    @Test
+    public void estimate_withSameStringHashCode_isNotShared() {
+        CountMinSketch sketch = new CountMinSketch(4096, 4);
+        assertThat("Aa".hashCode()).isEqualTo("BB".hashCode());
+
+        IntStream.range(0, 10).forEach(i -> sketch.add("Aa"));
+
+        assertThat(sketch.estimate("Aa")).isEqualTo(10);
+        assertThat(sketch.estimate("BB")).isEqualTo(0);
+    }
+
+    @Test
+    public void clear_always_resetsAllCounters() {
+        CountMinSketch sketch = new CountMinSketch(64, 4);
+        sketch.add("java");
+
+        sketch.clear();
+
+        assertThat(sketch.estimate("java")).isEqualTo(0);
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.service.trend;
+
+import com.example.service.dto.TrendDTO;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+public class SlidingWindowTest {
+
+    private static final long MINUTE = Duration.ofMinutes(1).toMillis();
+
+    @Test
+    public void top_always_ranksItemsOnTheirCountOverTheWindow() {
+        SlidingWindow window = new SlidingWindow(Duration.ofMinutes(5), 5, 1024, 4, 10);
+
+        add(window, "java", 3, 0);
+        add(window, "kotlin", 2, MINUTE);
+        add(window, "java", 1, 2 * MINUTE);
+
+        assertThat(window.top(10, 2 * MINUTE)).extracting(TrendDTO::getTag, TrendDTO::getCount)
+            .containsExactly(
+                tuple("java", 4L),
+                tuple("kotlin", 2L));
+    }
+
+    @Test
+    public void top_whenSlicesExpire_forgetsTheirItems() {
+        SlidingWindow window = new SlidingWindow(Duration.ofMinutes(5), 5, 1024, 4, 10);
+
+        add(window, "java", 3, 0);
+        add(window, "kotlin", 1, 4 * MINUTE);
+
+        assertThat(window.top(10, 5 * MINUTE)).extracting(TrendDTO::getTag).containsExactly("kotlin");
+    }
+
+    @Test
+    public void top_whenSliceIsReused_resetsItFirst() {
+        SlidingWindow window = new SlidingWindow(Duration.ofMinutes(5), 5, 1024, 4, 10);
+
+        add(window, "java", 3, 0);
+        add(window, "kotlin", 1, 5 * MINUTE);
+
+        assertThat(window.top(10, 5 * MINUTE)).extracting(TrendDTO::getTag, TrendDTO::getCount)
+            .containsExactly(tuple("kotlin", 1L));
+    }
+
+    @Test
+    public void top_withMoreItemsThanCapacity_keepsTheHeavyHitters() {
+        SlidingWindow window = new SlidingWindow(Duration.ofMinutes(5), 5, 1024, 4, 10);
+
+        IntStream.range(0, 1000).forEach(i -> {
+            window.add("tag" + i, 0);
+            if (i % 5 == 0) {
+                window.add("java", 0);
+            }
+        });
+
+        assertThat(window.top(1, 0)).extracting(TrendDTO::getTag).containsExactly("java");
+    }
+
+    private static void add(SlidingWindow window, String item, int times, long now) {
+        for (int i = 0; i < times; i++) {
+            window.add(item, now);
+        }
+    }
+}
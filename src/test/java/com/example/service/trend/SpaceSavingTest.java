@@ -0,0 +1,48 @@
+package com.example.service.trend;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SpaceSavingTest {
+
+    @Test
+    public void offer_withinCapacity_countsExactly() {
+        SpaceSaving summary = new SpaceSaving(3);
+
+        summary.offer("a");
+        summary.offer("b");
+        summary.offer("a");
+
+        assertThat(summary.count("a")).isEqualTo(2);
+        assertThat(summary.count("b")).isEqualTo(1);
+        assertThat(summary.top(10)).containsExactly("a", "b");
+    }
+
+    @Test
+    public void offer_whenFull_replacesTheSmallestCounter() {
+        SpaceSaving summary = new SpaceSaving(2);
+
+        summary.offer("a");
+        summary.offer("a");
+        summary.offer("b");
+        summary.offer("c");
+
+        assertThat(summary.size()).isEqualTo(2);
+        assertThat(summary.items()).containsExactlyInAnyOrder("a", "c");
+        // c inherits the count of b as its error
+        assertThat(summary.count("c")).isEqualTo(2);
+        assertThat(summary.count("b")).isEqualTo(0);
+    }
+
+    @Test
+    public void clear_always_forgetsAllItems() {
+        SpaceSaving summary = new SpaceSaving(2);
+        summary.offer("a");
+
+        summary.clear();
+
+        assertThat(summary.size()).isEqualTo(0);
+        assertThat(summary.count("a")).isEqualTo(0);
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.service.util;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RingBufferTest {
+
+    @Test
+    public void constructor_always_roundsCapacityUpToPowerOfTwo() {
+        assertThat(new RingBuffer<String>(1).capacity()).isEqualTo(2);
+        assertThat(new RingBuffer<String>(5).capacity()).isEqualTo(8);
+        assertThat(new RingBuffer<String>(8).capacity()).isEqualTo(8);
+    }
+
+    @Test
+    public void offer_whenFull_failsUntilPolled() {
+        RingBuffer<String> buffer = new RingBuffer<>(2);
+
+        assertThat(buffer.offer("a")).isTrue();
+        assertThat(buffer.offer("b")).isTrue();
+        assertThat(buffer.offer("c")).isFalse();
+        assertThat(buffer.size()).isEqualTo(2);
+
+        assertThat(buffer.poll()).isEqualTo("a");
+        assertThat(buffer.offer("c")).isTrue();
+        assertThat(buffer.poll()).isEqualTo("b");
+        assertThat(buffer.poll()).isEqualTo("c");
+        assertThat(buffer.poll()).isNull();
+        assertThat(buffer.isEmpty()).isTrue();
+    }
+
+    @Test
+    public void drainTo_always_movesAtMostMaxItemsInOrder() {
+        RingBuffer<Integer> buffer = new RingBuffer<>(8);
+        for (int i = 0; i < 5; i++) {
+            buffer.offer(i);
+        }
+        List<Integer> target = new ArrayList<>();
+
+        assertThat(buffer.drainTo(target, 3)).isEqualTo(3);
+        assertThat(target).containsExactly(0, 1, 2);
+        assertThat(buffer.drainTo(target, 3)).isEqualTo(2);
+        assertThat(target).containsExactly(0, 1, 2, 3, 4);
+    }
+
+    @Test
+    public void offer_fromConcurrentProducers_losesNothing() throws Exception {
+        int producers = 4;
+        int itemsPerProducer = 10000;
+        RingBuffer<Integer> buffer = new RingBuffer<>(64);
+        ExecutorService executor = Executors.newFixedThreadPool(producers);
+        CountDownLatch done = new CountDownLatch(producers);
+        for (int p = 0; p < producers; p++) {
+            executor.execute(() -> {
+                for (int i = 0; i < itemsPerProducer; i++) {
+                    while (!buffer.offer(i)) {
+                        Thread.yield();
+                    }
+                }
+                done.countDown();
+            });
+        }
+        long sum = 0;
+        int count = 0;
+        while (count < producers * itemsPerProducer) {
+            Integer item = buffer.poll();
+            if (item != null) {
+                sum += item;
+                count++;
+            }
+        }
+        assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+        executor.shutdown();
+
+        assertThat(sum).isEqualTo((long) producers * itemsPerProducer * (itemsPerProducer - 1) / 2);
+        assertThat(buffer.poll()).isNull();
+    }
+}
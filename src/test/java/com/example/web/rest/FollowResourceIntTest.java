@@ -0,0 +1,179 @@
+package com.example.web.rest;
+
+import com.example.TwitsterApp;
+
+import com.example.domain.Follow;
+import com.example.repository.FollowRepository;
+import com.example.repository.TweetRepository;
+import com.example.repository.UserRepository;
+import com.example.service.FollowService;
+import com.example.service.UserService;
+import com.example.service.dto.UserDTO;
+import com.example.web.rest.errors.ExceptionTranslator;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.web.PageableHandlerMethodArgumentResolver;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Test class for the FollowResource REST controller.
+ *
+ * @see FollowResource
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = TwitsterApp.class)
+public class FollowResourceIntTest {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TweetRepository tweetRepository;
+
+    @Autowired
+    private FollowRepository followRepository;
+
+    @Autowired
+    private FollowService followService;
+
+    @Autowired
+    private MappingJackson2HttpMessageConverter jacksonMessageConverter;
+
+    @Autowired
+    private PageableHandlerMethodArgumentResolver pageableArgumentResolver;
+
+    @Autowired
+    private ExceptionTranslator exceptionTranslator;
+
+    private MockMvc restFollowMockMvc;
+
+    @Before
+    public void setup() {
+        FollowResource followResource = new FollowResource(followService);
+        this.restFollowMockMvc = MockMvcBuilders.standaloneSetup(followResource)
+            .setCustomArgumentResolvers(pageableArgumentResolver)
+            .setControllerAdvice(exceptionTranslator)
+            .setMessageConverters(jacksonMessageConverter).build();
+        tweetRepository.deleteAll();
+        followRepository.deleteAll();
+        userRepository.deleteAll();
+        createUser("alice");
+        createUser("bob");
+    }
+
+    @Test
+    @WithMockUser("bob")
+    public void follow() throws Exception {
+        restFollowMockMvc.perform(post("/api/following/alice"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+            .andExpect(jsonPath("$.follower").value("bob"))
+            .andExpect(jsonPath("$.followee").value("alice"))
+            .andExpect(header().exists("X-twitsterApp-alert"));
+
+        assertThat(followRepository.findOneByFollowerAndFollowee("bob", "alice")).isPresent();
+    }
+
+    @Test
+    @WithMockUser("bob")
+    public void followTwice() throws Exception {
+        restFollowMockMvc.perform(post("/api/following/alice"))
+            .andExpect(status().isOk());
+        String id = followRepository.findOneByFollowerAndFollowee("bob", "alice").map(Follow::getId).get();
+
+        // following again is a no-op, which returns the existing relationship
+        restFollowMockMvc.perform(post("/api/following/alice"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.id").value(id));
+
+        assertThat(followRepository.findAll()).hasSize(1);
+    }
+
+    @Test
+    @WithMockUser("bob")
+    public void followSelf() throws Exception {
+        restFollowMockMvc.perform(post("/api/following/bob"))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.message").value("error.followself"));
+
+        assertThat(followRepository.findAll()).isEmpty();
+    }
+
+    @Test
+    @WithMockUser("bob")
+    public void followUnknownUser() throws Exception {
+        restFollowMockMvc.perform(post("/api/following/nobody"))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.message").value("error.followeeunknown"));
+
+        assertThat(followRepository.findAll()).isEmpty();
+    }
+
+    @Test
+    @WithMockUser("bob")
+    public void unfollow() throws Exception {
+        followService.follow("bob", "alice");
+
+        restFollowMockMvc.perform(delete("/api/following/alice"))
+            .andExpect(status().isOk())
+            .andExpect(header().exists("X-twitsterApp-alert"));
+
+        assertThat(followRepository.findOneByFollowerAndFollowee("bob", "alice")).isNotPresent();
+
+        // unfollowing an account that is not followed is a no-op
+        restFollowMockMvc.perform(delete("/api/following/alice"))
+            .andExpect(status().isOk());
+    }
+
+    @Test
+    @WithMockUser("bob")
+    public void getFollowing() throws Exception {
+        followService.follow("bob", "alice");
+
+        restFollowMockMvc.perform(get("/api/following?sort=id,desc"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+            .andExpect(header().string("X-Total-Count", "1"))
+            .andExpect(jsonPath("$", hasSize(1)))
+            .andExpect(jsonPath("$.[*].followee").value(hasItem("alice")));
+    }
+
+    @Test
+    @WithMockUser("alice")
+    public void getFollowers() throws Exception {
+        followService.follow("bob", "alice");
+
+        restFollowMockMvc.perform(get("/api/followers?sort=id,desc"))
+            .andExpect(status().isOk())
+            .andExpect(header().string("X-Total-Count", "1"))
+            .andExpect(jsonPath("$", hasSize(1)))
+            .andExpect(jsonPath("$.[*].follower").value(hasItem("bob")));
+    }
+
+    private void createUser(String login) {
+        UserDTO user = new UserDTO();
+        user.setLogin(login);
+        user.setEmail(String.format("%s@example.com", login));
+        userService.createUser(user);
+    }
+}
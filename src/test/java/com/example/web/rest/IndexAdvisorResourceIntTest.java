@@ -0,0 +1,77 @@
+package com.example.web.rest;
+
+import com.example.TwitsterApp;
+import com.example.service.IndexAdvisorService;
+import com.example.service.dto.QueryPlanDTO;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.hasItem;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Test class for the IndexAdvisorResource REST controller.
+ *
+ * @see IndexAdvisorResource
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = TwitsterApp.class)
+public class IndexAdvisorResourceIntTest {
+
+    @Autowired
+    private IndexAdvisorService indexAdvisorService;
+
+    private MockMvc restIndexAdvisorMockMvc;
+
+    @Before
+    public void setup() {
+        IndexAdvisorResource indexAdvisorResource = new IndexAdvisorResource(indexAdvisorService);
+        this.restIndexAdvisorMockMvc = MockMvcBuilders
+            .standaloneSetup(indexAdvisorResource)
+            .build();
+    }
+
+    @Test
+    public void getQueryPlans() throws Exception {
+        restIndexAdvisorMockMvc.perform(get("/management/index-advisor"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+            .andExpect(jsonPath("$.[*].method").value(hasItem("findByTweeterOrderByCreateTimeDesc(String, Pageable)")));
+    }
+
+    @Test
+    public void assertThatTweetQueriesUseIndexes() {
+        List<QueryPlanDTO> plans = indexAdvisorService.explainAll();
+
+        assertThat(plans)
+            .filteredOn(plan -> plan.getRepository().equals("TweetRepository"))
+            .isNotEmpty()
+            .allSatisfy(plan -> assertThat(plan.getWarnings()).as(plan.toString()).isEmpty());
+    }
+
+    @Test
+    public void assertThatTagBucketQueryUsesItsIndexForTheSort() {
+        List<QueryPlanDTO> plans = indexAdvisorService.explainAll();
+
+        assertThat(plans)
+            .filteredOn(plan -> plan.getRepository().equals("TagBucketRepository"))
+            .hasSize(1)
+            .allSatisfy(plan -> {
+                assertThat(plan.getIndexes()).as(plan.toString()).contains("tag_hour_max_create_time");
+                assertThat(plan.getWarnings()).as(plan.toString()).isEmpty();
+            });
+    }
+}
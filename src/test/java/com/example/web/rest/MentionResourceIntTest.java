@@ -0,0 +1,94 @@
+package com.example.web.rest;
+
+import com.example.TwitsterApp;
+
+import com.example.domain.Tweet;
+import com.example.repository.TweetRepository;
+import com.example.service.TweetService;
+import com.example.web.rest.errors.ExceptionTranslator;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Test class for the MentionResource REST controller.
+ *
+ * @see MentionResource
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = TwitsterApp.class)
+public class MentionResourceIntTest {
+
+    @Autowired
+    private TweetRepository tweetRepository;
+
+    @Autowired
+    private TweetService tweetService;
+
+    @Autowired
+    private MappingJackson2HttpMessageConverter jacksonMessageConverter;
+
+    @Autowired
+    private ExceptionTranslator exceptionTranslator;
+
+    private MockMvc restMentionMockMvc;
+
+    @Before
+    public void setup() {
+        MentionResource mentionResource = new MentionResource(tweetService);
+        this.restMentionMockMvc = MockMvcBuilders.standaloneSetup(mentionResource)
+            .setControllerAdvice(exceptionTranslator)
+            .setMessageConverters(jacksonMessageConverter).build();
+        tweetRepository.deleteAll();
+    }
+
+    @Test
+    @WithMockUser("alice")
+    public void getMentionsWithCursor() throws Exception {
+        Instant now = Instant.now();
+        Tweet older = saveTweet("hello @alice", now.minusSeconds(10));
+        saveTweet("hello @bob", now.minusSeconds(5));
+        Tweet newer = saveTweet("hello @Alice", now);
+
+        // Get the first slice, which points to the next one
+        String next = restMentionMockMvc.perform(get("/api/mentions?limit=1"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].id").value(contains(newer.getId())))
+            .andReturn().getResponse().getHeader("X-Next-Cursor");
+        assertThat(next).isNotNull();
+
+        // Get the last slice
+        restMentionMockMvc.perform(get("/api/mentions?limit=1&before={cursor}", next))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].id").value(contains(older.getId())))
+            .andExpect(header().doesNotExist("X-Next-Cursor"));
+    }
+
+    @Test
+    @WithMockUser("alice")
+    public void getMentionsWithInvalidCursor() throws Exception {
+        restMentionMockMvc.perform(get("/api/mentions?before=invalid"))
+            .andExpect(status().isBadRequest());
+    }
+
+    private Tweet saveTweet(String content, Instant createTime) {
+        Tweet tweet = new Tweet().tweeter("bob").content(content);
+        tweet.setCreateTime(createTime);
+        return tweetRepository.save(tweet);
+    }
+}
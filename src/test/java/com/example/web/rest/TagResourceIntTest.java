@@ -0,0 +1,150 @@
+package com.example.web.rest;
+
+import com.example.TwitsterApp;
+
+import com.example.domain.TagBucket;
+import com.example.domain.Tweet;
+import com.example.repository.TagBucketRepository;
+import com.example.repository.TweetRepository;
+import com.example.service.TagFeedService;
+import com.example.web.rest.errors.ExceptionTranslator;
+
+import org.bson.types.ObjectId;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Test class for the TagResource REST controller.
+ *
+ * @see TagResource
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = TwitsterApp.class)
+public class TagResourceIntTest {
+
+    @Autowired
+    private TweetRepository tweetRepository;
+
+    @Autowired
+    private TagBucketRepository tagBucketRepository;
+
+    @Autowired
+    private TagFeedService tagFeedService;
+
+    @Autowired
+    private MappingJackson2HttpMessageConverter jacksonMessageConverter;
+
+    @Autowired
+    private ExceptionTranslator exceptionTranslator;
+
+    private MockMvc restTagMockMvc;
+
+    @Before
+    public void setup() {
+        TagResource tagResource = new TagResource(tagFeedService);
+        this.restTagMockMvc = MockMvcBuilders.standaloneSetup(tagResource)
+            .setControllerAdvice(exceptionTranslator)
+            .setMessageConverters(jacksonMessageConverter).build();
+        tweetRepository.deleteAll();
+        tagBucketRepository.deleteAll();
+    }
+
+    @Test
+    public void getTagFeedWithCursor() throws Exception {
+        Instant hour = Instant.now().truncatedTo(ChronoUnit.HOURS);
+        Tweet older = saveTweet("#java in the previous hour", hour.minusSeconds(60));
+        saveTweet("#kotlin in this hour", hour.plusSeconds(30));
+        Tweet newer = saveTweet("#Java in this hour", hour.plusSeconds(60));
+
+        // Get the first slice, which points to the next one
+        String next = restTagMockMvc.perform(get("/api/tags/{tag}?limit=1", "JAVA"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].id").value(contains(newer.getId())))
+            .andReturn().getResponse().getHeader("X-Next-Cursor");
+        assertThat(next).isNotNull();
+
+        // Get the last slice, from the bucket of the previous hour
+        restTagMockMvc.perform(get("/api/tags/{tag}?limit=1&before={cursor}", "java", next))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].id").value(contains(older.getId())))
+            .andExpect(header().doesNotExist("X-Next-Cursor"));
+    }
+
+    @Test
+    public void getTagEntriesFromFullBuckets() {
+        Instant hour = Instant.now().truncatedTo(ChronoUnit.HOURS).minus(1, ChronoUnit.HOURS);
+        List<Tweet> tweets = new ArrayList<>();
+        for (int i = 0; i < TagBucket.MAX_ENTRIES + 10; i++) {
+            Tweet tweet = new Tweet().tweeter("alice").content("#java " + i);
+            tweet.setId(ObjectId.get().toHexString());
+            tweet.setCreateTime(hour.plusMillis(i));
+            tweets.add(tweet);
+        }
+        tagBucketRepository.append(tweets);
+        assertThat(tagBucketRepository.count()).isEqualTo(2);
+
+        // the newest bucket holds the whole first page, so the full one is not read
+        assertThat(tagBucketRepository.findEntriesBefore("java", null, null, 5))
+            .extracting(TagBucket.Entry::getTweetId)
+            .containsExactly(idsFromNewest(tweets, TagBucket.MAX_ENTRIES + 9, 5));
+
+        // a page before the third newest tweet starts in the newest bucket and ends in the full one
+        Tweet cursor = tweets.get(TagBucket.MAX_ENTRIES + 2);
+        assertThat(tagBucketRepository.findEntriesBefore("java", cursor.getCreateTime(), cursor.getId(), 5))
+            .extracting(TagBucket.Entry::getTweetId)
+            .startsWith(idsFromNewest(tweets, TagBucket.MAX_ENTRIES + 1, 5));
+    }
+
+    @Test
+    public void getTagFeedAfterDelete() throws Exception {
+        Instant now = Instant.now();
+        Tweet kept = saveTweet("#java kept", now.minusSeconds(1));
+        Tweet deleted = saveTweet("#java deleted", now);
+
+        tagFeedService.remove(deleted);
+
+        restTagMockMvc.perform(get("/api/tags/{tag}", "java"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].id").value(contains(kept.getId())));
+
+        tagFeedService.remove(kept);
+
+        assertThat(tagBucketRepository.findAll()).isEmpty();
+    }
+
+    @Test
+    public void getTagFeedWithInvalidCursor() throws Exception {
+        restTagMockMvc.perform(get("/api/tags/{tag}?before=invalid", "java"))
+            .andExpect(status().isBadRequest());
+    }
+
+    private static String[] idsFromNewest(List<Tweet> tweets, int newest, int count) {
+        return IntStream.range(0, count).mapToObj(i -> tweets.get(newest - i).getId()).toArray(String[]::new);
+    }
+
+    private Tweet saveTweet(String content, Instant createTime) {
+        Tweet tweet = new Tweet().tweeter("alice").content(content);
+        tweet.setCreateTime(createTime);
+        tweet = tweetRepository.save(tweet);
+        tagFeedService.add(tweet);
+        return tweet;
+    }
+}
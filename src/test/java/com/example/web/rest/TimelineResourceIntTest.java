@@ -0,0 +1,208 @@
+package com.example.web.rest;
+
+import com.example.TwitsterApp;
+
+import com.example.domain.TimelineChange;
+import com.example.domain.Tweet;
+import com.example.repository.FollowRepository;
+import com.example.repository.TweetRepository;
+import com.example.repository.UserRepository;
+import com.example.service.FollowService;
+import com.example.service.MentionResolver;
+import com.example.service.TimelineService;
+import com.example.service.TimelineStreamService;
+import com.example.service.TimelineSyncService;
+import com.example.service.UserService;
+import com.example.service.dto.TimelineSyncDTO;
+import com.example.service.dto.UserDTO;
+import com.example.web.rest.errors.ExceptionTranslator;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Test class for the TimelineResource REST controller.
+ *
+ * @see TimelineResource
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = TwitsterApp.class)
+public class TimelineResourceIntTest {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TweetRepository tweetRepository;
+
+    @Autowired
+    private FollowRepository followRepository;
+
+    @Autowired
+    private FollowService followService;
+
+    @Autowired
+    private TimelineService timelineService;
+
+    @Autowired
+    private TimelineStreamService timelineStreamService;
+
+    @Autowired
+    private TimelineSyncService timelineSyncService;
+
+    @Autowired
+    private MentionResolver mentionResolver;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private MappingJackson2HttpMessageConverter jacksonMessageConverter;
+
+    @Autowired
+    private ExceptionTranslator exceptionTranslator;
+
+    private MockMvc restTimelineMockMvc;
+
+    @Before
+    public void setup() {
+        TimelineResource timelineResource = new TimelineResource(timelineService, timelineStreamService, timelineSyncService,
+            mentionResolver);
+        this.restTimelineMockMvc = MockMvcBuilders.standaloneSetup(timelineResource)
+            .setControllerAdvice(exceptionTranslator)
+            .setMessageConverters(jacksonMessageConverter).build();
+        tweetRepository.deleteAll();
+        followRepository.deleteAll();
+        userRepository.deleteAll();
+        mongoTemplate.remove(new Query(), TimelineChange.class);
+        createUser("alice");
+        createUser("bob");
+        createUser("carol");
+    }
+
+    @Test
+    @WithMockUser("bob")
+    public void streamTimeline() throws Exception {
+        MvcResult result = restTimelineMockMvc.perform(get("/api/timeline/stream"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        // follows made while the stream is open are taken into account
+        followService.follow("bob", "alice");
+
+        Tweet followed = tweetRepository.save(new Tweet().tweeter("alice").content("hello"));
+        Tweet other = tweetRepository.save(new Tweet().tweeter("carol").content("hello"));
+        timelineStreamService.publish(other);
+        timelineStreamService.publish(followed);
+
+        // tweets are sent from the async executor
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!result.getResponse().getContentAsString().contains(followed.getId())
+            && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertThat(result.getResponse().getContentAsString())
+            .contains("event:tweet")
+            .contains("id:" + followed.getId())
+            .doesNotContain(other.getId());
+    }
+
+    @Test
+    @WithMockUser("bob")
+    public void syncTimeline() throws Exception {
+        followService.follow("bob", "alice");
+        Thread.sleep(TimelineSyncService.SETTLE_MILLIS);
+
+        // the first sync only returns a token
+        String token = readToken(sync("/api/timeline/sync")
+            .andExpect(jsonPath("$.reset").value(true)));
+
+        Tweet created = tweetRepository.save(new Tweet().tweeter("alice").content("created"));
+        timelineSyncService.record(TimelineChange.Type.CREATED, created);
+        Tweet other = tweetRepository.save(new Tweet().tweeter("carol").content("not followed"));
+        timelineSyncService.record(TimelineChange.Type.CREATED, other);
+        Tweet deleted = tweetRepository.save(new Tweet().tweeter("alice").content("deleted"));
+        timelineSyncService.record(TimelineChange.Type.CREATED, deleted);
+        tweetRepository.delete(deleted);
+        timelineSyncService.record(TimelineChange.Type.DELETED, deleted);
+        Thread.sleep(TimelineSyncService.SETTLE_MILLIS);
+
+        String next = readToken(sync("/api/timeline/sync?since=" + token)
+            .andExpect(jsonPath("$.reset").value(false))
+            .andExpect(jsonPath("$.tweets.[*].id").value(contains(created.getId())))
+            .andExpect(jsonPath("$.deleted").value(contains(deleted.getId()))));
+
+        // nothing changed since
+        sync("/api/timeline/sync?since=" + next)
+            .andExpect(jsonPath("$.token").value(next))
+            .andExpect(jsonPath("$.tweets").value(empty()))
+            .andExpect(jsonPath("$.deleted").value(empty()));
+    }
+
+    @Test
+    @WithMockUser("bob")
+    public void syncTimelineWithWait() throws Exception {
+        followService.follow("bob", "alice");
+        Thread.sleep(TimelineSyncService.SETTLE_MILLIS);
+        String token = timelineSyncService.sync("bob", null, 100).getToken();
+
+        MvcResult result = restTimelineMockMvc.perform(get("/api/timeline/sync?since={token}&wait=10", token))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        Tweet tweet = tweetRepository.save(new Tweet().tweeter("alice").content("hello"));
+        timelineSyncService.record(TimelineChange.Type.CREATED, tweet);
+
+        // answered once the change is settled, before the end of the wait
+        TimelineSyncDTO changes = (TimelineSyncDTO) result.getAsyncResult(5000);
+        assertThat(changes.getTweets()).extracting(Tweet::getId).containsExactly(tweet.getId());
+        assertThat(Long.parseLong(changes.getToken())).isGreaterThan(Long.parseLong(token));
+    }
+
+    @Test
+    @WithMockUser("bob")
+    public void syncTimelineWithInvalidToken() throws Exception {
+        restTimelineMockMvc.perform(get("/api/timeline/sync?since=invalid"))
+            .andExpect(status().isBadRequest());
+    }
+
+    private ResultActions sync(String url) throws Exception {
+        MvcResult result = restTimelineMockMvc.perform(get(url))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        return restTimelineMockMvc.perform(asyncDispatch(result))
+            .andExpect(status().isOk());
+    }
+
+    private String readToken(ResultActions sync) throws Exception {
+        String content = sync.andReturn().getResponse().getContentAsString();
+        return jacksonMessageConverter.getObjectMapper().readTree(content).get("token").asText();
+    }
+
+    private void createUser(String login) {
+        UserDTO user = new UserDTO();
+        user.setLogin(login);
+        user.setEmail(String.format("%s@example.com", login));
+        userService.createUser(user);
+    }
+}
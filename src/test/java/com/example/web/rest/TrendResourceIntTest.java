@@ -0,0 +1,60 @@
+package com.example.web.rest;
+
+import com.example.TwitsterApp;
+
+import com.example.domain.Tweet;
+import com.example.service.TrendService;
+import com.example.service.event.TweetEvent;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import static org.hamcrest.Matchers.hasItem;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Test class for the TrendResource REST controller.
+ *
+ * @see TrendResource
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = TwitsterApp.class)
+public class TrendResourceIntTest {
+
+    @Autowired
+    private TrendService trendService;
+
+    @Autowired
+    private MappingJackson2HttpMessageConverter jacksonMessageConverter;
+
+    private MockMvc restTrendMockMvc;
+
+    @Before
+    public void setup() {
+        TrendResource trendResource = new TrendResource(trendService);
+        this.restTrendMockMvc = MockMvcBuilders.standaloneSetup(trendResource)
+            .setMessageConverters(jacksonMessageConverter).build();
+    }
+
+    @Test
+    public void getTrends() throws Exception {
+        trendService.onTweetEvent(TweetEvent.created(new Tweet().tweeter("alice").content("#Trending now")));
+        trendService.aggregate();
+
+        restTrendMockMvc.perform(get("/api/trends"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+            .andExpect(jsonPath("$.['5m'][*].tag").value(hasItem("trending")))
+            .andExpect(jsonPath("$.['1h'][*].tag").value(hasItem("trending")))
+            .andExpect(jsonPath("$.['24h'][*].tag").value(hasItem("trending")));
+    }
+}
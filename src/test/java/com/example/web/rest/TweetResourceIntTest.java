@@ -1,11 +1,16 @@
 package com.example.web.rest;
 
+import com.codahale.metrics.MetricRegistry;
 import com.example.TwitsterApp;
 
+import com.example.config.ApplicationProperties;
 import com.example.domain.Tweet;
 import com.example.domain.User;
 import com.example.repository.TweetRepository;
 import com.example.repository.UserRepository;
+import com.example.service.MentionResolver;
+import com.example.service.TweetService;
+import com.example.service.TweetWritePipeline;
 import com.example.service.UserService;
 import com.example.service.dto.UserDTO;
 import com.example.web.rest.errors.ExceptionTranslator;
@@ -25,11 +30,14 @@ import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
+import java.time.Instant;
+import java.util.Arrays;
 import java.util.List;
 
 
 import static com.example.web.rest.TestUtil.createFormattingConversionService;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.hasItem;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -58,9 +66,18 @@ public class TweetResourceIntTest {
     @Autowired
     private TweetRepository tweetRepository;
 
+    @Autowired
+    private TweetService tweetService;
+
     @Autowired
     private TweetValidator tweetValidator;
 
+    @Autowired
+    private TweetWritePipeline tweetWritePipeline;
+
+    @Autowired
+    private MentionResolver mentionResolver;
+
     @Autowired
     private MappingJackson2HttpMessageConverter jacksonMessageConverter;
 
@@ -77,7 +94,7 @@ public class TweetResourceIntTest {
     @Before
     public void setup() {
         MockitoAnnotations.initMocks(this);
-        final TweetResource tweetResource = new TweetResource(tweetRepository, tweetValidator);
+        final TweetResource tweetResource = new TweetResource(tweetService, tweetValidator, tweetWritePipeline, mentionResolver);
         this.restTweetMockMvc = MockMvcBuilders.standaloneSetup(tweetResource)
             .setCustomArgumentResolvers(pageableArgumentResolver)
             .setControllerAdvice(exceptionTranslator)
@@ -125,6 +142,84 @@ public class TweetResourceIntTest {
         assertThat(testTweet.getContent()).isEqualTo(DEFAULT_CONTENT);
     }
 
+    @Test
+    public void createTweetIgnoresClientRefsAndTags() throws Exception {
+        tweet.setContent("Hello @BBBBBBBBBB #greetings");
+        tweet.getRefs().add("forged");
+        tweet.getTags().add("forged");
+
+        restTweetMockMvc.perform(post("/api/tweets")
+            .contentType(TestUtil.APPLICATION_JSON_UTF8)
+            .content(TestUtil.convertObjectToJsonBytes(tweet)))
+            .andExpect(status().isCreated())
+            .andExpect(jsonPath("$.refs").value(contains("BBBBBBBBBB")))
+            .andExpect(jsonPath("$.tags").value(contains("greetings")));
+
+        // Validate the tokens stored in the database
+        List<Tweet> tweetList = tweetRepository.findAll();
+        assertThat(tweetList).hasSize(1);
+        assertThat(tweetList.get(0).getRefs()).containsExactly("BBBBBBBBBB");
+        assertThat(tweetList.get(0).getTags()).containsExactly("greetings");
+    }
+
+    @Test
+    public void createTweetWhenWritePipelineIsFull() throws Exception {
+        ApplicationProperties properties = new ApplicationProperties();
+        properties.getTweetWrites().setMode(ApplicationProperties.TweetWrites.Mode.GROUP);
+        properties.getTweetWrites().setAck(ApplicationProperties.TweetWrites.Ack.ACCEPTED);
+        properties.getTweetWrites().setBufferSize(2);
+        properties.getTweetWrites().setRetryAfterSeconds(3);
+        // the pipeline is not started, so nothing drains its buffer
+        TweetWritePipeline pipeline = new TweetWritePipeline(tweetService, properties, new MetricRegistry());
+        MockMvc restMockMvc = MockMvcBuilders.standaloneSetup(new TweetResource(tweetService, tweetValidator, pipeline, mentionResolver))
+            .setControllerAdvice(exceptionTranslator)
+            .setMessageConverters(jacksonMessageConverter).build();
+        byte[] content = TestUtil.convertObjectToJsonBytes(new Tweet().tweeter("aaaaaaaaaa").content(DEFAULT_CONTENT));
+
+        for (int i = 0; i < 2; i++) {
+            restMockMvc.perform(post("/api/tweets").contentType(TestUtil.APPLICATION_JSON_UTF8).content(content))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.id").isNotEmpty());
+        }
+        restMockMvc.perform(post("/api/tweets").contentType(TestUtil.APPLICATION_JSON_UTF8).content(content))
+            .andExpect(status().isTooManyRequests())
+            .andExpect(header().string("Retry-After", "3"));
+    }
+
+    @Test
+    public void createTweetBatch() throws Exception {
+        Tweet valid = new Tweet().tweeter("aaaaaaaaaa").content("Hello @bbbbbbbbbb #batch");
+        Tweet unknownTweeter = new Tweet().tweeter("unknown").content(DEFAULT_CONTENT);
+        Tweet withoutContent = new Tweet().tweeter("bbbbbbbbbb");
+
+        restTweetMockMvc.perform(post("/api/tweets/batch")
+            .contentType(TestUtil.APPLICATION_JSON_UTF8)
+            .content(TestUtil.convertObjectToJsonBytes(Arrays.asList(valid, unknownTweeter, withoutContent))))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].status").value(contains(201, 400, 400)))
+            .andExpect(jsonPath("$.[1].fieldErrors.[0].field").value("tweeter"))
+            .andExpect(jsonPath("$.[2].fieldErrors.[0].field").value("content"));
+
+        // Only the valid tweet is inserted, tokenized although bulk writes publish no mapping events
+        List<Tweet> tweetList = tweetRepository.findAll();
+        assertThat(tweetList).hasSize(1);
+        assertThat(tweetList.get(0).getRefs()).containsExactly("bbbbbbbbbb");
+        assertThat(tweetList.get(0).getTags()).containsExactly("batch");
+    }
+
+    @Test
+    public void createTweetBatchTooLarge() throws Exception {
+        Tweet[] tweets = new Tweet[TweetResource.MAX_BATCH_SIZE + 1];
+        Arrays.fill(tweets, tweet);
+
+        restTweetMockMvc.perform(post("/api/tweets/batch")
+            .contentType(TestUtil.APPLICATION_JSON_UTF8)
+            .content(TestUtil.convertObjectToJsonBytes(tweets)))
+            .andExpect(status().isBadRequest());
+
+        assertThat(tweetRepository.findAll()).isEmpty();
+    }
+
     @Test
     public void createTweetWithExistingId() throws Exception {
         int databaseSizeBeforeCreate = tweetRepository.findAll().size();
@@ -191,6 +286,51 @@ public class TweetResourceIntTest {
             .andExpect(jsonPath("$.[*].content").value(hasItem(DEFAULT_CONTENT.toString())));
     }
 
+    @Test
+    public void getAllTweetsWithMentions() throws Exception {
+        // Initialize the database
+        tweet.setContent("Hello @BBBBBBBBBB, @unknown and @bbbbbbbbbb");
+        tweetRepository.save(tweet);
+
+        // Get all the tweetList, with the mentioned users that exist
+        restTweetMockMvc.perform(get("/api/tweets?sort=id,desc"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[0].id").value(tweet.getId()))
+            .andExpect(jsonPath("$.[0].refs").value(contains("BBBBBBBBBB", "unknown", "bbbbbbbbbb")))
+            .andExpect(jsonPath("$.[0].mentions.[*].login").value(contains("bbbbbbbbbb")));
+    }
+
+    @Test
+    public void getTweetsWithCursor() throws Exception {
+        // Initialize the database
+        Instant now = Instant.now();
+        Tweet older = createEntity();
+        older.setCreateTime(now.minusSeconds(10));
+        tweetRepository.save(older);
+        tweet.setCreateTime(now);
+        tweetRepository.save(tweet);
+
+        // Get the first slice, which points to the next one
+        String next = restTweetMockMvc.perform(get("/api/tweets?limit=1"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].id").value(contains(tweet.getId())))
+            .andExpect(header().doesNotExist("X-Total-Count"))
+            .andReturn().getResponse().getHeader("X-Next-Cursor");
+        assertThat(next).isNotNull();
+
+        // Get the last slice
+        restTweetMockMvc.perform(get("/api/tweets?limit=1&before={cursor}", next))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].id").value(contains(older.getId())))
+            .andExpect(header().doesNotExist("X-Next-Cursor"));
+    }
+
+    @Test
+    public void getTweetsWithInvalidCursor() throws Exception {
+        restTweetMockMvc.perform(get("/api/tweets?limit=1&before=invalid"))
+            .andExpect(status().isBadRequest());
+    }
+
     @Test
     public void getTweet() throws Exception {
         // Initialize the database
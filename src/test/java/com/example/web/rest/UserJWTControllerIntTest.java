@@ -82,6 +82,27 @@ public class UserJWTControllerIntTest {
             .andExpect(header().string("Authorization", not(isEmptyString())));
     }
 
+    @Test
+    public void testAuthorizeWithEmailInAnotherCase() throws Exception {
+        User user = new User();
+        user.setLogin("user-jwt-controller-email");
+        user.setEmail("User-JWT-Controller-Email@Example.com");
+        user.setActivated(true);
+        user.setPassword(passwordEncoder.encode("test"));
+
+        userRepository.save(user);
+
+        LoginVM login = new LoginVM();
+        login.setUsername("user-jwt-controller-email@example.COM");
+        login.setPassword("test");
+        mockMvc.perform(post("/api/authenticate")
+            .contentType(TestUtil.APPLICATION_JSON_UTF8)
+            .content(TestUtil.convertObjectToJsonBytes(login)))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.id_token").isString())
+            .andExpect(jsonPath("$.id_token").isNotEmpty());
+    }
+
     @Test
     public void testAuthorizeWithRememberMe() throws Exception {
         User user = new User();